@@ -0,0 +1,53 @@
+package nhom16oop.benchmarks;
+
+import nhom16oop.core.model.BoardState;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The positions every benchmark runs over, grouped by game phase. Each
+ * benchmark invocation processes the whole group, so results are averages
+ * over a mix of typical positions rather than one hand-picked case.
+ */
+public final class BenchmarkPositions {
+
+    public enum Phase {
+        MIDDLEGAME,
+        ENDGAME
+    }
+
+    private static final String[] MIDDLEGAME_FENS = {
+            "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1",
+            "r4rk1/1pp1qppp/p1np1n2/2b1p1B1/2B1P1b1/P1NP1N2/1PP1QPPP/R4RK1 w - - 0 10",
+            "r1bq1rk1/pp2bppp/2n1pn2/2pp4/3P4/2PBPN2/PP1N1PPP/R1BQ1RK1 w - - 0 8",
+            "2rq1rk1/pb1nbppp/1p2pn2/2pp4/2PP4/1PN1PN2/PB2BPPP/2RQ1RK1 w - - 0 11",
+            "r2qkb1r/pp2nppp/3p4/2pNN1B1/2BnP3/3P4/PPP2PPP/R2bK2R w KQkq - 1 1",
+            "rnbq1k1r/pp1Pbppp/2p5/8/2B5/8/PPP1NnPP/RNBQK2R w KQ - 1 8"
+    };
+
+    private static final String[] ENDGAME_FENS = {
+            "8/2p5/3p4/KP5r/1R3p1k/8/4P1P1/8 w - - 0 1",
+            "8/8/4k3/3p4/3P4/4K3/8/8 w - - 0 1",
+            "6k1/5ppp/8/8/8/8/5PPP/3R2K1 w - - 0 1",
+            "8/5k2/8/3B4/8/2N5/4K3/8 w - - 0 1",
+            "8/8/8/8/8/5k2/6q1/7K w - - 0 1",
+            "7k/5Q2/6K1/8/8/8/8/8 b - - 0 1"
+    };
+
+    private BenchmarkPositions() {
+        throw new AssertionError("Cannot instantiate BenchmarkPositions class");
+    }
+
+    public static String[] fens(Phase phase) {
+        return (phase == Phase.MIDDLEGAME ? MIDDLEGAME_FENS : ENDGAME_FENS).clone();
+    }
+
+    public static List<BoardState> load(Phase phase) {
+        List<BoardState> positions = new ArrayList<>();
+        for (String fen : fens(phase)) {
+            positions.add(new BoardState(fen));
+        }
+        return positions;
+    }
+}
@@ -0,0 +1,109 @@
+package nhom16oop.benchmarks;
+
+import nhom16oop.core.model.BoardState;
+import nhom16oop.core.model.ChessMove;
+import nhom16oop.core.movegen.LegalMoveGenerator;
+import nhom16oop.core.movegen.MoveList;
+import nhom16oop.utils.BoardUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Check and game end detection over the corpus, plus the two ways of trying a
+ * move: {@link BoardUtils#leavesKingInCheck} (which replaced the old
+ * copy-based {@code simulateMove}) and make/unmake on {@link BoardState}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Djava.awt.headless=true", "-Dlogback.configurationFile=logback-benchmarks.xml"})
+public class BoardQueryBenchmark {
+
+    @Param({"MIDDLEGAME", "ENDGAME"})
+    public BenchmarkPositions.Phase phase;
+
+    private List<BoardState> positions;
+    private final List<List<ChessMove>> legalMoves = new ArrayList<>();
+    private final List<MoveList> packedMoves = new ArrayList<>();
+    private final MoveList moveBuffer = new MoveList();
+
+    @Setup
+    public void setUp() {
+        positions = BenchmarkPositions.load(phase);
+        for (BoardState boardState : positions) {
+            legalMoves.add(new LegalMoveGenerator(boardState).generateLegalMoves());
+            MoveList moves = new MoveList();
+            new LegalMoveGenerator(boardState).generateLegalMoves(moves);
+            packedMoves.add(moves);
+        }
+    }
+
+    @Benchmark
+    public void isKingInCheck(Blackhole blackhole) {
+        for (BoardState boardState : positions) {
+            blackhole.consume(BoardUtils.isKingInCheck(boardState.getCurrentPlayerColor(), boardState.getChessPieceMap()));
+        }
+    }
+
+    @Benchmark
+    public void isCheckmate(Blackhole blackhole) {
+        for (BoardState boardState : positions) {
+            blackhole.consume(BoardUtils.isCheckmate(boardState));
+        }
+    }
+
+    @Benchmark
+    public void isStalemate(Blackhole blackhole) {
+        for (BoardState boardState : positions) {
+            blackhole.consume(BoardUtils.isStalemate(boardState));
+        }
+    }
+
+    @Benchmark
+    public void generateLegalMoves(Blackhole blackhole) {
+        for (BoardState boardState : positions) {
+            moveBuffer.clear();
+            new LegalMoveGenerator(boardState).generateLegalMoves(moveBuffer);
+            blackhole.consume(moveBuffer.size());
+        }
+    }
+
+    @Benchmark
+    public void leavesKingInCheck(Blackhole blackhole) {
+        for (int i = 0; i < positions.size(); i++) {
+            for (ChessMove move : legalMoves.get(i)) {
+                blackhole.consume(BoardUtils.leavesKingInCheck(move, positions.get(i).getChessPieceMap()));
+            }
+        }
+    }
+
+    @Benchmark
+    public void makeUnmakeMove(Blackhole blackhole) {
+        for (int i = 0; i < positions.size(); i++) {
+            BoardState boardState = positions.get(i);
+            MoveList moves = packedMoves.get(i);
+            for (int j = 0; j < moves.size(); j++) {
+                int move = moves.get(j);
+                long undo = boardState.makeMove(move);
+                blackhole.consume(undo);
+                boardState.unmakeMove(move, undo);
+            }
+        }
+    }
+}
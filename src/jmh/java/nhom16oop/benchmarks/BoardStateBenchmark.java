@@ -0,0 +1,81 @@
+package nhom16oop.benchmarks;
+
+import nhom16oop.core.model.BoardState;
+import nhom16oop.core.model.FenCodec;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * FEN conversion, copying and hashing of whole board states over the corpus.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Djava.awt.headless=true", "-Dlogback.configurationFile=logback-benchmarks.xml"})
+public class BoardStateBenchmark {
+
+    @Param({"MIDDLEGAME", "ENDGAME"})
+    public BenchmarkPositions.Phase phase;
+
+    private List<BoardState> positions;
+    private String[] fens;
+    private BoardState target;
+
+    @Setup
+    public void setUp() {
+        positions = BenchmarkPositions.load(phase);
+        fens = BenchmarkPositions.fens(phase);
+        target = new BoardState(fens[0]);
+    }
+
+    @Benchmark
+    public void getFEN(Blackhole blackhole) {
+        for (BoardState boardState : positions) {
+            blackhole.consume(FenCodec.encode(boardState));
+        }
+    }
+
+    @Benchmark
+    public void getCachedFEN(Blackhole blackhole) {
+        for (BoardState boardState : positions) {
+            blackhole.consume(boardState.getFEN());
+        }
+    }
+
+    @Benchmark
+    public void setFromFEN(Blackhole blackhole) {
+        for (String fen : fens) {
+            target.setFromFEN(fen);
+            blackhole.consume(target);
+        }
+    }
+
+    @Benchmark
+    public void deepCopy(Blackhole blackhole) {
+        for (BoardState boardState : positions) {
+            blackhole.consume(boardState.deepCopy());
+        }
+    }
+
+    @Benchmark
+    public void hashCode(Blackhole blackhole) {
+        for (BoardState boardState : positions) {
+            blackhole.consume(boardState.hashCode());
+        }
+    }
+}
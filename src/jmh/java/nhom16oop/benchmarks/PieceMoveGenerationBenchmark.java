@@ -0,0 +1,66 @@
+package nhom16oop.benchmarks;
+
+import nhom16oop.constants.PieceType;
+import nhom16oop.core.model.BoardState;
+import nhom16oop.core.model.ChessPiece;
+import nhom16oop.core.model.ChessPosition;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link ChessPiece#generateValidMoves(ChessPosition, BoardState)} for every piece of one type in each
+ * position of the corpus.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Djava.awt.headless=true", "-Dlogback.configurationFile=logback-benchmarks.xml"})
+public class PieceMoveGenerationBenchmark {
+
+    @Param({"PAWN", "KNIGHT", "BISHOP", "ROOK", "QUEEN", "KING"})
+    public PieceType pieceType;
+
+    @Param({"MIDDLEGAME", "ENDGAME"})
+    public BenchmarkPositions.Phase phase;
+
+    private final List<BoardState> boardStates = new ArrayList<>();
+    private final List<ChessPosition> squares = new ArrayList<>();
+    private final List<ChessPiece> pieces = new ArrayList<>();
+
+    @Setup
+    public void setUp() {
+        for (BoardState boardState : BenchmarkPositions.load(phase)) {
+            for (Map.Entry<ChessPosition, ChessPiece> entry : boardState.getChessPieceMap().getPieceMap().entrySet()) {
+                if (entry.getValue().getPieceType() == pieceType) {
+                    boardStates.add(boardState);
+                    squares.add(entry.getKey());
+                    pieces.add(entry.getValue());
+                }
+            }
+        }
+    }
+
+    @Benchmark
+    public void generateValidMoves(Blackhole blackhole) {
+        for (int i = 0; i < pieces.size(); i++) {
+            blackhole.consume(pieces.get(i).generateValidMoves(squares.get(i), boardStates.get(i)));
+        }
+    }
+}
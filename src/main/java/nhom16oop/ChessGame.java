@@ -1,6 +1,7 @@
 package nhom16oop;
 
 import nhom16oop.game.ChessLauncher;
+import nhom16oop.ui.PieceSkin;
 import nhom16oop.utils.ImageLoader;
 import nhom16oop.utils.SoundPlayer;
 
@@ -16,6 +17,7 @@ public class ChessGame {
 
         // Load resources
         ImageLoader.preloadImages();
+        PieceSkin.preload();
         SoundPlayer.preloadSounds();
 
         // Launch the chess game
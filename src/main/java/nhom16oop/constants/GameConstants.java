@@ -9,5 +9,6 @@ public final class GameConstants {
         public static final int BOARD_HEIGHT = BOARD_SIZE * SQUARE_SIZE;
     }
 
-    public static final int FIFTY_MOVE_RULE_LIMIT = 50;
+    /** Halfmove clock at which the fifty-move rule draws: fifty moves by each side. */
+    public static final int FIFTY_MOVE_RULE_LIMIT = 100;
 }
@@ -0,0 +1,16 @@
+package nhom16oop.constants;
+
+/**
+ * The outcome of a position for the side to move.
+ */
+public enum GameStatus {
+    ONGOING, CHECKMATE, STALEMATE, DEAD, FIFTY_MOVE, REPETITION;
+
+    public boolean isGameOver() {
+        return this != ONGOING;
+    }
+
+    public boolean isDraw() {
+        return this != ONGOING && this != CHECKMATE;
+    }
+}
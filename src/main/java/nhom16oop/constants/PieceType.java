@@ -0,0 +1,5 @@
+package nhom16oop.constants;
+
+public enum PieceType {
+    PAWN, KNIGHT, BISHOP, ROOK, QUEEN, KING
+}
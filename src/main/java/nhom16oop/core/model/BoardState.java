@@ -1,16 +1,16 @@
 package nhom16oop.core.model;
 
 import nhom16oop.constants.PieceColor;
-import nhom16oop.core.pieces.Bishop;
+import nhom16oop.constants.PieceType;
+import nhom16oop.core.movegen.Move;
+import nhom16oop.core.pieces.BitboardPieceMap;
 import nhom16oop.core.pieces.ChessPieceMap;
 import nhom16oop.core.pieces.King;
-import nhom16oop.core.pieces.Knight;
-import nhom16oop.core.pieces.Pawn;
 import nhom16oop.core.pieces.Queen;
 import nhom16oop.core.pieces.Rook;
-import nhom16oop.utils.ChessNotationUtils;
 
-import java.util.Objects;
+import java.io.IOException;
+import java.io.UncheckedIOException;
 
 /**
  * A class representing the state of a chessboard, including piece positions,
@@ -23,7 +23,21 @@ import java.util.Objects;
  */
 public final class BoardState {
 
+    // Undo state of a packed move, see makeMove(int)
+    private static final int UNDO_CAPTURED_MASK = 0x7;
+    private static final int UNDO_CASTLING_SHIFT = 3;
+    private static final int UNDO_EN_PASSANT_SHIFT = 7;
+    private static final int UNDO_HALFMOVE_SHIFT = 14;
+    private static final int UNDO_HALFMOVE_MASK = 0xfffff;
+    private static final int UNDO_LAST_MOVE_SHIFT = 34;
+    private static final int UNDO_LAST_MOVE_MASK = 0x1fff;
+    private static final int NO_SQUARE = 64;
+    private static final int NO_LAST_MOVE = -1;
+    private static final PieceType[] PIECE_TYPES = PieceType.values();
+
     private final ChessPieceMap chessPieceMap;
+    // The last move as from | to << 6, and the ChessMove for it, built on request
+    private int lastMoveSquares = NO_LAST_MOVE;
     private ChessMove lastMove;
     private PieceColor currentPlayerColor = PieceColor.WHITE;
     private int halfmoveClock = 0;
@@ -33,11 +47,18 @@ public final class BoardState {
     private boolean whiteCanCastleQueenside = true;
     private boolean blackCanCastleKingside = true;
     private boolean blackCanCastleQueenside = true;
+    // Cached FEN, see getFEN()
+    private final String[] fenRanks = new String[8];
+    private final int[] fenRankVersions = new int[8];
+    private String fen;
+    private int fenPieceVersion;
+    private long fenState;
     // ...
     /**
      * Constructs a new board state with the given piece map and initializes
-     * castling availability. Validates the presence and position of both kings,
-     * throwing an exception if either is missing.
+     * castling availability: a side keeps a castling right while its king and
+     * the matching rook stand on their home squares. Validates the presence of
+     * both kings, throwing an exception if either is missing.
      *
      * @param chessPieceMap the map containing all pieces and their positions on
      *                      the board
@@ -47,119 +68,126 @@ public final class BoardState {
     public BoardState(ChessPieceMap chessPieceMap) {
         this.chessPieceMap = chessPieceMap;
         if (!chessPieceMap.getPieceMap().isEmpty()) {
-            // Check if White King can castle
-            ChessPosition whiteKingPosition = chessPieceMap.getKingPosition(PieceColor.WHITE);
-            if (whiteKingPosition == null) {
+            if (chessPieceMap.getKingPosition(PieceColor.WHITE) == null) {
                 throw new IllegalStateException("White King position is null");
             }
-            King whiteKing = chessPieceMap.getKing(PieceColor.WHITE);
-            this.whiteCanCastleKingside = whiteKing.canCastleKingside(whiteKingPosition, chessPieceMap);
-            this.whiteCanCastleQueenside = whiteKing.canCastleQueenside(whiteKingPosition, chessPieceMap);
-
-            // Check if Black King can castle
-            ChessPosition blackKingPosition = chessPieceMap.getKingPosition(PieceColor.BLACK);
-            if (blackKingPosition == null) {
+            if (chessPieceMap.getKingPosition(PieceColor.BLACK) == null) {
                 throw new IllegalStateException("Black King position is null");
             }
-            King blackKing = chessPieceMap.getKing(PieceColor.BLACK);
-            this.blackCanCastleKingside = blackKing.canCastleKingside(blackKingPosition, chessPieceMap);
-            this.blackCanCastleQueenside = blackKing.canCastleQueenside(blackKingPosition, chessPieceMap);
+            this.whiteCanCastleKingside = hasCastlingPieces(PieceColor.WHITE, 7);
+            this.whiteCanCastleQueenside = hasCastlingPieces(PieceColor.WHITE, 0);
+            this.blackCanCastleKingside = hasCastlingPieces(PieceColor.BLACK, 7);
+            this.blackCanCastleQueenside = hasCastlingPieces(PieceColor.BLACK, 0);
         }
     }
 
-    public BoardState(String FEN){
-        this.chessPieceMap = new ChessPieceMap();
-        this.setFromFEN(FEN);
+    private boolean hasCastlingPieces(PieceColor color, int rookCol) {
+        int row = color.isWhite() ? 0 : 7;
+        return chessPieceMap.getPiece(ChessPosition.of(4, row)) == King.of(color)
+                && chessPieceMap.getPiece(ChessPosition.of(rookCol, row)) == Rook.of(color);
     }
 
-    public void setFromFEN(String FEN) {
+    /**
+     * Constructs a board state from a FEN.
+     *
+     * @param fen the position in FEN
+     * @throws IllegalArgumentException if the text is not a valid FEN
+     * @see FenCodec
+     */
+    public BoardState(String fen) {
+        this.chessPieceMap = new BitboardPieceMap();
+        FenCodec.decode(fen, this);
+    }
 
-        String[] parts = FEN.split(" ");
-        if (parts.length < 4) {
-            throw new IllegalArgumentException("Invalid FEN string: " + FEN);
-        }
-        chessPieceMap.clear();
-        
-        // Parse piece positions (part 1)
-        String[] ranks = parts[0].split("/");
-        for (int rank = 0; rank < 8; rank++) {
-            int col = 0;
-            String rankStr = ranks[7 - rank]; // FEN từ rank 8 xuống rank 1
-            
-            for (char c : rankStr.toCharArray()) {
-                if (Character.isDigit(c)) {
-                    col += Character.getNumericValue(c);
-                } else {
-                    ChessPiece piece = createPieceFromFENChar(c);
-                    if (piece != null) {
-                        this.getChessPieceMap().setPiece(new ChessPosition(col, rank), piece);
-                    }
-                    col++;
-                }
-            }
-        }
-        
-        // Parse active color (part 2)
-        PieceColor activeColor = parts[1].equals("w") ? PieceColor.WHITE : PieceColor.BLACK;
-        this.setCurrentPlayerColor(activeColor);
-        
-        // Parse castling rights (part 3)
-        String castlingRights = parts[2];
-        this.whiteCanCastleKingside = castlingRights.contains("K");
-        this.whiteCanCastleQueenside = castlingRights.contains("Q");
-        this.blackCanCastleKingside = castlingRights.contains("k");
-        this.blackCanCastleQueenside = castlingRights.contains("q");
-        // En passant (part 4) sẽ tự động update sau move đầu tiên
-        String enPassantNotation = parts[3];
-        enPassantTargetSquare = ChessPosition.get(enPassantNotation);
-        
-        // Parse halfmove clock and fullmove number (parts 5 and 6)
-        if(parts.length <6) return;
-        halfmoveClock = Integer.parseInt(parts[4]);
-        fullmoveNumber= Integer.parseInt(parts[4]);
+    /**
+     * Replaces the pieces and state with those of a FEN position.
+     *
+     * @param fen the position in FEN
+     * @throws IllegalArgumentException if the text is not a valid FEN
+     * @see FenCodec#decode(CharSequence, BoardState)
+     */
+    public void setFromFEN(String fen) {
+        FenCodec.decode(fen, this);
+    }
+
+    /**
+     * Sets everything but the pieces at once, for {@link FenCodec}. The last
+     * move is cleared.
+     */
+    void setPositionState(PieceColor sideToMove, int castlingRights, ChessPosition enPassantTargetSquare,
+                          int halfmoveClock, int fullmoveNumber) {
+        this.currentPlayerColor = sideToMove;
+        setCastlingRights(castlingRights);
+        this.enPassantTargetSquare = enPassantTargetSquare;
+        this.halfmoveClock = halfmoveClock;
+        this.fullmoveNumber = fullmoveNumber;
+        restoreLastMove(null);
     }
 
     public ChessPieceMap getChessPieceMap() {
         return chessPieceMap;
     }
 
+    /**
+     * Records the move just played and updates the en passant target square
+     * and castling rights from it. May be called before or after the pieces
+     * are moved on the board.
+     *
+     * @param lastMove the move just played, or null
+     */
     public void setLastMove(ChessMove lastMove) {
-        this.lastMove = lastMove;
+        restoreLastMove(lastMove);
         updateEnPassantTargetSquare();
 
         if (lastMove != null) {
-            ChessPiece movedPiece = chessPieceMap.getPiece(lastMove.start());
-            ChessPosition start = lastMove.start();
-            if (movedPiece instanceof King) {
-                if (movedPiece.getColor() == PieceColor.WHITE) {
+            ChessPiece movedPiece = getMovedPiece(lastMove);
+            if (movedPiece != null && movedPiece.getPieceType() == PieceType.KING) {
+                if (movedPiece.getColor().isWhite()) {
                     whiteCanCastleKingside = false;
                     whiteCanCastleQueenside = false;
                 } else {
                     blackCanCastleKingside = false;
                     blackCanCastleQueenside = false;
                 }
-            } else if (movedPiece instanceof Rook) {
-                if (movedPiece.getColor() == PieceColor.WHITE) {
-                    if (start.equals(ChessPosition.get("H1"))) {
-                        whiteCanCastleKingside = false;
-                    } else if (start.equals(ChessPosition.get("A1"))) {
-                        whiteCanCastleQueenside = false;
-                    }
-                } else {
-                    if (start.equals(ChessPosition.get("H8"))) {
-                        blackCanCastleKingside = false;
-                    } else if (start.equals(ChessPosition.get("A8"))) {
-                        blackCanCastleQueenside = false;
-                    }
-                }
             }
+            revokeCastlingRightsAt(lastMove.start());
+            revokeCastlingRightsAt(lastMove.end());
         }
     }
 
+    /**
+     * Finds the piece that made a move, whether or not the move has been
+     * applied to the piece map yet.
+     */
+    private ChessPiece getMovedPiece(ChessMove move) {
+        ChessPiece piece = chessPieceMap.getPiece(move.start());
+        return piece != null ? piece : chessPieceMap.getPiece(move.end());
+    }
+
+    private static boolean isPawn(ChessPiece piece) {
+        return piece != null && piece.getPieceType() == PieceType.PAWN;
+    }
+
     public ChessMove getLastMove() {
+        if (lastMove == null && lastMoveSquares != NO_LAST_MOVE) {
+            lastMove = new ChessMove(ChessPosition.of(lastMoveSquares & 0x3f), ChessPosition.of(lastMoveSquares >>> 6));
+        }
         return lastMove;
     }
 
+    /**
+     * Sets the last move without touching anything derived from it.
+     */
+    private void restoreLastMove(ChessMove move) {
+        lastMove = move;
+        lastMoveSquares = move == null ? NO_LAST_MOVE : move.start().index() | move.end().index() << 6;
+    }
+
+    private void restoreLastMoveSquares(int squares) {
+        lastMove = null;
+        lastMoveSquares = squares;
+    }
+
     public PieceColor getCurrentPlayerColor() {
         return currentPlayerColor;
     }
@@ -209,9 +237,10 @@ public final class BoardState {
      * clears it.
      */
     public void updateEnPassantTargetSquare() {
-        if (lastMove != null && chessPieceMap.getPiece(lastMove.end()) instanceof Pawn && Math.abs(lastMove.start().row() - lastMove.end().row()) == 2) {
+        ChessMove lastMove = getLastMove();
+        if (lastMove != null && isPawn(getMovedPiece(lastMove)) && Math.abs(lastMove.start().row() - lastMove.end().row()) == 2) {
             int enPassantRow = (lastMove.start().row() + lastMove.end().row()) / 2;
-            enPassantTargetSquare = new ChessPosition(lastMove.end().col(), enPassantRow);
+            enPassantTargetSquare = ChessPosition.of(lastMove.end().col(), enPassantRow);
         } else {
             enPassantTargetSquare = null;
         }
@@ -233,23 +262,402 @@ public final class BoardState {
         return blackCanCastleQueenside;
     }
 
+    // --- Make / Unmake ---
+
+    /**
+     * Makes a move in place, promoting to a queen if a pawn reaches the last
+     * rank.
+     *
+     * @param move the move to make
+     * @return the record needed to take the move back
+     * @see #makeMove(ChessMove, ChessPiece)
+     */
+    public UndoRecord makeMove(ChessMove move) {
+        return makeMove(move, null);
+    }
+
+    /**
+     * Makes a packed move (see {@link Move}) in place, with the same effect as
+     * {@link #makeMove(ChessMove, ChessPiece)}. The move is applied from its
+     * squares and flags: the castling flag moves the rook, the en passant flag
+     * captures the pawn beside the start square, the double push flag sets the
+     * en passant target square and a promotion places the piece of the
+     * encoded type. Nothing is allocated, which is what search and perft rely
+     * on; the last move is stored as squares and only turned into a
+     * {@link ChessMove} if asked for.
+     *
+     * @param move the packed move to make
+     * @return the undo state to pass to {@link #unmakeMove(int, long)}: the
+     *         captured piece type, castling rights, en passant target square,
+     *         halfmove clock and last move before the move, packed in a long
+     * @throws IllegalArgumentException if there is no piece on the start square
+     */
+    public long makeMove(int move) {
+        int from = Move.from(move);
+        int to = Move.to(move);
+        ChessPiece piece = chessPieceMap.getPiece(ChessPosition.of(from));
+        if (piece == null) {
+            throw new IllegalArgumentException("No piece to move at " + ChessPosition.of(from).toChessNotation());
+        }
+        PieceColor color = piece.getColor();
+        PieceType type = piece.getPieceType();
+
+        int capturedSquare = Move.isEnPassant(move) ? enPassantCaptureSquare(from, to) : to;
+        ChessPiece capturedPiece = chessPieceMap.getPiece(ChessPosition.of(capturedSquare));
+        long undo = (capturedPiece != null ? capturedPiece.getPieceType().ordinal() + 1 : 0)
+                | (long) getCastlingRights() << UNDO_CASTLING_SHIFT
+                | (long) (enPassantTargetSquare != null ? enPassantTargetSquare.index() : NO_SQUARE) << UNDO_EN_PASSANT_SHIFT
+                | (long) (halfmoveClock & UNDO_HALFMOVE_MASK) << UNDO_HALFMOVE_SHIFT
+                | (long) (lastMoveSquares + 1) << UNDO_LAST_MOVE_SHIFT;
+
+        if (capturedPiece != null) {
+            chessPieceMap.removePiece(ChessPosition.of(capturedSquare));
+        }
+        PieceType promotion = Move.promotion(move);
+        chessPieceMap.removePiece(ChessPosition.of(from));
+        chessPieceMap.setPiece(ChessPosition.of(to), promotion != null ? ChessPiece.of(color, promotion) : piece);
+        if (Move.isCastling(move)) {
+            moveCastlingRook(from, to, false);
+        }
+
+        if (type == PieceType.KING) {
+            if (color.isWhite()) {
+                whiteCanCastleKingside = false;
+                whiteCanCastleQueenside = false;
+            } else {
+                blackCanCastleKingside = false;
+                blackCanCastleQueenside = false;
+            }
+        }
+        revokeCastlingRightsAt(ChessPosition.of(from));
+        revokeCastlingRightsAt(ChessPosition.of(to));
+
+        enPassantTargetSquare = Move.isDoublePush(move) ? ChessPosition.of((from + to) >>> 1) : null;
+        if (type == PieceType.PAWN || capturedPiece != null) {
+            halfmoveClock = 0;
+        } else {
+            halfmoveClock++;
+        }
+        if (color.isBlack()) {
+            fullmoveNumber++;
+        }
+        restoreLastMoveSquares(from | to << 6);
+        currentPlayerColor = color.getOpponent();
+        return undo;
+    }
+
+    /**
+     * Takes back a packed move made with {@link #makeMove(int)}, restoring
+     * the position exactly as it was. Moves must be taken back in reverse
+     * order.
+     *
+     * @param move the packed move
+     * @param undo the undo state returned when the move was made
+     */
+    public void unmakeMove(int move, long undo) {
+        int from = Move.from(move);
+        int to = Move.to(move);
+        PieceColor color = currentPlayerColor.getOpponent();
+
+        if (Move.isCastling(move)) {
+            moveCastlingRook(from, to, true);
+        }
+        ChessPiece movedPiece = Move.isPromotion(move)
+                ? ChessPiece.of(color, PieceType.PAWN)
+                : chessPieceMap.getPiece(ChessPosition.of(to));
+        chessPieceMap.removePiece(ChessPosition.of(to));
+        chessPieceMap.setPiece(ChessPosition.of(from), movedPiece);
+        int capturedType = (int) undo & UNDO_CAPTURED_MASK;
+        if (capturedType != 0) {
+            int capturedSquare = Move.isEnPassant(move) ? enPassantCaptureSquare(from, to) : to;
+            chessPieceMap.setPiece(ChessPosition.of(capturedSquare), ChessPiece.of(color.getOpponent(), PIECE_TYPES[capturedType - 1]));
+        }
+
+        setCastlingRights((int) (undo >>> UNDO_CASTLING_SHIFT) & 0xf);
+        int enPassant = (int) (undo >>> UNDO_EN_PASSANT_SHIFT) & 0x7f;
+        enPassantTargetSquare = enPassant == NO_SQUARE ? null : ChessPosition.of(enPassant);
+        halfmoveClock = (int) (undo >>> UNDO_HALFMOVE_SHIFT) & UNDO_HALFMOVE_MASK;
+        if (color.isBlack()) {
+            fullmoveNumber--;
+        }
+        restoreLastMoveSquares(((int) (undo >>> UNDO_LAST_MOVE_SHIFT) & UNDO_LAST_MOVE_MASK) - 1);
+        currentPlayerColor = color;
+    }
+
+    /**
+     * Returns the square of the pawn taken en passant: beside the start
+     * square, on the column of the end square.
+     */
+    private static int enPassantCaptureSquare(int from, int to) {
+        return (from & 0x38) | (to & 0x7);
+    }
+
+    /**
+     * Moves the rook of a castling move from its corner next to the king's
+     * end square, or back when the move is taken back.
+     */
+    private void moveCastlingRook(int from, int to, boolean back) {
+        int rank = from & 0x38;
+        boolean isKingside = to > from;
+        ChessPosition corner = ChessPosition.of(rank | (isKingside ? 7 : 0));
+        ChessPosition inner = ChessPosition.of(rank | (isKingside ? 5 : 3));
+        ChessPosition rookStart = back ? inner : corner;
+        ChessPiece rook = chessPieceMap.getPiece(rookStart);
+        chessPieceMap.removePiece(rookStart);
+        chessPieceMap.setPiece(back ? corner : inner, rook);
+    }
+
+    /**
+     * Makes a move in place, updating the pieces, the side to move, castling
+     * rights, the en passant target square and the move counters. Castling
+     * (a king moving two columns) also moves the rook, and a pawn moving
+     * diagonally onto an empty square captures en passant. The move is not
+     * checked for legality.
+     *
+     * @param move           the move to make
+     * @param promotionPiece the piece a pawn reaching the last rank becomes, or
+     *                       null for a queen
+     * @return the record needed to take the move back with
+     * {@link #unmakeMove(UndoRecord)}
+     * @throws IllegalArgumentException if there is no piece on the start square
+     */
+    public UndoRecord makeMove(ChessMove move, ChessPiece promotionPiece) {
+        ChessPosition start = move.start();
+        ChessPosition end = move.end();
+        ChessPiece piece = chessPieceMap.getPiece(start);
+        if (piece == null) {
+            throw new IllegalArgumentException("No piece to move at " + start.toChessNotation());
+        }
+
+        PieceType type = piece.getPieceType();
+        ChessPiece capturedPiece = chessPieceMap.getPiece(end);
+        ChessPosition capturedPosition = end;
+        if (type == PieceType.PAWN && capturedPiece == null && start.col() != end.col()) {
+            capturedPosition = ChessPosition.of(end.col(), start.row());
+            capturedPiece = chessPieceMap.getPiece(capturedPosition);
+        }
+
+        ChessPiece castlingRook = null;
+        boolean isCastling = type == PieceType.KING && Math.abs(end.col() - start.col()) == 2;
+        if (isCastling) {
+            castlingRook = chessPieceMap.getPiece(ChessPosition.of(end.col() > start.col() ? 7 : 0, start.row()));
+        }
+
+        UndoRecord undo = new UndoRecord(move, piece, capturedPiece, capturedPosition, castlingRook,
+                getCastlingRights(), enPassantTargetSquare, halfmoveClock, fullmoveNumber, getLastMove());
+
+        if (capturedPiece != null) {
+            chessPieceMap.removePiece(capturedPosition);
+        }
+        ChessPiece placedPiece = piece;
+        if (type == PieceType.PAWN && (end.row() == 0 || end.row() == 7)) {
+            placedPiece = promotionPiece != null ? promotionPiece : Queen.of(piece.getColor());
+        }
+        chessPieceMap.removePiece(start);
+        chessPieceMap.setPiece(end, placedPiece);
+
+        if (castlingRook != null) {
+            boolean isKingside = end.col() > start.col();
+            chessPieceMap.removePiece(ChessPosition.of(isKingside ? 7 : 0, start.row()));
+            chessPieceMap.setPiece(ChessPosition.of(isKingside ? 5 : 3, start.row()), castlingRook);
+        }
+
+        if (type == PieceType.KING) {
+            if (piece.getColor().isWhite()) {
+                whiteCanCastleKingside = false;
+                whiteCanCastleQueenside = false;
+            } else {
+                blackCanCastleKingside = false;
+                blackCanCastleQueenside = false;
+            }
+        }
+        revokeCastlingRightsAt(start);
+        revokeCastlingRightsAt(end);
+
+        if (type == PieceType.PAWN && Math.abs(end.row() - start.row()) == 2) {
+            enPassantTargetSquare = ChessPosition.of(start.col(), (start.row() + end.row()) / 2);
+        } else {
+            enPassantTargetSquare = null;
+        }
+
+        if (type == PieceType.PAWN || capturedPiece != null) {
+            halfmoveClock = 0;
+        } else {
+            halfmoveClock++;
+        }
+        if (piece.getColor().isBlack()) {
+            fullmoveNumber++;
+        }
+        restoreLastMove(move);
+        currentPlayerColor = piece.getColor().getOpponent();
+        return undo;
+    }
+
+    /**
+     * Takes back a move made with {@link #makeMove(ChessMove, ChessPiece)},
+     * restoring the pieces, the side to move, castling
+     * rights, the en passant target square, the move counters and the last
+     * move exactly as they were. Moves must be taken back in reverse order.
+     *
+     * @param undo the record returned when the move was made
+     */
+    public void unmakeMove(UndoRecord undo) {
+        ChessPosition start = undo.move().start();
+        ChessPosition end = undo.move().end();
+
+        if (undo.castlingRook() != null) {
+            boolean isKingside = end.col() > start.col();
+            chessPieceMap.removePiece(ChessPosition.of(isKingside ? 5 : 3, start.row()));
+            chessPieceMap.setPiece(ChessPosition.of(isKingside ? 7 : 0, start.row()), undo.castlingRook());
+        }
+
+        chessPieceMap.removePiece(end);
+        chessPieceMap.setPiece(start, undo.movedPiece());
+        if (undo.capturedPiece() != null) {
+            chessPieceMap.setPiece(undo.capturedPosition(), undo.capturedPiece());
+        }
+
+        setCastlingRights(undo.castlingRights());
+        enPassantTargetSquare = undo.enPassantTargetSquare();
+        halfmoveClock = undo.halfmoveClock();
+        fullmoveNumber = undo.fullmoveNumber();
+        restoreLastMove(undo.lastMove());
+        currentPlayerColor = undo.movedPiece().getColor();
+    }
+
     /**
-     * Generates a hash code for the board state based on its FEN
-     * representation.
+     * Clears the castling right tied to a rook's home square once a piece
+     * leaves it or is captured on it.
      *
-     * @return the hash code of the board's FEN string
+     * @param position the square a piece moved from or to
+     */
+    private void revokeCastlingRightsAt(ChessPosition position) {
+        if (position.col() != 0 && position.col() != 7) {
+            return;
+        }
+        boolean isKingside = position.col() == 7;
+        if (position.row() == 0) {
+            if (isKingside) {
+                whiteCanCastleKingside = false;
+            } else {
+                whiteCanCastleQueenside = false;
+            }
+        } else if (position.row() == 7) {
+            if (isKingside) {
+                blackCanCastleKingside = false;
+            } else {
+                blackCanCastleQueenside = false;
+            }
+        }
+    }
+
+    /**
+     * Returns the castling rights as a bit mask: 1 white kingside, 2 white
+     * queenside, 4 black kingside, 8 black queenside.
+     *
+     * @return the castling rights mask
+     */
+    public int getCastlingRights() {
+        return (whiteCanCastleKingside ? 1 : 0) | (whiteCanCastleQueenside ? 2 : 0) | (blackCanCastleKingside ? 4 : 0) | (blackCanCastleQueenside ? 8 : 0);
+    }
+
+    private void setCastlingRights(int castlingRights) {
+        whiteCanCastleKingside = (castlingRights & 1) != 0;
+        whiteCanCastleQueenside = (castlingRights & 2) != 0;
+        blackCanCastleKingside = (castlingRights & 4) != 0;
+        blackCanCastleQueenside = (castlingRights & 8) != 0;
+    }
+
+    /**
+     * Returns the position as a full six-field FEN.
+     * <p>
+     * The FEN is built on first request and kept until the position changes,
+     * so asking again for the same position returns the same string. Changes
+     * are detected from the modification counters of the piece map and the
+     * remaining state, which covers pieces moved through the piece map
+     * directly as well as moves made here. When pieces have moved, only the
+     * ranks whose counter changed are encoded again; the others are reused.
+     *
+     * @return the FEN of the position
+     * @see FenCodec#encode(BoardState)
+     */
+    public synchronized String getFEN() {
+        int pieceVersion = chessPieceMap.getVersion();
+        long state = packFenState();
+        if (fen != null && fenPieceVersion == pieceVersion && fenState == state) {
+            return fen;
+        }
+        StringBuilder out = new StringBuilder(90);
+        for (int row = 7; row >= 0; row--) {
+            int rankVersion = chessPieceMap.getRankVersion(row);
+            if (fenRanks[row] == null || fenRankVersions[row] != rankVersion) {
+                fenRanks[row] = FenCodec.encodeRank(chessPieceMap, row);
+                fenRankVersions[row] = rankVersion;
+            }
+            out.append(fenRanks[row]);
+            if (row > 0) {
+                out.append('/');
+            }
+        }
+        try {
+            FenCodec.encodeFields(this, out);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        out.append(' ').append(halfmoveClock).append(' ').append(fullmoveNumber);
+        fen = out.toString();
+        fenPieceVersion = pieceVersion;
+        fenState = state;
+        return fen;
+    }
+
+    /**
+     * Packs everything but the pieces that appears in the FEN into one value.
+     */
+    private long packFenState() {
+        int enPassant = enPassantTargetSquare != null ? enPassantTargetSquare.index() : 64;
+        return (long) fullmoveNumber << 32
+                | (long) (halfmoveClock & 0xffff) << 12
+                | enPassant << 5
+                | getCastlingRights() << 1
+                | (currentPlayerColor.isWhite() ? 0 : 1);
+    }
+
+    /**
+     * Returns the Zobrist key of the position: the piece placement key kept
+     * by the piece map, combined with the keys of the castling rights, the en
+     * passant target file and the side to move. Two board states that would
+     * count as the same position for repetition have the same key.
+     *
+     * @return the 64-bit position key
+     */
+    public long getZobristKey() {
+        long key = chessPieceMap.getZobristKey() ^ Zobrist.castlingKey(getCastlingRights());
+        if (enPassantTargetSquare != null) {
+            key ^= Zobrist.enPassantKey(enPassantTargetSquare.col());
+        }
+        if (currentPlayerColor.isBlack()) {
+            key ^= Zobrist.blackToMoveKey();
+        }
+        return key;
+    }
+
+    /**
+     * Generates a hash code for the board state from its Zobrist key.
+     *
+     * @return the hash code of the position key
      */
     @Override
     public int hashCode() {
-        return ChessNotationUtils.getFenFourParts(this).hashCode();
+        return Long.hashCode(getZobristKey());
     }
 
     /**
-     * Compares this board state with another object for equality based on their
-     * FEN representations.
+     * Compares this board state with another object for equality based on
+     * their Zobrist keys.
      *
      * @param obj the object to compare with
-     * @return true if the FEN representations are equal, false otherwise
+     * @return true if both positions have the same key, false otherwise
      */
     @Override
     public boolean equals(Object obj) {
@@ -260,13 +668,13 @@ public final class BoardState {
             return false;
         }
         BoardState other = (BoardState) obj;
-        return Objects.equals(ChessNotationUtils.getFenFourParts(this), ChessNotationUtils.getFenFourParts(other));
+        return getZobristKey() == other.getZobristKey();
     }
 
     public BoardState deepCopy() {
         ChessPieceMap chessPieceMapCopy = this.chessPieceMap.deepCopy();
         BoardState copy = new BoardState(chessPieceMapCopy);
-        copy.lastMove = this.lastMove != null ? this.lastMove.deepCopy() : null;
+        copy.lastMoveSquares = this.lastMoveSquares;
         copy.currentPlayerColor = this.currentPlayerColor;
         copy.halfmoveClock = this.halfmoveClock;
         copy.fullmoveNumber = this.fullmoveNumber;
@@ -279,7 +687,7 @@ public final class BoardState {
     }
 
     public void updateFrom(BoardState other) {
-        this.lastMove = other.lastMove != null ? other.lastMove.deepCopy() : null;
+        restoreLastMoveSquares(other.lastMoveSquares);
         this.currentPlayerColor = other.currentPlayerColor;
         this.halfmoveClock = other.halfmoveClock;
         this.fullmoveNumber = other.fullmoveNumber;
@@ -291,18 +699,4 @@ public final class BoardState {
     }
 
 
-    public ChessPiece createPieceFromFENChar(char c) {
-        PieceColor color = Character.isUpperCase(c) ? PieceColor.WHITE : PieceColor.BLACK;
-        char piece = Character.toLowerCase(c);
-        
-        return switch (piece) {
-            case 'p' -> new Pawn(color, this);
-            case 'n' -> new Knight(color);
-            case 'b' -> new Bishop(color);
-            case 'r' -> new Rook(color);
-            case 'q' -> new Queen(color);
-            case 'k' -> new King(color);
-            default -> null;
-        };
-    }
 }
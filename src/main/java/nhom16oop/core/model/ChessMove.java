@@ -8,7 +8,7 @@ public record ChessMove(ChessPosition start, ChessPosition end) {
     }
 
     public ChessMove(int startX, int startY, int endX, int endY) {
-        this(new ChessPosition(startX, startY), new ChessPosition(endX, endY));
+        this(ChessPosition.of(startX, startY), ChessPosition.of(endX, endY));
     }
 
     public ChessMove deepCopy() {
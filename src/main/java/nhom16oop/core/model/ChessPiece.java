@@ -1,60 +1,65 @@
 package nhom16oop.core.model;
 
 import nhom16oop.constants.PieceColor;
+import nhom16oop.constants.PieceType;
+import nhom16oop.core.pieces.Bishop;
 import nhom16oop.core.pieces.ChessPieceMap;
+import nhom16oop.core.pieces.King;
+import nhom16oop.core.pieces.Knight;
+import nhom16oop.core.pieces.Pawn;
+import nhom16oop.core.pieces.Queen;
+import nhom16oop.core.pieces.Rook;
 import nhom16oop.utils.BoardUtils;
-import nhom16oop.utils.ImageLoader;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.awt.*;
+import java.util.ArrayList;
 import java.util.List;
 
 /**
  * Abstract base class for chess pieces, defining common properties and behaviors.
- * Provides methods for move validation, image handling, and piece comparison.
+ * Provides methods for move validation and piece comparison. Pieces are
+ * immutable: there is one shared instance per color and type (see
+ * {@link #of(PieceColor, PieceType)}), and everything that changes during a
+ * game, such as castling rights and the en passant square, lives in
+ * {@link BoardState}. Pieces hold no rendering state; the UI looks their
+ * images up in {@code PieceSkin}.
  */
 public abstract class ChessPiece implements Comparable<ChessPiece> {
 
     protected static final Logger logger = LoggerFactory.getLogger(ChessPiece.class);
     private final PieceColor color;
-    private Image image;
-    protected int pieceValue = 0;
-    private boolean hasMoved = false;
+    private final int pieceValue;
 
     /**
-     * Constructs a ChessPiece with the specified color and image file.
-     * Uses default image size of 95 pixels.
+     * Constructs a ChessPiece with the specified color and value. Only the
+     * shared instances of each subclass are ever constructed.
      *
-     * @param color         the color of the piece (white or black)
-     * @param imageFileName the file name of the piece's image
+     * @param color      the color of the piece (white or black)
+     * @param pieceValue the material value of the piece
      */
-    public ChessPiece(PieceColor color, String imageFileName) {
-        this(color, imageFileName, 95);
-    }
-
-    /**
-     * Constructs a ChessPiece with the specified color, image file, and image size.
-     *
-     * @param color         the color of the piece (white or black)
-     * @param imageFileName the file name of the piece's image
-     * @param size          the size of the image in pixels
-     */
-    public ChessPiece(PieceColor color, String imageFileName, int size) {
+    protected ChessPiece(PieceColor color, int pieceValue) {
         this.color = color;
-        String imagePath = "images/pieces/" + imageFileName;
-        this.image = loadImage(imagePath, size);
+        this.pieceValue = pieceValue;
     }
 
     /**
-     * Loads an image for the piece from the specified path with the given size.
+     * Returns the shared piece of the given color and type. Pieces are
+     * immutable, so one instance per color and type serves every board.
      *
-     * @param path the file path of the image
-     * @param size the size of the image in pixels
-     * @return the loaded image
+     * @param color the color of the piece
+     * @param type  the type of the piece
+     * @return the shared piece
      */
-    private Image loadImage(String path, int size) {
-        return ImageLoader.getImage(path, size, size);
+    public static ChessPiece of(PieceColor color, PieceType type) {
+        return switch (type) {
+            case PAWN -> Pawn.of(color);
+            case KNIGHT -> Knight.of(color);
+            case BISHOP -> Bishop.of(color);
+            case ROOK -> Rook.of(color);
+            case QUEEN -> Queen.of(color);
+            case KING -> King.of(color);
+        };
     }
 
     // --- Getters and Setters ---
@@ -63,42 +68,25 @@ public abstract class ChessPiece implements Comparable<ChessPiece> {
         return color;
     }
 
-    public Image getImage() {
-        return image;
-    }
-
     public int getPieceValue() {
         return pieceValue;
     }
 
-    public boolean hasMoved() {
-        return hasMoved;
-    }
-
-    public void setImage(Image image) {
-        this.image = image;
-    }
-
-    public void setHasMoved(boolean hasMoved) {
-        this.hasMoved = hasMoved;
-    }
-
     // --- Move Validation ---
 
     /**
      * Checks if a move is valid for this piece, ensuring it does not put the player's king in check.
      *
-     * @param move     the move to validate
-     * @param pieceMap the current state of the chess board
+     * @param move       the move to validate
+     * @param boardState the current position
      * @return true if the move is valid and legal, false otherwise
      */
-    public boolean isValidMove(ChessMove move, ChessPieceMap pieceMap) {
-        final List<ChessMove> moves = generateValidMoves(move.start(), pieceMap);
+    public boolean isValidMove(ChessMove move, BoardState boardState) {
+        final List<ChessMove> moves = generateValidMoves(move.start(), boardState);
 
         for (ChessMove chessMove : moves) {
-            ChessPieceMap tempMap = BoardUtils.simulateMove(chessMove, pieceMap);
-            if (!BoardUtils.isKingInCheck(this.color, tempMap) && chessMove.equals(move)) {
-                return true;
+            if (chessMove.equals(move)) {
+                return !BoardUtils.leavesKingInCheck(chessMove, boardState.getChessPieceMap());
             }
         }
 
@@ -106,7 +94,9 @@ public abstract class ChessPiece implements Comparable<ChessPiece> {
     }
 
     /**
-     * Generates a list of valid moves for this piece from the starting position.
+     * Generates a list of valid moves for this piece from the starting position,
+     * using only the piece placement. Castling and en passant depend on the
+     * rest of the position and are left out.
      *
      * @param start    the starting position of the piece
      * @param pieceMap the current state of the chess board
@@ -114,8 +104,43 @@ public abstract class ChessPiece implements Comparable<ChessPiece> {
      */
     public abstract List<ChessMove> generateValidMoves(ChessPosition start, ChessPieceMap pieceMap);
 
+    /**
+     * Generates a list of valid moves for this piece from the starting position,
+     * including moves that depend on the board state such as castling and en
+     * passant.
+     *
+     * @param start      the starting position of the piece
+     * @param boardState the current position
+     * @return a list of valid moves
+     */
+    public List<ChessMove> generateValidMoves(ChessPosition start, BoardState boardState) {
+        return generateValidMoves(start, boardState.getChessPieceMap());
+    }
+
+    /**
+     * Builds the moves from a starting position to each square of a bitboard.
+     *
+     * @param start   the starting position of the piece
+     * @param targets the bitboard of destination squares
+     * @return a list with one move per destination
+     */
+    protected List<ChessMove> movesTo(ChessPosition start, long targets) {
+        List<ChessMove> moves = new ArrayList<>(Long.bitCount(targets));
+        for (; targets != 0; targets &= targets - 1) {
+            moves.add(new ChessMove(start, ChessPosition.of(Long.numberOfTrailingZeros(targets))));
+        }
+        return moves;
+    }
+
     // --- Piece Identification ---
 
+    /**
+     * Returns the type of this piece, independent of its color.
+     *
+     * @return the piece type
+     */
+    public abstract PieceType getPieceType();
+
     /**
      * Returns the standard algebraic notation for this piece (e.g., "K" for King).
      *
@@ -137,9 +162,12 @@ public abstract class ChessPiece implements Comparable<ChessPiece> {
     }
 
     /**
-     * Creates a deep copy of this piece.
+     * Returns this piece. Pieces are immutable and shared, so copying a board
+     * only copies references to them.
      *
-     * @return a new instance of the piece with the same properties
+     * @return this piece
      */
-    public abstract ChessPiece deepCopy();
+    public final ChessPiece deepCopy() {
+        return this;
+    }
 }
@@ -1,8 +1,5 @@
 package nhom16oop.core.model;
 
-import java.util.HashMap;
-import java.util.Map;
-
 import nhom16oop.constants.GameConstants;
 import nhom16oop.exception.InvalidPositionException;
 
@@ -11,20 +8,22 @@ import nhom16oop.exception.InvalidPositionException;
  * The column (col) corresponds to the file (a-h), and the row corresponds to the rank (1-8).
  * The coordinates are validated to ensure they fall within the chessboard boundaries (0 to 7).
  * If a position is outside the board, an {@link InvalidPositionException} is thrown.
+ * <p>
+ * The 64 positions are created once; use {@link #of(int, int)} or
+ * {@link #of(int)} to get the shared instance instead of allocating a new one.
  *
  * @param col the column index (0 to 7, corresponding to files a to h)
  * @param row the row index (0 to 7, corresponding to ranks 1 to 8)
  */
 public record ChessPosition(int col, int row) {
 
-    private static final Map<String, ChessPosition> POSITIONS = new HashMap<>();
+    private static final ChessPosition[] SQUARES = new ChessPosition[64];
+    private static final String[] NOTATIONS = new String[64];
 
     static {
-        for (char file = 'a'; file <= 'h'; file++) {
-            for (int rank = 1; rank <= 8; rank++) {
-                String notation = "" + file + rank;
-                POSITIONS.put(notation.toUpperCase(), new ChessPosition(file - 'a', rank - 1));
-            }
+        for (int square = 0; square < 64; square++) {
+            SQUARES[square] = new ChessPosition(square & 7, square >>> 3);
+            NOTATIONS[square] = "" + (char) ('a' + (square & 7)) + ((square >>> 3) + 1);
         }
     }
 
@@ -40,15 +39,62 @@ public record ChessPosition(int col, int row) {
         }
     }
 
+    /**
+     * Returns the shared position for the given coordinates.
+     *
+     * @param col the column index (0 to 7)
+     * @param row the row index (0 to 7)
+     * @return the canonical {@link ChessPosition}
+     * @throws InvalidPositionException if the col or row is outside the board
+     */
+    public static ChessPosition of(int col, int row) {
+        if (col < 0 || col >= GameConstants.Board.BOARD_SIZE || row < 0 || row >= GameConstants.Board.BOARD_SIZE) {
+            throw new InvalidPositionException("Invalid position: (" + col + ", " + row + ")");
+        }
+        return SQUARES[row * 8 + col];
+    }
+
+    /**
+     * Returns the shared position for a square index.
+     *
+     * @param index the square index, row * 8 + col (0 for a1 up to 63 for h8)
+     * @return the canonical {@link ChessPosition}
+     * @throws InvalidPositionException if the index is outside 0 to 63
+     */
+    public static ChessPosition of(int index) {
+        if (index < 0 || index >= SQUARES.length) {
+            throw new InvalidPositionException("Invalid square index: " + index);
+        }
+        return SQUARES[index];
+    }
+
+    /**
+     * Returns the square index of the position, row * 8 + col.
+     *
+     * @return the square index (0 for a1 up to 63 for h8)
+     */
+    public int index() {
+        return row * 8 + col;
+    }
+
     /**
      * Retrieves a chess position from standard algebraic notation (e.g., "a1").
+     * The file letter may be upper or lower case.
      *
      * @param notation the algebraic notation of the position (e.g., "a1", "h8")
-     * @return the corresponding {@link ChessPosition}
-     * @throws IllegalArgumentException if the notation is invalid
+     * @return the corresponding {@link ChessPosition}, or null if the notation
+     * does not name a square
      */
     public static ChessPosition get(String notation) {
-        return POSITIONS.get(notation.toUpperCase());
+        if (notation == null || notation.length() != 2) {
+            return null;
+        }
+        int col = Character.toLowerCase(notation.charAt(0)) - 'a';
+        int row = notation.charAt(1) - '1';
+        if (col < 0 || col > 7 || row < 0 || row > 7) {
+            return null;
+        }
+        return SQUARES[row * 8 + col];
     }
 
     /**
@@ -57,7 +103,7 @@ public record ChessPosition(int col, int row) {
      * @return the algebraic notation of the position
      */
     public String toChessNotation() {
-        return "" + (char) ('a' + col) + (row + 1);
+        return NOTATIONS[index()];
     }
 
     /**
@@ -71,7 +117,7 @@ public record ChessPosition(int col, int row) {
         if (notation == null || notation.length() != 2 || !Character.isLetter(notation.charAt(0)) || !Character.isDigit(notation.charAt(1)) || notation.charAt(0) < 'a' || notation.charAt(0) > 'h' || notation.charAt(1) < '1' || notation.charAt(1) > '8') {
             throw new IllegalArgumentException("Invalid chess notation: " + notation);
         }
-        return new ChessPosition(notation.charAt(0) - 'a', notation.charAt(1) - '1');
+        return SQUARES[(notation.charAt(1) - '1') * 8 + (notation.charAt(0) - 'a')];
     }
 
     /**
@@ -93,7 +139,13 @@ public record ChessPosition(int col, int row) {
         return GameConstants.Board.BOARD_SIZE - row - 1;
     }
 
+    /**
+     * Returns this position. Positions are immutable, so a copy would be
+     * indistinguishable from the shared instance.
+     *
+     * @return this position
+     */
     public ChessPosition deepCopy() {
-        return new ChessPosition(col, row);
+        return this;
     }
 }
@@ -0,0 +1,405 @@
+package nhom16oop.core.model;
+
+import nhom16oop.constants.PieceColor;
+import nhom16oop.constants.PieceType;
+import nhom16oop.core.pieces.BitboardPieceMap;
+import nhom16oop.core.pieces.ChessPieceMap;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.util.function.Consumer;
+
+/**
+ * Reads and writes positions in Forsyth-Edwards Notation (FEN).
+ * <p>
+ * Decoding walks the text once, character by character, placing pieces and
+ * setting the side to move, castling rights, en passant square and move
+ * counters as it goes; it never splits the text or copies it into arrays. The
+ * halfmove clock and fullmove number may be left out, as in EPD, where
+ * anything after the fourth field is ignored. Encoding appends to a caller
+ * supplied {@link Appendable}; {@link BoardState#getFEN()} keeps the result
+ * and re-encodes only the ranks that changed.
+ * <p>
+ * {@link #decodeAll(Reader, BoardState, Consumer)} decodes a whole FEN or EPD
+ * file into one reused board state, one line at a time.
+ */
+public final class FenCodec {
+
+    public static final String START_FEN = "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1";
+
+    private static final String WHITE_PIECES = "PNBRQK";
+    private static final String BLACK_PIECES = "pnbrqk";
+    private static final PieceType[] PIECE_TYPES = PieceType.values();
+    private static final int READ_BUFFER_SIZE = 8192;
+
+    private FenCodec() {
+        throw new AssertionError("Cannot instantiate FenCodec class");
+    }
+
+    // --- Decoding ---
+
+    /**
+     * Decodes a FEN into a new board state.
+     *
+     * @param fen the position in FEN
+     * @return the decoded position
+     * @throws IllegalArgumentException if the text is not a valid FEN
+     */
+    public static BoardState decode(CharSequence fen) {
+        BoardState boardState = new BoardState(new BitboardPieceMap());
+        decode(fen, boardState);
+        return boardState;
+    }
+
+    /**
+     * Decodes a FEN into an existing board state, replacing its pieces and
+     * state. The last move is cleared. If the text is not valid the board
+     * state is left partly overwritten.
+     *
+     * @param fen    the position in FEN or EPD
+     * @param target the board state to overwrite
+     * @throws IllegalArgumentException if the text is not a valid FEN
+     */
+    public static void decode(CharSequence fen, BoardState target) {
+        int length = fen.length();
+        int i = skipSpaces(fen, 0);
+
+        target.getChessPieceMap().clear();
+        int row = 7;
+        int col = 0;
+        for (; i < length && fen.charAt(i) != ' '; i++) {
+            char c = fen.charAt(i);
+            if (c == '/') {
+                if (col != 8 || row == 0) {
+                    throw invalid(fen, "rank " + (row + 1) + " does not have 8 squares");
+                }
+                row--;
+                col = 0;
+            } else if (c >= '1' && c <= '8') {
+                col += c - '0';
+                if (col > 8) {
+                    throw invalid(fen, "rank " + (row + 1) + " has more than 8 squares");
+                }
+            } else {
+                ChessPiece piece = pieceOf(c);
+                if (piece == null) {
+                    throw invalid(fen, "unknown piece '" + c + "'");
+                }
+                if (col > 7) {
+                    throw invalid(fen, "rank " + (row + 1) + " has more than 8 squares");
+                }
+                target.getChessPieceMap().setPiece(ChessPosition.of(col++, row), piece);
+            }
+        }
+        if (row != 0 || col != 8) {
+            throw invalid(fen, "piece placement does not cover 8 ranks of 8 squares");
+        }
+
+        i = skipSpaces(fen, i);
+        if (i >= length) {
+            throw invalid(fen, "missing side to move");
+        }
+        PieceColor sideToMove = switch (fen.charAt(i++)) {
+            case 'w' -> PieceColor.WHITE;
+            case 'b' -> PieceColor.BLACK;
+            default -> throw invalid(fen, "side to move must be 'w' or 'b'");
+        };
+
+        i = skipSpaces(fen, i);
+        if (i >= length) {
+            throw invalid(fen, "missing castling rights");
+        }
+        int castlingRights = 0;
+        if (fen.charAt(i) == '-') {
+            i++;
+        } else {
+            for (; i < length && fen.charAt(i) != ' '; i++) {
+                castlingRights |= switch (fen.charAt(i)) {
+                    case 'K' -> 1;
+                    case 'Q' -> 2;
+                    case 'k' -> 4;
+                    case 'q' -> 8;
+                    default -> throw invalid(fen, "unknown castling right '" + fen.charAt(i) + "'");
+                };
+            }
+        }
+
+        i = skipSpaces(fen, i);
+        if (i >= length) {
+            throw invalid(fen, "missing en passant square");
+        }
+        ChessPosition enPassantTargetSquare = null;
+        if (fen.charAt(i) == '-') {
+            i++;
+        } else {
+            int file = i + 1 < length ? fen.charAt(i) - 'a' : -1;
+            int rank = i + 1 < length ? fen.charAt(i + 1) - '1' : -1;
+            if (file < 0 || file > 7 || (rank != 2 && rank != 5)) {
+                throw invalid(fen, "invalid en passant square");
+            }
+            enPassantTargetSquare = ChessPosition.of(file, rank);
+            i += 2;
+        }
+
+        // The counters are optional; EPD operations may follow instead
+        int halfmoveClock = 0;
+        int fullmoveNumber = 1;
+        i = skipSpaces(fen, i);
+        if (i < length && isDigit(fen.charAt(i))) {
+            int end = skipDigits(fen, i);
+            halfmoveClock = parseInt(fen, i, end);
+            i = skipSpaces(fen, end);
+            if (i < length && isDigit(fen.charAt(i))) {
+                fullmoveNumber = Math.max(1, parseInt(fen, i, skipDigits(fen, i)));
+            }
+        }
+
+        target.setPositionState(sideToMove, castlingRights, enPassantTargetSquare, halfmoveClock, fullmoveNumber);
+    }
+
+    /**
+     * Decodes every position of a FEN or EPD file, one per line, into the
+     * same board state and passes it to an action before the next line is
+     * read. Blank lines and lines starting with {@code #} are skipped. Lines
+     * are read into a reused buffer, so no string is created per line.
+     *
+     * @param reader the file contents
+     * @param target the board state every position is decoded into
+     * @param action called with {@code target} after each position is decoded
+     * @return the number of positions decoded
+     * @throws IOException              if reading fails
+     * @throws IllegalArgumentException if a line is not a valid FEN; the
+     *                                  message gives the line number
+     */
+    public static long decodeAll(Reader reader, BoardState target, Consumer<? super BoardState> action) throws IOException {
+        char[] buffer = new char[READ_BUFFER_SIZE];
+        StringBuilder line = new StringBuilder(128);
+        long lineNumber = 0;
+        long positions = 0;
+        int read;
+        while ((read = reader.read(buffer)) != -1) {
+            for (int j = 0; j < read; j++) {
+                char c = buffer[j];
+                if (c == '\n') {
+                    positions += decodeLine(line, ++lineNumber, target, action);
+                    line.setLength(0);
+                } else if (c != '\r') {
+                    line.append(c);
+                }
+            }
+        }
+        positions += decodeLine(line, ++lineNumber, target, action);
+        return positions;
+    }
+
+    private static int decodeLine(StringBuilder line, long lineNumber, BoardState target, Consumer<? super BoardState> action) {
+        int start = skipSpaces(line, 0);
+        if (start == line.length() || line.charAt(start) == '#') {
+            return 0;
+        }
+        try {
+            decode(line, target);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Line " + lineNumber + ": " + e.getMessage(), e);
+        }
+        action.accept(target);
+        return 1;
+    }
+
+    /**
+     * Returns the piece a FEN letter stands for.
+     *
+     * @param c the letter, upper case for white
+     * @return the piece, or null if the letter names no piece
+     */
+    public static ChessPiece pieceOf(char c) {
+        int type = WHITE_PIECES.indexOf(c);
+        if (type >= 0) {
+            return ChessPiece.of(PieceColor.WHITE, PIECE_TYPES[type]);
+        }
+        type = BLACK_PIECES.indexOf(c);
+        return type >= 0 ? ChessPiece.of(PieceColor.BLACK, PIECE_TYPES[type]) : null;
+    }
+
+    // --- Encoding ---
+
+    /**
+     * Encodes a position as a full six-field FEN.
+     *
+     * @param boardState the position
+     * @return the FEN
+     */
+    public static String encode(BoardState boardState) {
+        StringBuilder fen = new StringBuilder(90);
+        encode(boardState, fen);
+        return fen.toString();
+    }
+
+    /**
+     * Appends a position as a full six-field FEN.
+     *
+     * @param boardState the position
+     * @param out        where to append the FEN
+     */
+    public static void encode(BoardState boardState, StringBuilder out) {
+        try {
+            encode(boardState, (Appendable) out);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Appends a position as a full six-field FEN.
+     *
+     * @param boardState the position
+     * @param out        where to append the FEN
+     * @throws IOException if appending fails
+     */
+    public static void encode(BoardState boardState, Appendable out) throws IOException {
+        encodePosition(boardState, out);
+        out.append(' ').append(Integer.toString(boardState.getHalfmoveClock()));
+        out.append(' ').append(Integer.toString(boardState.getFullmoveNumber()));
+    }
+
+    /**
+     * Encodes the first four FEN fields, the ones that identify a position
+     * for repetition: piece placement, side to move, castling rights and en
+     * passant square.
+     *
+     * @param boardState the position
+     * @return the four-field FEN
+     */
+    public static String encodePosition(BoardState boardState) {
+        StringBuilder fen = new StringBuilder(80);
+        try {
+            encodePosition(boardState, fen);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return fen.toString();
+    }
+
+    private static void encodePosition(BoardState boardState, Appendable out) throws IOException {
+        for (int row = 7; row >= 0; row--) {
+            encodeRank(boardState.getChessPieceMap(), row, out);
+            if (row > 0) {
+                out.append('/');
+            }
+        }
+        encodeFields(boardState, out);
+    }
+
+    /**
+     * Encodes the pieces of one rank, the part of the piece placement field
+     * between two slashes.
+     *
+     * @param chessPieceMap the pieces
+     * @param row           the rank index (0 to 7)
+     * @return the rank in FEN
+     */
+    static String encodeRank(ChessPieceMap chessPieceMap, int row) {
+        StringBuilder rank = new StringBuilder(8);
+        try {
+            encodeRank(chessPieceMap, row, rank);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return rank.toString();
+    }
+
+    private static void encodeRank(ChessPieceMap chessPieceMap, int row, Appendable out) throws IOException {
+        int empty = 0;
+        for (int col = 0; col < 8; col++) {
+            ChessPiece piece = chessPieceMap.getPiece(ChessPosition.of(col, row));
+            if (piece == null) {
+                empty++;
+                continue;
+            }
+            if (empty > 0) {
+                out.append((char) ('0' + empty));
+                empty = 0;
+            }
+            out.append(letterOf(piece));
+        }
+        if (empty > 0) {
+            out.append((char) ('0' + empty));
+        }
+    }
+
+    /**
+     * Appends the side to move, castling rights and en passant square, each
+     * preceded by a space: the fields that follow the piece placement.
+     *
+     * @param boardState the position
+     * @param out        where to append the fields
+     * @throws IOException if appending fails
+     */
+    static void encodeFields(BoardState boardState, Appendable out) throws IOException {
+        out.append(' ').append(boardState.getCurrentPlayerColor().isWhite() ? 'w' : 'b');
+
+        out.append(' ');
+        int castlingRights = boardState.getCastlingRights();
+        if (castlingRights == 0) {
+            out.append('-');
+        } else {
+            if ((castlingRights & 1) != 0) {
+                out.append('K');
+            }
+            if ((castlingRights & 2) != 0) {
+                out.append('Q');
+            }
+            if ((castlingRights & 4) != 0) {
+                out.append('k');
+            }
+            if ((castlingRights & 8) != 0) {
+                out.append('q');
+            }
+        }
+
+        out.append(' ');
+        ChessPosition enPassantTargetSquare = boardState.getEnPassantTargetSquare();
+        out.append(enPassantTargetSquare != null ? enPassantTargetSquare.toChessNotation() : "-");
+    }
+
+    private static char letterOf(ChessPiece piece) {
+        String letters = piece.getColor().isWhite() ? WHITE_PIECES : BLACK_PIECES;
+        return letters.charAt(piece.getPieceType().ordinal());
+    }
+
+    // --- Scanning ---
+
+    private static int skipSpaces(CharSequence text, int i) {
+        while (i < text.length() && Character.isWhitespace(text.charAt(i))) {
+            i++;
+        }
+        return i;
+    }
+
+    private static int skipDigits(CharSequence text, int i) {
+        while (i < text.length() && isDigit(text.charAt(i))) {
+            i++;
+        }
+        return i;
+    }
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+
+    private static int parseInt(CharSequence text, int start, int end) {
+        if (end - start > 9) {
+            throw invalid(text, "move counter out of range");
+        }
+        int value = 0;
+        for (int i = start; i < end; i++) {
+            value = value * 10 + (text.charAt(i) - '0');
+        }
+        return value;
+    }
+
+    private static IllegalArgumentException invalid(CharSequence fen, String reason) {
+        return new IllegalArgumentException("Invalid FEN string (" + reason + "): " + fen);
+    }
+}
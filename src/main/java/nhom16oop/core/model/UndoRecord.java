@@ -0,0 +1,25 @@
+package nhom16oop.core.model;
+
+/**
+ * Everything {@link BoardState#unmakeMove(UndoRecord)} needs to take back a
+ * move made with {@link BoardState#makeMove(ChessMove)}: the pieces that were
+ * moved or captured and the board state fields the move overwrote.
+ *
+ * @param move                  the move that was made
+ * @param movedPiece            the piece that stood on the start square
+ * @param capturedPiece         the captured piece, or null if nothing was captured
+ * @param capturedPosition      the square the captured piece stood on (differs from
+ *                              the move's end square for en passant)
+ * @param castlingRook          the rook moved by a castling move, or null
+ * @param castlingRights        the castling rights before the move, as a bit mask
+ * @param enPassantTargetSquare the en passant target square before the move
+ * @param halfmoveClock         the halfmove clock before the move
+ * @param fullmoveNumber        the fullmove number before the move
+ * @param lastMove              the last move before the move
+ */
+public record UndoRecord(ChessMove move, ChessPiece movedPiece,
+                         ChessPiece capturedPiece, ChessPosition capturedPosition,
+                         ChessPiece castlingRook, int castlingRights,
+                         ChessPosition enPassantTargetSquare,
+                         int halfmoveClock, int fullmoveNumber, ChessMove lastMove) {
+}
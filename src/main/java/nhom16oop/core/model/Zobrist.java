@@ -0,0 +1,94 @@
+package nhom16oop.core.model;
+
+import nhom16oop.constants.PieceType;
+
+import java.util.SplittableRandom;
+
+/**
+ * Random keys for Zobrist hashing of chess positions. A position's key is the
+ * XOR of one key per piece on its square, one key for the current castling
+ * rights, one for the file of the en passant target square (if any) and one
+ * when black is to move. Because XOR is its own inverse, moving a piece only
+ * needs the keys of the squares it leaves and enters, so the key can be kept
+ * up to date as the board changes instead of being recomputed.
+ * <p>
+ * The keys come from a fixed seed, so the same position always has the same
+ * key across runs.
+ */
+public final class Zobrist {
+
+    private static final int PIECE_KINDS = 2 * PieceType.values().length;
+
+    private static final long[][] PIECE_SQUARE_KEYS = new long[PIECE_KINDS][64];
+    private static final long[] CASTLING_KEYS = new long[16];
+    private static final long[] EN_PASSANT_FILE_KEYS = new long[8];
+    private static final long BLACK_TO_MOVE_KEY;
+
+    static {
+        SplittableRandom random = new SplittableRandom(0x16C4E55L);
+        for (long[] squareKeys : PIECE_SQUARE_KEYS) {
+            for (int square = 0; square < 64; square++) {
+                squareKeys[square] = random.nextLong();
+            }
+        }
+        // Each right gets a key and combinations XOR them, so clearing one
+        // right changes the key by exactly that right's key.
+        long[] rightKeys = {random.nextLong(), random.nextLong(), random.nextLong(), random.nextLong()};
+        for (int rights = 0; rights < CASTLING_KEYS.length; rights++) {
+            for (int right = 0; right < rightKeys.length; right++) {
+                if ((rights & (1 << right)) != 0) {
+                    CASTLING_KEYS[rights] ^= rightKeys[right];
+                }
+            }
+        }
+        for (int file = 0; file < EN_PASSANT_FILE_KEYS.length; file++) {
+            EN_PASSANT_FILE_KEYS[file] = random.nextLong();
+        }
+        BLACK_TO_MOVE_KEY = random.nextLong();
+    }
+
+    private Zobrist() {
+        throw new AssertionError("Cannot instantiate Zobrist class");
+    }
+
+    /**
+     * Returns the key of a piece standing on a square.
+     *
+     * @param piece  the piece
+     * @param square the square index (row * 8 + col)
+     * @return the piece-square key
+     */
+    public static long pieceKey(ChessPiece piece, int square) {
+        return PIECE_SQUARE_KEYS[piece.getColor().ordinal() * PieceType.values().length + piece.getPieceType().ordinal()][square];
+    }
+
+    /**
+     * Returns the key of a set of castling rights.
+     *
+     * @param castlingRights the rights as a bit mask: 1 white kingside, 2 white
+     *                       queenside, 4 black kingside, 8 black queenside
+     * @return the castling key
+     */
+    public static long castlingKey(int castlingRights) {
+        return CASTLING_KEYS[castlingRights];
+    }
+
+    /**
+     * Returns the key of an en passant target square on the given file.
+     *
+     * @param file the column of the target square (0 to 7)
+     * @return the en passant key
+     */
+    public static long enPassantKey(int file) {
+        return EN_PASSANT_FILE_KEYS[file];
+    }
+
+    /**
+     * Returns the key XORed in when black is to move.
+     *
+     * @return the side-to-move key
+     */
+    public static long blackToMoveKey() {
+        return BLACK_TO_MOVE_KEY;
+    }
+}
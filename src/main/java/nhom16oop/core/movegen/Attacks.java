@@ -0,0 +1,250 @@
+package nhom16oop.core.movegen;
+
+import nhom16oop.constants.PieceColor;
+import nhom16oop.constants.PieceType;
+
+import java.util.SplittableRandom;
+
+/**
+ * Precomputed attack sets, as bitboards indexed by square (row * 8 + col).
+ * <p>
+ * Knight, king and pawn attacks do not depend on the rest of the board and are
+ * stored in one table each. Rook and bishop attacks are looked up with magic
+ * bitboards: the blockers on a square's rays are multiplied by a per-square
+ * magic number whose top bits form a perfect index into a table holding the
+ * attacks for that blocker pattern. The tables are filled when the class is
+ * loaded. Each square first tries a known good magic; only if that one
+ * collides is a new magic searched for, from a fixed seed, so loading stays
+ * fast and every run builds the same tables.
+ */
+public final class Attacks {
+
+    private static final int[][] ROOK_DIRECTIONS = {{0, 1}, {0, -1}, {1, 0}, {-1, 0}};
+    private static final int[][] BISHOP_DIRECTIONS = {{1, 1}, {1, -1}, {-1, 1}, {-1, -1}};
+    private static final int[][] KNIGHT_OFFSETS = {{1, 2}, {1, -2}, {-1, 2}, {-1, -2}, {2, 1}, {2, -1}, {-2, 1}, {-2, -1}};
+    private static final int[][] KING_OFFSETS = {{0, 1}, {0, -1}, {1, 0}, {-1, 0}, {1, 1}, {1, -1}, {-1, 1}, {-1, -1}};
+
+    private static final long[] KNIGHT_ATTACKS = new long[64];
+    private static final long[] KING_ATTACKS = new long[64];
+    private static final long[][] PAWN_ATTACKS = new long[2][64];
+
+    private static final long[] KNOWN_ROOK_MAGICS = {
+            0x0a00120021008042L, 0x4040001000402002L, 0x0100200009001040L, 0x8100060821001000L,
+            0x1480028004004800L, 0x8200010200040810L, 0x2300208100243200L, 0x8200008200204104L,
+            0x4000800080204000L, 0x008280400080200aL, 0x2084802000801000L, 0x104a002040120008L,
+            0x0208800800800400L, 0x040a000600441028L, 0x200c000221543028L, 0x1002000040a10c12L,
+            0x0000410021008000L, 0x0841010020804008L, 0x0090048020008010L, 0x0010818008015000L,
+            0x0200808004000800L, 0x0001010002040008L, 0x3400010100020004L, 0x20200a0004088849L,
+            0x0220400080008030L, 0x8010400180200280L, 0x1100468200201200L, 0x0008401200200a01L,
+            0x0410080080040080L, 0x40c2200801041040L, 0x05011a1400104108L, 0x8500240200084581L,
+            0x0852400430800080L, 0x0400802503004008L, 0x3020081000802080L, 0x00d202400a001020L,
+            0x000a810800800400L, 0x8803808400800200L, 0x0800100204000108L, 0x1a0000a042000114L,
+            0x0400400080208000L, 0x000020015000c002L, 0x00aa024084260011L, 0x4040090410010020L,
+            0x0900110008010004L, 0x8002002010040400L, 0x2000228850040001L, 0x0040084484020025L,
+            0x0804401880002080L, 0x2000806010400980L, 0x8000806005100480L, 0x0002080510018080L,
+            0x0000040008008080L, 0x1000040002008080L, 0x0004411042280400L, 0x8800208708440200L,
+            0x0002004024110882L, 0x0000210012084082L, 0x0001000820004011L, 0x8022201000050901L,
+            0x5002001008052082L, 0x0041000208040001L, 0x0000080110008204L, 0x0004010020440082L
+    };
+    private static final long[] KNOWN_BISHOP_MAGICS = {
+            0x0050020084088600L, 0x402002020a00248aL, 0x0004180200400201L, 0x00022a0200000038L,
+            0x0922021020202001L, 0x0c01012010410008L, 0x2000980110108000L, 0x0002c1080802820cL,
+            0x1c101120c2042040L, 0x8008110230810600L, 0x00a0082081020800L, 0x0100208a00810010L,
+            0x00000c0521028830L, 0x4006088804c04200L, 0x1004820104600408L, 0x6094062884100800L,
+            0x0042001010420080L, 0x0c08070481040400L, 0x4010000800284210L, 0x018800288a024080L,
+            0x0021040820080000L, 0x01c1024200808416L, 0x1004018044020800L, 0x0001000288411080L,
+            0x0020040010304280L, 0x20169828d0100081L, 0x0806012052040400L, 0x0010040000440008L,
+            0x0050101001004000L, 0x28404a0009010100L, 0x1001010004441040L, 0x0010820207024600L,
+            0x2804020800401081L, 0x8091100240900404L, 0x400a2c0104100100L, 0x0a11020080080080L,
+            0x40140900100c0040L, 0x1002100040020800L, 0x02113c0100408800L, 0x0108011024011080L,
+            0x6042100404002125L, 0x0801082814081240L, 0x0402020048410400L, 0x0240024200900800L,
+            0x0048402082000d21L, 0x0801020802013844L, 0x0021042100488201L, 0x8490020040500100L,
+            0x0024010410045410L, 0x14020201040320c1L, 0x0008004208043000L, 0x0002002084240000L,
+            0x0000204030410a02L, 0x8000080808182009L, 0x0a04200244010000L, 0x00491000820b4128L,
+            0x8050430088254000L, 0x0000120a019a4849L, 0x01040a810c0f0401L, 0x0200981000841c20L,
+            0x0402005230220a00L, 0x5091301020012100L, 0x6029088204380210L, 0x02842008842b0040L
+    };
+
+    private static final Magic[] ROOK_MAGICS = new Magic[64];
+    private static final Magic[] BISHOP_MAGICS = new Magic[64];
+
+    static {
+        for (int square = 0; square < 64; square++) {
+            KNIGHT_ATTACKS[square] = leaperAttacks(square, KNIGHT_OFFSETS);
+            KING_ATTACKS[square] = leaperAttacks(square, KING_OFFSETS);
+            PAWN_ATTACKS[PieceColor.WHITE.ordinal()][square] = leaperAttacks(square, new int[][]{{-1, 1}, {1, 1}});
+            PAWN_ATTACKS[PieceColor.BLACK.ordinal()][square] = leaperAttacks(square, new int[][]{{-1, -1}, {1, -1}});
+        }
+        SplittableRandom random = new SplittableRandom(0x16B17B0A7DL);
+        for (int square = 0; square < 64; square++) {
+            ROOK_MAGICS[square] = Magic.find(square, ROOK_DIRECTIONS, KNOWN_ROOK_MAGICS[square], random);
+            BISHOP_MAGICS[square] = Magic.find(square, BISHOP_DIRECTIONS, KNOWN_BISHOP_MAGICS[square], random);
+        }
+    }
+
+    private Attacks() {
+        throw new AssertionError("Cannot instantiate Attacks class");
+    }
+
+    /**
+     * Returns the squares a piece of the given type attacks from a square.
+     *
+     * @param pieceType the type of the piece; pawns attack differently by color,
+     *                  use {@link #pawnAttacks(PieceColor, int)} for them
+     * @param square    the square the piece stands on
+     * @param occupancy the occupied squares, which block rooks, bishops and
+     *                  queens
+     * @return the bitboard of attacked squares, including occupied ones
+     * @throws IllegalArgumentException if {@code pieceType} is a pawn
+     */
+    public static long attacksFrom(PieceType pieceType, int square, long occupancy) {
+        return switch (pieceType) {
+            case KNIGHT -> KNIGHT_ATTACKS[square];
+            case BISHOP -> bishopAttacks(square, occupancy);
+            case ROOK -> rookAttacks(square, occupancy);
+            case QUEEN -> rookAttacks(square, occupancy) | bishopAttacks(square, occupancy);
+            case KING -> KING_ATTACKS[square];
+            case PAWN -> throw new IllegalArgumentException("Pawn attacks depend on color, use pawnAttacks");
+        };
+    }
+
+    public static long knightAttacks(int square) {
+        return KNIGHT_ATTACKS[square];
+    }
+
+    public static long kingAttacks(int square) {
+        return KING_ATTACKS[square];
+    }
+
+    /**
+     * Returns the squares a pawn of the given color attacks from a square.
+     * Looked at the other way, it is the set of squares from which an enemy
+     * pawn would attack {@code square}.
+     *
+     * @param color  the color of the pawn
+     * @param square the square the pawn stands on
+     * @return the bitboard of the (at most two) attacked squares
+     */
+    public static long pawnAttacks(PieceColor color, int square) {
+        return PAWN_ATTACKS[color.ordinal()][square];
+    }
+
+    public static long rookAttacks(int square, long occupancy) {
+        return ROOK_MAGICS[square].attacks(occupancy);
+    }
+
+    public static long bishopAttacks(int square, long occupancy) {
+        return BISHOP_MAGICS[square].attacks(occupancy);
+    }
+
+    // --- Table Construction ---
+
+    private static long leaperAttacks(int square, int[][] offsets) {
+        long attacks = 0;
+        for (int[] offset : offsets) {
+            int col = (square & 7) + offset[0];
+            int row = (square >>> 3) + offset[1];
+            if (col >= 0 && col < 8 && row >= 0 && row < 8) {
+                attacks |= 1L << (row * 8 + col);
+            }
+        }
+        return attacks;
+    }
+
+    /**
+     * Walks the rays from a square, stopping at and including the first
+     * occupied square on each.
+     */
+    private static long slidingAttacks(int square, int[][] directions, long occupancy) {
+        long attacks = 0;
+        for (int[] direction : directions) {
+            int col = (square & 7) + direction[0];
+            int row = (square >>> 3) + direction[1];
+            while (col >= 0 && col < 8 && row >= 0 && row < 8) {
+                long bit = 1L << (row * 8 + col);
+                attacks |= bit;
+                if ((occupancy & bit) != 0) {
+                    break;
+                }
+                col += direction[0];
+                row += direction[1];
+            }
+        }
+        return attacks;
+    }
+
+    /**
+     * The relevant blocker squares of a slider: its rays without the last
+     * square of each, since a piece on the board edge blocks nothing further.
+     */
+    private static long relevantBlockers(int square, int[][] directions) {
+        long mask = 0;
+        for (int[] direction : directions) {
+            int col = (square & 7) + direction[0];
+            int row = (square >>> 3) + direction[1];
+            while (col + direction[0] >= 0 && col + direction[0] < 8 && row + direction[1] >= 0 && row + direction[1] < 8) {
+                mask |= 1L << (row * 8 + col);
+                col += direction[0];
+                row += direction[1];
+            }
+        }
+        return mask;
+    }
+
+    /**
+     * The magic lookup for one slider on one square.
+     */
+    private record Magic(long mask, long magic, int shift, long[] table) {
+
+        long attacks(long occupancy) {
+            return table[(int) (((occupancy & mask) * magic) >>> shift)];
+        }
+
+        /**
+         * Enumerates every blocker pattern on the square's relevant squares and
+         * tries the candidate, then random sparse numbers, until one maps all
+         * patterns to table slots without two different attack sets sharing a
+         * slot.
+         */
+        static Magic find(int square, int[][] directions, long candidate, SplittableRandom random) {
+            long mask = relevantBlockers(square, directions);
+            int bits = Long.bitCount(mask);
+            int size = 1 << bits;
+            long[] blockers = new long[size];
+            long[] attacks = new long[size];
+            long subset = 0;
+            for (int i = 0; i < size; i++) {
+                blockers[i] = subset;
+                attacks[i] = slidingAttacks(square, directions, subset);
+                subset = (subset - mask) & mask;
+            }
+
+            long[] table = new long[size];
+            int[] epoch = new int[size];
+            int attempt = 0;
+            long magic = candidate;
+            while (true) {
+                if (attempt > 0) {
+                    magic = random.nextLong() & random.nextLong() & random.nextLong();
+                    if (Long.bitCount((mask * magic) & 0xff00000000000000L) < 6) {
+                        continue;
+                    }
+                }
+                attempt++;
+                boolean collision = false;
+                for (int i = 0; i < size && !collision; i++) {
+                    int index = (int) ((blockers[i] * magic) >>> (64 - bits));
+                    if (epoch[index] != attempt) {
+                        epoch[index] = attempt;
+                        table[index] = attacks[i];
+                    } else if (table[index] != attacks[i]) {
+                        collision = true;
+                    }
+                }
+                if (!collision) {
+                    return new Magic(mask, magic, 64 - bits, table);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,437 @@
+package nhom16oop.core.movegen;
+
+import nhom16oop.constants.PieceColor;
+import nhom16oop.constants.PieceType;
+import nhom16oop.core.model.BoardState;
+import nhom16oop.core.model.ChessMove;
+import nhom16oop.core.model.ChessPiece;
+import nhom16oop.core.model.ChessPosition;
+import nhom16oop.core.pieces.BitboardPieceMap;
+import nhom16oop.core.pieces.ChessPieceMap;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Generates the legal moves of the side to move in a single pass.
+ * <p>
+ * When constructed, the generator looks outward from the king once to find the
+ * pieces giving check, the pieces pinned to the king together with the line they
+ * may still move along, and the mask of squares that block or capture a single
+ * checker. Moves are then generated directly from those masks, so no move ever
+ * has to be tried on the board and tested for check afterwards. The only
+ * exception is en passant, which removes two pieces from the same rank and is
+ * verified against the resulting occupancy.
+ * <p>
+ * A generator describes the position as it was when constructed; create a new
+ * one after the board changes.
+ */
+public final class LegalMoveGenerator {
+
+    private static final int[][] ROOK_DIRECTIONS = {{0, 1}, {0, -1}, {1, 0}, {-1, 0}};
+    private static final int[][] BISHOP_DIRECTIONS = {{1, 1}, {1, -1}, {-1, 1}, {-1, -1}};
+
+    private final BoardState boardState;
+    private final BitboardPieceMap board;
+    private final PieceColor us;
+    private final PieceColor them;
+    private final long own;
+    private final long enemy;
+    private final long occupied;
+    private final int kingSquare;
+
+    private long checkers;
+    private long checkMask = -1L;
+    private long pinned;
+    private final long[] pinRays = new long[64];
+
+    /**
+     * Analyses the position for the side to move: locates checkers, pinned
+     * pieces and the check evasion mask.
+     *
+     * @param boardState the position to generate moves for
+     */
+    public LegalMoveGenerator(BoardState boardState) {
+        this.boardState = boardState;
+        this.board = toBitboards(boardState.getChessPieceMap());
+        this.us = boardState.getCurrentPlayerColor();
+        this.them = us.getOpponent();
+        this.own = board.getOccupancy(us);
+        this.enemy = board.getOccupancy(them);
+        this.occupied = board.getOccupancy();
+        long king = board.getPieces(us, PieceType.KING);
+        this.kingSquare = king == 0 ? -1 : Long.numberOfTrailingZeros(king);
+        if (kingSquare >= 0) {
+            findChecksAndPins();
+        }
+    }
+
+    private static BitboardPieceMap toBitboards(ChessPieceMap pieceMap) {
+        if (pieceMap instanceof BitboardPieceMap bitboardPieceMap) {
+            return bitboardPieceMap;
+        }
+        BitboardPieceMap bitboards = new BitboardPieceMap();
+        for (Map.Entry<ChessPosition, ChessPiece> entry : pieceMap.getPieceMap().entrySet()) {
+            bitboards.setPiece(entry.getKey(), entry.getValue());
+        }
+        return bitboards;
+    }
+
+    // --- Position Analysis ---
+
+    /**
+     * Walks the eight rays leaving the king square and looks up the knight and
+     * pawn squares that attack it. An enemy slider reached directly gives
+     * check; one reached after exactly one friendly piece pins that piece.
+     */
+    private void findChecksAndPins() {
+        long leaperCheckers = (Attacks.knightAttacks(kingSquare) & board.getPieces(them, PieceType.KNIGHT))
+                | (Attacks.pawnAttacks(us, kingSquare) & board.getPieces(them, PieceType.PAWN));
+        checkers = leaperCheckers;
+
+        long queens = board.getPieces(them, PieceType.QUEEN);
+        long sliderCheckRay = 0;
+        sliderCheckRay |= scanForPins(ROOK_DIRECTIONS, board.getPieces(them, PieceType.ROOK) | queens);
+        sliderCheckRay |= scanForPins(BISHOP_DIRECTIONS, board.getPieces(them, PieceType.BISHOP) | queens);
+
+        int checkerCount = Long.bitCount(checkers);
+        if (checkerCount > 1) {
+            checkMask = 0;
+        } else if (checkerCount == 1) {
+            checkMask = leaperCheckers != 0 ? leaperCheckers : sliderCheckRay;
+        }
+    }
+
+    /**
+     * Scans the given rays from the king for checking and pinning sliders.
+     *
+     * @param directions the ray directions as (col, row) steps
+     * @param sliders    the enemy pieces that attack along these rays
+     * @return the squares between the king and a checking slider, including the
+     * slider, or 0 if no slider on these rays gives check
+     */
+    private long scanForPins(int[][] directions, long sliders) {
+        long checkRay = 0;
+        int kingCol = kingSquare & 7;
+        int kingRow = kingSquare >>> 3;
+        for (int[] direction : directions) {
+            long ray = 0;
+            int blocker = -1;
+            int col = kingCol + direction[0];
+            int row = kingRow + direction[1];
+            while (col >= 0 && col < 8 && row >= 0 && row < 8) {
+                int square = row * 8 + col;
+                long bit = 1L << square;
+                ray |= bit;
+                if ((own & bit) != 0) {
+                    if (blocker >= 0) {
+                        break;
+                    }
+                    blocker = square;
+                } else if ((enemy & bit) != 0) {
+                    if ((sliders & bit) != 0) {
+                        if (blocker < 0) {
+                            checkers |= bit;
+                            checkRay |= ray;
+                        } else {
+                            pinned |= 1L << blocker;
+                            pinRays[blocker] = ray;
+                        }
+                    }
+                    break;
+                }
+                col += direction[0];
+                row += direction[1];
+            }
+        }
+        return checkRay;
+    }
+
+    // --- Queries ---
+
+    /**
+     * Checks whether the side to move is in check.
+     *
+     * @return true if at least one enemy piece attacks the king
+     */
+    public boolean isInCheck() {
+        return checkers != 0;
+    }
+
+    /**
+     * Returns the enemy pieces giving check, as a bitboard.
+     *
+     * @return the checkers bitboard
+     */
+    public long getCheckers() {
+        return checkers;
+    }
+
+    /**
+     * Returns the pieces of the side to move that are pinned to their king, as
+     * a bitboard.
+     *
+     * @return the pinned pieces bitboard
+     */
+    public long getPinned() {
+        return pinned;
+    }
+
+    /**
+     * Generates all legal moves of the side to move into a caller-supplied
+     * list, which is not cleared first. Promotions are added once per piece
+     * type.
+     *
+     * @param moves the list the packed moves are added to
+     */
+    public void generateLegalMoves(MoveList moves) {
+        generate(-1L, moves);
+    }
+
+    /**
+     * Generates all legal moves of the side to move.
+     *
+     * @return the legal moves; a pawn reaching the last rank is listed once
+     */
+    public List<ChessMove> generateLegalMoves() {
+        MoveList moves = new MoveList();
+        generate(-1L, moves);
+        return moves.toChessMoves();
+    }
+
+    /**
+     * Generates the legal moves of the piece on the given square.
+     *
+     * @param start the square of the piece to move
+     * @return the legal moves of that piece, empty if it does not belong to the
+     * side to move
+     */
+    public List<ChessMove> generateLegalMoves(ChessPosition start) {
+        MoveList moves = new MoveList();
+        generate(1L << BitboardPieceMap.squareOf(start), moves);
+        return moves.toChessMoves();
+    }
+
+    /**
+     * Checks whether the side to move has any legal move, stopping at the first
+     * one found.
+     *
+     * @return true if at least one legal move exists
+     */
+    public boolean hasLegalMove() {
+        return generate(-1L, null);
+    }
+
+    // --- Generation ---
+
+    /**
+     * Generates the legal moves of the pieces in {@code fromMask}.
+     *
+     * @param fromMask the squares of the pieces to generate moves for
+     * @param moves    the list to add packed moves to, or null to stop at the
+     *                 first legal move
+     * @return true if {@code moves} is null and a legal move exists
+     */
+    private boolean generate(long fromMask, MoveList moves) {
+        if (kingSquare >= 0 && (fromMask & (1L << kingSquare)) != 0 && generateKingMoves(moves)) {
+            return true;
+        }
+        if (Long.bitCount(checkers) > 1) {
+            return false;
+        }
+
+        long targets = ~own & checkMask;
+        long queens = board.getPieces(us, PieceType.QUEEN);
+
+        for (long pieces = board.getPieces(us, PieceType.KNIGHT) & fromMask & ~pinned; pieces != 0; pieces &= pieces - 1) {
+            int from = Long.numberOfTrailingZeros(pieces);
+            if (emit(from, Attacks.knightAttacks(from) & targets, moves)) {
+                return true;
+            }
+        }
+        for (long pieces = (board.getPieces(us, PieceType.BISHOP) | queens) & fromMask; pieces != 0; pieces &= pieces - 1) {
+            int from = Long.numberOfTrailingZeros(pieces);
+            if (emit(from, Attacks.bishopAttacks(from, occupied) & targets & pinRay(from), moves)) {
+                return true;
+            }
+        }
+        for (long pieces = (board.getPieces(us, PieceType.ROOK) | queens) & fromMask; pieces != 0; pieces &= pieces - 1) {
+            int from = Long.numberOfTrailingZeros(pieces);
+            if (emit(from, Attacks.rookAttacks(from, occupied) & targets & pinRay(from), moves)) {
+                return true;
+            }
+        }
+        return generatePawnMoves(board.getPieces(us, PieceType.PAWN) & fromMask, moves);
+    }
+
+    private boolean generateKingMoves(MoveList moves) {
+        long withoutKing = occupied & ~(1L << kingSquare);
+        long targets = 0;
+        for (long squares = Attacks.kingAttacks(kingSquare) & ~own; squares != 0; squares &= squares - 1) {
+            int to = Long.numberOfTrailingZeros(squares);
+            if (!isAttacked(to, withoutKing, 0)) {
+                targets |= 1L << to;
+            }
+        }
+        if (emit(kingSquare, targets, moves)) {
+            return true;
+        }
+        return checkers == 0 && emit(kingSquare, castlingTargets(), Move.CASTLING, moves);
+    }
+
+    /**
+     * Finds the castling destinations of the king. Castling needs the right in
+     * the board state, the king and rook on their home squares, empty squares
+     * between them, and no attack on the squares the king passes through.
+     *
+     * @return the bitboard of the king's castling destinations
+     */
+    private long castlingTargets() {
+        int home = us.isWhite() ? 4 : 60;
+        if (kingSquare != home) {
+            return 0;
+        }
+        long rooks = board.getPieces(us, PieceType.ROOK);
+        boolean kingside = us.isWhite() ? boardState.canWhiteCastleKingside() : boardState.canBlackCastleKingside();
+        boolean queenside = us.isWhite() ? boardState.canWhiteCastleQueenside() : boardState.canBlackCastleQueenside();
+        long targets = 0;
+        if (kingside && (rooks & (1L << (home + 3))) != 0
+                && (occupied & (3L << (home + 1))) == 0
+                && !isAttacked(home + 1, occupied, 0) && !isAttacked(home + 2, occupied, 0)) {
+            targets |= 1L << (home + 2);
+        }
+        if (queenside && (rooks & (1L << (home - 4))) != 0
+                && (occupied & (7L << (home - 3))) == 0
+                && !isAttacked(home - 1, occupied, 0) && !isAttacked(home - 2, occupied, 0)) {
+            targets |= 1L << (home - 2);
+        }
+        return targets;
+    }
+
+    private boolean generatePawnMoves(long pawns, MoveList moves) {
+        int forward = us.isWhite() ? 8 : -8;
+        int startRow = us.isWhite() ? 1 : 6;
+        ChessPosition enPassant = boardState.getEnPassantTargetSquare();
+        int enPassantSquare = enPassant == null ? -1 : BitboardPieceMap.squareOf(enPassant);
+
+        for (; pawns != 0; pawns &= pawns - 1) {
+            int from = Long.numberOfTrailingZeros(pawns);
+            long allowed = checkMask & pinRay(from);
+            long pushes = 0;
+            long doublePush = 0;
+
+            int to = from + forward;
+            if (to >= 0 && to < 64 && (occupied & (1L << to)) == 0) {
+                pushes = 1L << to;
+                int doubleTo = to + forward;
+                if ((from >>> 3) == startRow && (occupied & (1L << doubleTo)) == 0) {
+                    doublePush = 1L << doubleTo;
+                }
+            }
+            long attacks = Attacks.pawnAttacks(us, from);
+
+            if (emitPawn(from, pushes & allowed, 0, moves)
+                    || emitPawn(from, attacks & enemy & allowed, Move.CAPTURE, moves)
+                    || emit(from, doublePush & allowed, Move.DOUBLE_PUSH, moves)) {
+                return true;
+            }
+            if (enPassantSquare >= 0 && (attacks & (1L << enPassantSquare)) != 0 && isLegalEnPassant(from, enPassantSquare, forward)
+                    && emit(from, 1L << enPassantSquare, Move.CAPTURE | Move.EN_PASSANT, moves)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Verifies an en passant capture by testing the king against the occupancy
+     * after the move. This covers pins, check evasion, and the case where both
+     * pawns leave the king's rank and expose it to a rook or queen.
+     */
+    private boolean isLegalEnPassant(int from, int enPassantSquare, int forward) {
+        int capturedSquare = enPassantSquare - forward;
+        long capturedBit = 1L << capturedSquare;
+        if ((board.getPieces(them, PieceType.PAWN) & capturedBit) == 0) {
+            return false;
+        }
+        if (kingSquare < 0) {
+            return true;
+        }
+        long after = (occupied & ~(1L << from) & ~capturedBit) | (1L << enPassantSquare);
+        return !isAttacked(kingSquare, after, capturedBit);
+    }
+
+    private long pinRay(int square) {
+        return (pinned & (1L << square)) != 0 ? pinRays[square] : -1L;
+    }
+
+    private boolean emit(int from, long targets, MoveList moves) {
+        if (emit(from, targets & enemy, Move.CAPTURE, moves)) {
+            return true;
+        }
+        return emit(from, targets & ~enemy, 0, moves);
+    }
+
+    private boolean emit(int from, long targets, int flags, MoveList moves) {
+        if (targets == 0) {
+            return false;
+        }
+        if (moves == null) {
+            return true;
+        }
+        for (; targets != 0; targets &= targets - 1) {
+            moves.add(Move.of(from, Long.numberOfTrailingZeros(targets), flags));
+        }
+        return false;
+    }
+
+    /**
+     * Adds single-step pawn moves, expanding a move to the last rank into the
+     * four promotions.
+     */
+    private boolean emitPawn(int from, long targets, int flags, MoveList moves) {
+        if (targets == 0) {
+            return false;
+        }
+        if (moves == null) {
+            return true;
+        }
+        for (; targets != 0; targets &= targets - 1) {
+            int to = Long.numberOfTrailingZeros(targets);
+            int row = to >>> 3;
+            if (row == 0 || row == 7) {
+                moves.add(Move.of(from, to, flags, PieceType.QUEEN));
+                moves.add(Move.of(from, to, flags, PieceType.ROOK));
+                moves.add(Move.of(from, to, flags, PieceType.BISHOP));
+                moves.add(Move.of(from, to, flags, PieceType.KNIGHT));
+            } else {
+                moves.add(Move.of(from, to, flags));
+            }
+        }
+        return false;
+    }
+
+    // --- Attacks ---
+
+    /**
+     * Checks whether the enemy attacks a square, given an occupancy that may
+     * differ from the board's.
+     *
+     * @param square    the square to test
+     * @param occupancy the occupancy sliders are blocked by
+     * @param removed   enemy pieces to ignore, e.g. a pawn captured en passant
+     * @return true if any enemy piece outside {@code removed} attacks the square
+     */
+    private boolean isAttacked(int square, long occupancy, long removed) {
+        if ((Attacks.knightAttacks(square) & board.getPieces(them, PieceType.KNIGHT) & ~removed) != 0
+                || (Attacks.pawnAttacks(us, square) & board.getPieces(them, PieceType.PAWN) & ~removed) != 0
+                || (Attacks.kingAttacks(square) & board.getPieces(them, PieceType.KING)) != 0) {
+            return true;
+        }
+        long queens = board.getPieces(them, PieceType.QUEEN);
+        long rooks = (board.getPieces(them, PieceType.ROOK) | queens) & ~removed;
+        long bishops = (board.getPieces(them, PieceType.BISHOP) | queens) & ~removed;
+        return (rooks != 0 && (Attacks.rookAttacks(square, occupancy) & rooks) != 0)
+                || (bishops != 0 && (Attacks.bishopAttacks(square, occupancy) & bishops) != 0);
+    }
+}
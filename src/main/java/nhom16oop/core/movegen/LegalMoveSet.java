@@ -0,0 +1,118 @@
+package nhom16oop.core.movegen;
+
+import nhom16oop.core.model.BoardState;
+import nhom16oop.core.model.ChessMove;
+import nhom16oop.core.model.ChessPosition;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * All legal moves of the side to move in one position, stored as a 64x64
+ * bitset: one bitboard of destination squares per start square. Built once
+ * per position, it answers "may this piece go there?" and "where may this
+ * piece go?" with a single array lookup, which is what highlighting and move
+ * validation in the UI need. Promotions are stored once per pawn move; the
+ * promotion piece is chosen separately.
+ * <p>
+ * A LegalMoveSet is immutable, so it can be built on one thread and read on
+ * another.
+ */
+public final class LegalMoveSet {
+
+    private final long positionKey;
+    private final long[] targets = new long[64];
+    private final int size;
+
+    /**
+     * Generates the legal moves of the side to move.
+     *
+     * @param boardState the position
+     */
+    public LegalMoveSet(BoardState boardState) {
+        this(boardState.getZobristKey(), generate(boardState));
+    }
+
+    /**
+     * Builds the set from moves already generated.
+     *
+     * @param positionKey the Zobrist key of the position
+     * @param moves       all legal moves in the position
+     */
+    public LegalMoveSet(long positionKey, MoveList moves) {
+        this.positionKey = positionKey;
+        int count = 0;
+        for (int i = 0; i < moves.size(); i++) {
+            int move = moves.get(i);
+            long bit = 1L << Move.to(move);
+            if ((targets[Move.from(move)] & bit) == 0) {
+                targets[Move.from(move)] |= bit;
+                count++;
+            }
+        }
+        this.size = count;
+    }
+
+    private static MoveList generate(BoardState boardState) {
+        MoveList moves = new MoveList();
+        new LegalMoveGenerator(boardState).generateLegalMoves(moves);
+        return moves;
+    }
+
+    /**
+     * Returns the Zobrist key of the position the moves were generated for,
+     * so a holder can tell whether the set is still current.
+     *
+     * @return the position key
+     */
+    public long getPositionKey() {
+        return positionKey;
+    }
+
+    public boolean contains(int from, int to) {
+        return (targets[from] & (1L << to)) != 0;
+    }
+
+    public boolean contains(ChessMove move) {
+        return contains(move.start().index(), move.end().index());
+    }
+
+    /**
+     * Returns the squares the piece on the given square may move to.
+     *
+     * @param start the square of the piece
+     * @return the destination bitboard, 0 if the square holds no piece of the
+     * side to move or the piece cannot move
+     */
+    public long targetsFrom(ChessPosition start) {
+        return targets[start.index()];
+    }
+
+    /**
+     * Returns the moves of the piece on the given square.
+     *
+     * @param start the square of the piece
+     * @return a new list of the piece's legal moves
+     */
+    public List<ChessMove> movesFrom(ChessPosition start) {
+        long bits = targets[start.index()];
+        List<ChessMove> moves = new ArrayList<>(Long.bitCount(bits));
+        for (; bits != 0; bits &= bits - 1) {
+            moves.add(new ChessMove(start, ChessPosition.of(Long.numberOfTrailingZeros(bits))));
+        }
+        return moves;
+    }
+
+    /**
+     * Returns the number of distinct (start, destination) pairs.
+     *
+     * @return the number of legal moves, counting each promotion once
+     */
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+}
@@ -0,0 +1,173 @@
+package nhom16oop.core.movegen;
+
+import nhom16oop.constants.PieceType;
+import nhom16oop.core.model.BoardState;
+import nhom16oop.core.model.ChessMove;
+import nhom16oop.core.model.ChessPiece;
+import nhom16oop.core.pieces.BitboardPieceMap;
+
+/**
+ * Packs a move into a single {@code int} so move generation and search can
+ * work without allocating objects.
+ * <pre>
+ * bits  0-5   from square (row * 8 + col)
+ * bits  6-11  to square
+ * bits 12-14  promotion piece type ordinal, 0 if the move is not a promotion
+ * bit  15     capture
+ * bit  16     castling
+ * bit  17     en passant
+ * bit  18     pawn double push
+ * </pre>
+ * {@link #toChessMove(int)} converts a packed move to a {@link ChessMove} for
+ * the UI and the rest of the game code.
+ */
+public final class Move {
+
+    public static final int CAPTURE = 1 << 15;
+    public static final int CASTLING = 1 << 16;
+    public static final int EN_PASSANT = 1 << 17;
+    public static final int DOUBLE_PUSH = 1 << 18;
+
+    private static final int SQUARE_MASK = 0x3f;
+    private static final int TO_SHIFT = 6;
+    private static final int PROMOTION_SHIFT = 12;
+    private static final int PROMOTION_MASK = 0x7;
+
+    private static final PieceType[] PIECE_TYPES = PieceType.values();
+
+    private Move() {
+        throw new AssertionError("Cannot instantiate Move class");
+    }
+
+    /**
+     * Packs a move that is not a promotion.
+     *
+     * @param from  the from square index
+     * @param to    the to square index
+     * @param flags any of {@link #CAPTURE}, {@link #CASTLING},
+     *              {@link #EN_PASSANT} and {@link #DOUBLE_PUSH}
+     * @return the packed move
+     */
+    public static int of(int from, int to, int flags) {
+        return from | (to << TO_SHIFT) | flags;
+    }
+
+    /**
+     * Packs a promotion.
+     *
+     * @param from      the from square index
+     * @param to        the to square index
+     * @param flags     {@link #CAPTURE} or 0
+     * @param promotion the type the pawn becomes
+     * @return the packed move
+     */
+    public static int of(int from, int to, int flags, PieceType promotion) {
+        return of(from, to, flags) | (promotion.ordinal() << PROMOTION_SHIFT);
+    }
+
+    public static int from(int move) {
+        return move & SQUARE_MASK;
+    }
+
+    public static int to(int move) {
+        return (move >>> TO_SHIFT) & SQUARE_MASK;
+    }
+
+    /**
+     * Returns the piece type a promotion produces.
+     *
+     * @param move the packed move
+     * @return the promotion type, or null if the move is not a promotion
+     */
+    public static PieceType promotion(int move) {
+        int ordinal = (move >>> PROMOTION_SHIFT) & PROMOTION_MASK;
+        return ordinal == 0 ? null : PIECE_TYPES[ordinal];
+    }
+
+    public static boolean isPromotion(int move) {
+        return ((move >>> PROMOTION_SHIFT) & PROMOTION_MASK) != 0;
+    }
+
+    public static boolean isCapture(int move) {
+        return (move & CAPTURE) != 0;
+    }
+
+    public static boolean isCastling(int move) {
+        return (move & CASTLING) != 0;
+    }
+
+    public static boolean isEnPassant(int move) {
+        return (move & EN_PASSANT) != 0;
+    }
+
+    public static boolean isDoublePush(int move) {
+        return (move & DOUBLE_PUSH) != 0;
+    }
+
+    /**
+     * Packs a {@link ChessMove} about to be made in a position, deriving the
+     * flags from the pieces on the board the same way
+     * {@link BoardState#makeMove(ChessMove, ChessPiece)} interprets the move.
+     *
+     * @param boardState the position before the move
+     * @param move       the move
+     * @param promotion  the type a pawn reaching the last rank becomes, or null
+     *                   for a queen
+     * @return the packed move
+     * @throws IllegalArgumentException if there is no piece on the start square
+     */
+    public static int of(BoardState boardState, ChessMove move, PieceType promotion) {
+        ChessPiece piece = boardState.getChessPieceMap().getPiece(move.start());
+        if (piece == null) {
+            throw new IllegalArgumentException("No piece to move at " + move.start().toChessNotation());
+        }
+        int from = BitboardPieceMap.squareOf(move.start());
+        int to = BitboardPieceMap.squareOf(move.end());
+        int flags = boardState.getChessPieceMap().getPiece(move.end()) != null ? CAPTURE : 0;
+        int columns = Math.abs(move.end().col() - move.start().col());
+        if (piece.getPieceType() == PieceType.KING && columns == 2) {
+            flags |= CASTLING;
+        } else if (piece.getPieceType() == PieceType.PAWN) {
+            if (columns == 1 && flags == 0) {
+                flags |= CAPTURE | EN_PASSANT;
+            } else if (Math.abs(move.end().row() - move.start().row()) == 2) {
+                flags |= DOUBLE_PUSH;
+            }
+            if (move.end().row() == 0 || move.end().row() == 7) {
+                return of(from, to, flags, promotion != null ? promotion : PieceType.QUEEN);
+            }
+        }
+        return of(from, to, flags);
+    }
+
+    /**
+     * Converts a packed move to a {@link ChessMove}. The promotion type and
+     * flags are not carried over.
+     *
+     * @param move the packed move
+     * @return the move as start and end positions
+     */
+    public static ChessMove toChessMove(int move) {
+        return new ChessMove(BitboardPieceMap.positionOf(from(move)), BitboardPieceMap.positionOf(to(move)));
+    }
+
+    /**
+     * Formats a packed move in UCI notation, e.g. "e2e4" or "e7e8q".
+     *
+     * @param move the packed move
+     * @return the move in UCI notation
+     */
+    public static String toUci(int move) {
+        String notation = toChessMove(move).moveNotation().toLowerCase();
+        PieceType promotion = promotion(move);
+        if (promotion == null) {
+            return notation;
+        }
+        return notation + switch (promotion) {
+            case KNIGHT -> 'n';
+            case BISHOP -> 'b';
+            case ROOK -> 'r';
+            default -> 'q';
+        };
+    }
+}
@@ -0,0 +1,85 @@
+package nhom16oop.core.movegen;
+
+import nhom16oop.constants.PieceType;
+import nhom16oop.core.model.ChessMove;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A reusable, growable list of packed moves (see {@link Move}). Callers keep
+ * one list per search depth and {@link #clear()} it before each generation,
+ * so generating moves allocates nothing once the list has reached its size.
+ */
+public final class MoveList {
+
+    /**
+     * More than the largest number of legal moves in any chess position (218).
+     */
+    private static final int DEFAULT_CAPACITY = 256;
+
+    private int[] moves;
+    private int size;
+
+    /**
+     * Constructs an empty MoveList large enough for any position.
+     */
+    public MoveList() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Constructs an empty MoveList with the given initial capacity.
+     *
+     * @param capacity the number of moves the list holds before growing
+     */
+    public MoveList(int capacity) {
+        this.moves = new int[Math.max(capacity, 1)];
+    }
+
+    public void add(int move) {
+        if (size == moves.length) {
+            int[] grown = new int[size * 2];
+            System.arraycopy(moves, 0, grown, 0, size);
+            moves = grown;
+        }
+        moves[size++] = move;
+    }
+
+    public int get(int index) {
+        if (index >= size) {
+            throw new IndexOutOfBoundsException("Index " + index + " out of bounds for size " + size);
+        }
+        return moves[index];
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public void clear() {
+        size = 0;
+    }
+
+    /**
+     * Converts the moves to {@link ChessMove}s for code that works with
+     * positions. Promotions to a knight, bishop or rook are left out, so each
+     * pawn move to the last rank appears once.
+     *
+     * @return a new list of the moves
+     */
+    public List<ChessMove> toChessMoves() {
+        List<ChessMove> chessMoves = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            int move = moves[i];
+            if (!Move.isPromotion(move) || Move.promotion(move) == PieceType.QUEEN) {
+                chessMoves.add(Move.toChessMove(move));
+            }
+        }
+        return chessMoves;
+    }
+}
@@ -1,65 +1,40 @@
 package nhom16oop.core.pieces;
 
-import java.util.ArrayList;
 import java.util.List;
 
 import nhom16oop.constants.PieceColor;
+import nhom16oop.constants.PieceType;
 import nhom16oop.core.model.ChessMove;
 import nhom16oop.core.model.ChessPiece;
 import nhom16oop.core.model.ChessPosition;
-import nhom16oop.utils.BoardUtils;
+import nhom16oop.core.movegen.Attacks;
 
-public class Bishop extends ChessPiece {
+public final class Bishop extends ChessPiece {
 
-    {
-        this.pieceValue = 3;
+    public static final Bishop WHITE = new Bishop(PieceColor.WHITE);
+    public static final Bishop BLACK = new Bishop(PieceColor.BLACK);
+
+    private Bishop(PieceColor color) {
+        super(color, 3);
     }
 
-    public Bishop(PieceColor color) {
-        super(color, color.isWhite() ? "white_bishop.png" : "black_bishop.png");
+    public static Bishop of(PieceColor color) {
+        return color.isWhite() ? WHITE : BLACK;
     }
 
     @Override
     public List<ChessMove> generateValidMoves(ChessPosition start, ChessPieceMap pieceMap) {
-        List<ChessMove> moves = new ArrayList<>();
-        int startRow = start.row();
-        int startCol = start.col();
-
-        int[][] directions = {{1, 1}, {1, -1}, {-1, 1}, {-1, -1}};
-        for (int[] dir : directions) {
-            int dCol = dir[0];
-            int dRow = dir[1];
-            int newCol = startCol + dCol;
-            int newRow = startRow + dRow;
-
-            while (BoardUtils.isWithinBoard(newCol, newRow)) {
-                ChessPosition pos = new ChessPosition(newCol, newRow);
-                if (!pieceMap.hasPiece(pos)) {
-                    moves.add(new ChessMove(start, pos));
-                } else {
-                    if (pieceMap.getPiece(pos).getColor() != getColor()) {
-                        moves.add(new ChessMove(start, pos));
-                    }
-                    break;
-                }
-                newCol += dCol;
-                newRow += dRow;
-            }
-        }
-
-        return moves;
+        long attacks = Attacks.attacksFrom(PieceType.BISHOP, start.index(), pieceMap.getOccupancy());
+        return movesTo(start, attacks & ~pieceMap.getOccupancy(getColor()));
     }
 
     @Override
-    public String getPieceNotation() {
-        return this.getColor().isWhite() ? "B" : "b";
+    public PieceType getPieceType() {
+        return PieceType.BISHOP;
     }
 
     @Override
-    public ChessPiece deepCopy() {
-        Bishop copy = new Bishop(this.getColor());
-        copy.pieceValue = this.pieceValue;
-        copy.setHasMoved(this.hasMoved());
-        return copy;
+    public String getPieceNotation() {
+        return this.getColor().isWhite() ? "B" : "b";
     }
 }
@@ -0,0 +1,248 @@
+package nhom16oop.core.pieces;
+
+import nhom16oop.constants.PieceColor;
+import nhom16oop.constants.PieceType;
+import nhom16oop.core.model.ChessPiece;
+import nhom16oop.core.model.ChessPosition;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * A {@link ChessPieceMap} backed by bitboards instead of a hash map.
+ * Keeps one 64-bit occupancy mask for each of the twelve piece kinds (six piece
+ * types per color), plus one mask per color and one for all occupied squares.
+ * Bit {@code row * 8 + col} of a mask is set when the square (col, row) is
+ * occupied, so a1 is bit 0 and h8 is bit 63. The piece instances themselves are
+ * kept in a 64-entry square array, which makes every lookup a plain array
+ * access.
+ */
+public class BitboardPieceMap extends ChessPieceMap {
+
+    private static final int PIECE_TYPES = PieceType.values().length;
+
+    private final long[] pieceBoards = new long[2 * PIECE_TYPES];
+    private final long[] colorBoards = new long[2];
+    private long occupied;
+    private final ChessPiece[] squares = new ChessPiece[64];
+
+    /**
+     * Constructs an empty BitboardPieceMap.
+     */
+    public BitboardPieceMap() {
+        this(new SquareView());
+    }
+
+    private BitboardPieceMap(SquareView view) {
+        super(view);
+        view.owner = this;
+    }
+
+    // --- Square Indexing ---
+
+    /**
+     * Converts a position to its square index (0 for a1 up to 63 for h8).
+     *
+     * @param position the position to convert
+     * @return the square index of the position
+     */
+    public static int squareOf(ChessPosition position) {
+        return position.index();
+    }
+
+    /**
+     * Converts a square index back to a position.
+     *
+     * @param square the square index (0 to 63)
+     * @return the corresponding position
+     */
+    public static ChessPosition positionOf(int square) {
+        return ChessPosition.of(square);
+    }
+
+    private static int boardIndex(PieceColor color, PieceType type) {
+        return color.ordinal() * PIECE_TYPES + type.ordinal();
+    }
+
+    // --- Bitboard Access ---
+
+    /**
+     * Returns the occupancy mask of the pieces of the given color and type.
+     *
+     * @param color the color of the pieces
+     * @param type  the type of the pieces
+     * @return the bitboard of matching pieces
+     */
+    @Override
+    public long getPieces(PieceColor color, PieceType type) {
+        return pieceBoards[boardIndex(color, type)];
+    }
+
+    /**
+     * Returns the occupancy mask of all pieces of the given color.
+     *
+     * @param color the color of the pieces
+     * @return the bitboard of the color's pieces
+     */
+    @Override
+    public long getOccupancy(PieceColor color) {
+        return colorBoards[color.ordinal()];
+    }
+
+    /**
+     * Returns the occupancy mask of all pieces on the board.
+     *
+     * @return the bitboard of occupied squares
+     */
+    @Override
+    public long getOccupancy() {
+        return occupied;
+    }
+
+    /**
+     * Retrieves the piece on the given square index.
+     *
+     * @param square the square index (0 to 63)
+     * @return the piece on the square, or null if it is empty
+     */
+    public ChessPiece getPiece(int square) {
+        return squares[square];
+    }
+
+    // --- Getters and Setters ---
+
+    @Override
+    public ChessPiece getPiece(ChessPosition position) {
+        return squares[squareOf(position)];
+    }
+
+    @Override
+    public void setPiece(ChessPosition position, ChessPiece piece) {
+        int square = squareOf(position);
+        touchRank(square >>> 3);
+        clearSquare(square);
+        if (piece != null) {
+            long bit = 1L << square;
+            pieceBoards[boardIndex(piece.getColor(), piece.getPieceType())] |= bit;
+            colorBoards[piece.getColor().ordinal()] |= bit;
+            occupied |= bit;
+            squares[square] = piece;
+            pieceAdded(piece, square);
+        }
+    }
+
+    @Override
+    public void removePiece(ChessPosition position) {
+        int square = squareOf(position);
+        touchRank(square >>> 3);
+        clearSquare(square);
+    }
+
+    private void clearSquare(int square) {
+        ChessPiece piece = squares[square];
+        if (piece == null) {
+            return;
+        }
+        long mask = ~(1L << square);
+        pieceBoards[boardIndex(piece.getColor(), piece.getPieceType())] &= mask;
+        colorBoards[piece.getColor().ordinal()] &= mask;
+        occupied &= mask;
+        squares[square] = null;
+        pieceRemoved(piece, square);
+    }
+
+    // --- Board State Queries ---
+
+    @Override
+    public boolean hasPiece(ChessPosition position) {
+        return (occupied & (1L << squareOf(position))) != 0;
+    }
+
+    // --- Board Manipulation ---
+
+    @Override
+    public void clear() {
+        Arrays.fill(pieceBoards, 0L);
+        Arrays.fill(colorBoards, 0L);
+        occupied = 0L;
+        Arrays.fill(squares, null);
+        resetTracking();
+    }
+
+    @Override
+    public BitboardPieceMap deepCopy() {
+        BitboardPieceMap copy = new BitboardPieceMap();
+        System.arraycopy(pieceBoards, 0, copy.pieceBoards, 0, pieceBoards.length);
+        System.arraycopy(colorBoards, 0, copy.colorBoards, 0, colorBoards.length);
+        copy.occupied = occupied;
+        copy.copyTrackingFrom(this);
+        System.arraycopy(squares, 0, copy.squares, 0, squares.length);
+        return copy;
+    }
+
+    /**
+     * Read-only map view over the square array, returned by
+     * {@link #getPieceMap()} for callers that iterate over all pieces.
+     * Iteration walks the set bits of the occupancy mask, in square order.
+     */
+    private static final class SquareView extends AbstractMap<ChessPosition, ChessPiece> {
+
+        private BitboardPieceMap owner;
+
+        @Override
+        public ChessPiece get(Object key) {
+            return key instanceof ChessPosition position ? owner.getPiece(position) : null;
+        }
+
+        @Override
+        public boolean containsKey(Object key) {
+            return key instanceof ChessPosition position && owner.hasPiece(position);
+        }
+
+        @Override
+        public int size() {
+            return Long.bitCount(owner.occupied);
+        }
+
+        @Override
+        public boolean isEmpty() {
+            return owner.occupied == 0;
+        }
+
+        @Override
+        public Set<Entry<ChessPosition, ChessPiece>> entrySet() {
+            return new AbstractSet<>() {
+                @Override
+                public Iterator<Entry<ChessPosition, ChessPiece>> iterator() {
+                    return new Iterator<>() {
+                        private long remaining = owner.occupied;
+
+                        @Override
+                        public boolean hasNext() {
+                            return remaining != 0;
+                        }
+
+                        @Override
+                        public Entry<ChessPosition, ChessPiece> next() {
+                            if (remaining == 0) {
+                                throw new NoSuchElementException();
+                            }
+                            int square = Long.numberOfTrailingZeros(remaining);
+                            remaining &= remaining - 1;
+                            return new SimpleImmutableEntry<>(positionOf(square), owner.squares[square]);
+                        }
+                    };
+                }
+
+                @Override
+                public int size() {
+                    return SquareView.this.size();
+                }
+            };
+        }
+    }
+}
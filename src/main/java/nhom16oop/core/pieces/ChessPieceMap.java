@@ -1,19 +1,40 @@
 package nhom16oop.core.pieces;
 
 import nhom16oop.constants.PieceColor;
+import nhom16oop.constants.PieceType;
 import nhom16oop.core.model.ChessPiece;
 import nhom16oop.core.model.ChessPosition;
+import nhom16oop.core.model.FenCodec;
+import nhom16oop.core.model.Zobrist;
 
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Map;
 
 /**
  * Manages the mapping of chess pieces to their positions on the board.
  * Provides methods to access, modify, and analyze the state of the board.
+ * <p>
+ * Alongside the placement, the map keeps the Zobrist key, the number of
+ * pieces of each kind, the material of each side, the king squares and a
+ * material signature, all updated as pieces are set and removed. Reading any
+ * of them costs nothing.
  */
 public class ChessPieceMap {
 
     private final Map<ChessPosition, ChessPiece> pieceMap;
+    private static final int PIECE_TYPES = PieceType.values().length;
+    private static final int NO_SQUARE = -1;
+    /** Bits per piece kind in the material signature; no kind reaches 16 pieces on a legal board. */
+    public static final int SIGNATURE_BITS = 4;
+
+    private long zobristKey;
+    private final int[] pieceCounts = new int[2 * PIECE_TYPES];
+    private final int[] material = new int[2];
+    private final int[] kingSquares = {NO_SQUARE, NO_SQUARE};
+    private long materialSignature;
+    private final int[] rankVersions = new int[8];
+    private int version;
 
     /**
      * Constructs an empty ChessPieceMap.
@@ -22,6 +43,17 @@ public class ChessPieceMap {
         this.pieceMap = new HashMap<>();
     }
 
+    /**
+     * Constructs a ChessPieceMap whose {@link #getPieceMap()} exposes the given
+     * map. Used by subclasses that keep their own storage and only provide a
+     * map view of it.
+     *
+     * @param pieceMap the map returned by {@link #getPieceMap()}
+     */
+    protected ChessPieceMap(Map<ChessPosition, ChessPiece> pieceMap) {
+        this.pieceMap = pieceMap;
+    }
+
     // --- Getters and Setters ---
 
     public ChessPiece getPiece(ChessPosition position) {
@@ -33,11 +65,206 @@ public class ChessPieceMap {
     }
 
     public void setPiece(ChessPosition position, ChessPiece piece) {
-        pieceMap.put(position, piece);
+        touchRank(position.row());
+        ChessPiece previous = pieceMap.put(position, piece);
+        if (previous != null) {
+            pieceRemoved(previous, position.index());
+        }
+        if (piece != null) {
+            pieceAdded(piece, position.index());
+        }
     }
 
     public void removePiece(ChessPosition position) {
-        pieceMap.remove(position);
+        touchRank(position.row());
+        ChessPiece removed = pieceMap.remove(position);
+        if (removed != null) {
+            pieceRemoved(removed, position.index());
+        }
+    }
+
+    // --- Zobrist Key ---
+
+    /**
+     * Returns the Zobrist key of the piece placement, the XOR of
+     * {@link Zobrist#pieceKey} for every piece on the board. The key is updated
+     * as pieces are set and removed, so reading it costs nothing.
+     *
+     * @return the piece placement key
+     */
+    public long getZobristKey() {
+        return zobristKey;
+    }
+
+    // --- Incremental Tracking ---
+
+    /**
+     * Counts a piece placed on a square in the key, piece counts, material,
+     * signature and king squares. Subclasses with their own storage call this
+     * from their setters.
+     *
+     * @param piece  the piece placed on the square
+     * @param square the square index (row * 8 + col)
+     */
+    protected void pieceAdded(ChessPiece piece, int square) {
+        int kind = kindOf(piece.getColor(), piece.getPieceType());
+        zobristKey ^= Zobrist.pieceKey(piece, square);
+        pieceCounts[kind]++;
+        material[piece.getColor().ordinal()] += piece.getPieceValue();
+        materialSignature += 1L << (kind * SIGNATURE_BITS);
+        if (piece.getPieceType() == PieceType.KING) {
+            kingSquares[piece.getColor().ordinal()] = square;
+        }
+    }
+
+    /**
+     * Takes a piece removed from a square out of the key, piece counts,
+     * material, signature and king squares. Subclasses with their own storage
+     * call this from their setters.
+     *
+     * @param piece  the piece removed from the square
+     * @param square the square index (row * 8 + col)
+     */
+    protected void pieceRemoved(ChessPiece piece, int square) {
+        int kind = kindOf(piece.getColor(), piece.getPieceType());
+        zobristKey ^= Zobrist.pieceKey(piece, square);
+        pieceCounts[kind]--;
+        material[piece.getColor().ordinal()] -= piece.getPieceValue();
+        materialSignature -= 1L << (kind * SIGNATURE_BITS);
+        if (piece.getPieceType() == PieceType.KING && kingSquares[piece.getColor().ordinal()] == square) {
+            kingSquares[piece.getColor().ordinal()] = NO_SQUARE;
+        }
+    }
+
+    /**
+     * Resets everything tracked to the values of an empty board. Used by
+     * subclasses when clearing the whole board at once.
+     */
+    protected void resetTracking() {
+        zobristKey = 0L;
+        Arrays.fill(pieceCounts, 0);
+        Arrays.fill(material, 0);
+        Arrays.fill(kingSquares, NO_SQUARE);
+        materialSignature = 0L;
+        touchAllRanks();
+    }
+
+    /**
+     * Copies everything tracked from another map with the same placement.
+     * Used by subclasses when copying the whole board at once.
+     *
+     * @param other the map whose placement was copied
+     */
+    protected void copyTrackingFrom(ChessPieceMap other) {
+        zobristKey = other.zobristKey;
+        System.arraycopy(other.pieceCounts, 0, pieceCounts, 0, pieceCounts.length);
+        System.arraycopy(other.material, 0, material, 0, material.length);
+        System.arraycopy(other.kingSquares, 0, kingSquares, 0, kingSquares.length);
+        materialSignature = other.materialSignature;
+    }
+
+    private static int kindOf(PieceColor color, PieceType type) {
+        return color.ordinal() * PIECE_TYPES + type.ordinal();
+    }
+
+    // --- Material ---
+
+    /**
+     * Returns the number of pieces of the given color and type on the board.
+     *
+     * @param color the color of the pieces
+     * @param type  the type of the pieces
+     * @return the piece count
+     */
+    public int getPieceCount(PieceColor color, PieceType type) {
+        return pieceCounts[kindOf(color, type)];
+    }
+
+    /**
+     * Returns the summed piece values of one side.
+     *
+     * @param color the side
+     * @return the side's material
+     */
+    public int getMaterial(PieceColor color) {
+        return material[color.ordinal()];
+    }
+
+    /**
+     * Returns the material signature of the board: the count of each of the
+     * twelve piece kinds packed into {@value #SIGNATURE_BITS} bits each, kings
+     * included. Two boards have the same signature exactly when they have the
+     * same pieces, wherever they stand, so a signature can be compared with
+     * {@link #materialSignature(String)} values for known endings.
+     *
+     * @return the material signature
+     */
+    public long getMaterialSignature() {
+        return materialSignature;
+    }
+
+    /**
+     * Builds the material signature of a set of pieces given as FEN letters,
+     * for example {@code "KNk"} for king and knight against king.
+     *
+     * @param pieces the pieces, upper case for white
+     * @return the signature a board with exactly those pieces has
+     * @throws IllegalArgumentException if a letter names no piece
+     */
+    public static long materialSignature(String pieces) {
+        long signature = 0L;
+        for (int i = 0; i < pieces.length(); i++) {
+            ChessPiece piece = FenCodec.pieceOf(pieces.charAt(i));
+            if (piece == null) {
+                throw new IllegalArgumentException("Unknown piece '" + pieces.charAt(i) + "' in " + pieces);
+            }
+            signature += 1L << (kindOf(piece.getColor(), piece.getPieceType()) * SIGNATURE_BITS);
+        }
+        return signature;
+    }
+
+    // --- Modification Counters ---
+
+    /**
+     * Returns a counter that changes whenever a piece is set or removed
+     * anywhere on the board, so a value derived from the placement can tell
+     * whether it is still current.
+     *
+     * @return the modification counter of the whole board
+     */
+    public int getVersion() {
+        return version;
+    }
+
+    /**
+     * Returns a counter that changes whenever a piece is set or removed on
+     * the given rank.
+     *
+     * @param row the rank index (0 to 7)
+     * @return the modification counter of the rank
+     */
+    public int getRankVersion(int row) {
+        return rankVersions[row];
+    }
+
+    /**
+     * Marks a rank as modified. Subclasses with their own storage call this
+     * from their setters.
+     *
+     * @param row the rank index (0 to 7)
+     */
+    protected void touchRank(int row) {
+        rankVersions[row]++;
+        version++;
+    }
+
+    /**
+     * Marks every rank as modified, for when the whole board is cleared.
+     */
+    protected void touchAllRanks() {
+        for (int row = 0; row < rankVersions.length; row++) {
+            touchRank(row);
+        }
     }
 
     // --- Board State Queries ---
@@ -63,19 +290,59 @@ public class ChessPieceMap {
     }
 
     /**
-     * Retrieves the position of the king for the specified color.
+     * Returns the squares occupied by pieces of the given color and type as a
+     * bitboard, with bit {@code row * 8 + col} set for each occupied square.
      *
-     * @param color the color of the king (white or black)
-     * @return the position of the king, or null if not found
+     * @param color the color of the pieces
+     * @param type  the type of the pieces
+     * @return the bitboard of matching pieces
      */
-    public ChessPosition getKingPosition(PieceColor color) {
+    public long getPieces(PieceColor color, PieceType type) {
+        long pieces = 0;
         for (Map.Entry<ChessPosition, ChessPiece> entry : pieceMap.entrySet()) {
             ChessPiece piece = entry.getValue();
-            if (piece instanceof King && piece.getColor() == color) {
-                return entry.getKey();
+            if (piece != null && piece.getColor() == color && piece.getPieceType() == type) {
+                pieces |= 1L << entry.getKey().index();
             }
         }
-        return null;
+        return pieces;
+    }
+
+    /**
+     * Returns the squares occupied by pieces of the given color as a bitboard,
+     * with bit {@code row * 8 + col} set for each occupied square.
+     *
+     * @param color the color of the pieces
+     * @return the occupancy bitboard of the color's pieces
+     */
+    public long getOccupancy(PieceColor color) {
+        long occupancy = 0;
+        for (Map.Entry<ChessPosition, ChessPiece> entry : pieceMap.entrySet()) {
+            if (entry.getValue() != null && entry.getValue().getColor() == color) {
+                occupancy |= 1L << entry.getKey().index();
+            }
+        }
+        return occupancy;
+    }
+
+    /**
+     * Returns the squares occupied by any piece as a bitboard.
+     *
+     * @return the occupancy bitboard of all pieces
+     */
+    public long getOccupancy() {
+        return getOccupancy(PieceColor.WHITE) | getOccupancy(PieceColor.BLACK);
+    }
+
+    /**
+     * Retrieves the position of the king for the specified color.
+     *
+     * @param color the color of the king (white or black)
+     * @return the position of the king, or null if not found
+     */
+    public ChessPosition getKingPosition(PieceColor color) {
+        int square = kingSquares[color.ordinal()];
+        return square == NO_SQUARE ? null : ChessPosition.of(square);
     }
 
     /**
@@ -85,13 +352,8 @@ public class ChessPieceMap {
      * @return the king piece, or null if not found
      */
     public King getKing(PieceColor color) {
-        for (Map.Entry<ChessPosition, ChessPiece> entry : pieceMap.entrySet()) {
-            ChessPiece piece = entry.getValue();
-            if (piece instanceof King && piece.getColor() == color) {
-                return (King) piece;
-            }
-        }
-        return null;
+        ChessPosition position = getKingPosition(color);
+        return position == null ? null : (King) getPiece(position);
     }
 
     /**
@@ -100,19 +362,7 @@ public class ChessPieceMap {
      * @return the material advantage (positive if white is ahead, negative if black is ahead)
      */
     public int getMaterialAdvantage() {
-        int whiteMaterial = 0;
-        int blackMaterial = 0;
-        for (ChessPiece piece : pieceMap.values()) {
-            if (piece == null) {
-                continue;
-            }
-            if (piece.getColor().isWhite()) {
-                whiteMaterial += piece.getPieceValue();
-            } else {
-                blackMaterial += piece.getPieceValue();
-            }
-        }
-        return whiteMaterial - blackMaterial;
+        return material[PieceColor.WHITE.ordinal()] - material[PieceColor.BLACK.ordinal()];
     }
 
     // --- Board Manipulation ---
@@ -122,19 +372,19 @@ public class ChessPieceMap {
      */
     public void clear() {
         pieceMap.clear();
+        resetTracking();
     }
 
     /**
-     * Creates a deep copy of the current piece map.
+     * Creates a copy of the current piece map. Positions and pieces are
+     * immutable and shared, so only the placement itself is copied.
      *
-     * @return a new ChessPieceMap with copied positions and pieces
+     * @return a new ChessPieceMap with the same placement
      */
     public ChessPieceMap deepCopy() {
         ChessPieceMap copy = new ChessPieceMap();
         for (Map.Entry<ChessPosition, ChessPiece> entry : pieceMap.entrySet()) {
-            ChessPosition positionCopy = entry.getKey().deepCopy();
-            ChessPiece pieceCopy = entry.getValue() != null ? entry.getValue().deepCopy() : null;
-            copy.setPiece(positionCopy, pieceCopy);
+            copy.setPiece(entry.getKey(), entry.getValue());
         }
         return copy;
     }
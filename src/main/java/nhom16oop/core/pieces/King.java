@@ -4,119 +4,112 @@ import java.util.ArrayList;
 import java.util.List;
 
 import nhom16oop.constants.PieceColor;
+import nhom16oop.constants.PieceType;
+import nhom16oop.core.model.BoardState;
 import nhom16oop.core.model.ChessMove;
 import nhom16oop.core.model.ChessPiece;
 import nhom16oop.core.model.ChessPosition;
+import nhom16oop.core.movegen.Attacks;
 import nhom16oop.utils.BoardUtils;
 
-public class King extends ChessPiece {
-    {
-        this.pieceValue = Integer.MAX_VALUE;
+public final class King extends ChessPiece {
+
+    public static final King WHITE = new King(PieceColor.WHITE);
+    public static final King BLACK = new King(PieceColor.BLACK);
+
+    private King(PieceColor color) {
+        super(color, Integer.MAX_VALUE);
     }
 
-    public King(PieceColor color) {
-        super(color, color.isWhite() ? "white_king.png" : "black_king.png");
+    public static King of(PieceColor color) {
+        return color.isWhite() ? WHITE : BLACK;
     }
 
     @Override
     public List<ChessMove> generateValidMoves(ChessPosition start, ChessPieceMap pieceMap) {
-        List<ChessMove> moves = new ArrayList<>();
-        int startRow = start.row();
-        int startCol = start.col();
-        PieceColor color = getColor();
-
-        int[][] directions = {{0, 1}, {0, -1}, {1, 0}, {-1, 0}, {1, 1}, {1, -1}, {-1, 1}, {-1, -1}};
-        for (int[] dir : directions) {
-            int newCol = startCol + dir[0];
-            int newRow = startRow + dir[1];
-            if (BoardUtils.isWithinBoard(newCol, newRow)) {
-                ChessPosition pos = new ChessPosition(newCol, newRow);
-                if (!pieceMap.hasPiece(pos) || (pieceMap.hasPiece(pos) && pieceMap.getPiece(pos).getColor() != color)) {
-                    moves.add(new ChessMove(start, pos));
-                }
-            }
-        }
+        return withoutSelfCheck(movesTo(start, Attacks.kingAttacks(start.index()) & ~pieceMap.getOccupancy(getColor())), pieceMap);
+    }
 
-        List<ChessMove> validMoves = new ArrayList<>();
+    /**
+     * Generates the king's moves including castling, which is allowed only
+     * while the board state holds the matching castling right.
+     *
+     * @param start      the starting position of the king
+     * @param boardState the current position
+     * @return a list of valid moves
+     */
+    @Override
+    public List<ChessMove> generateValidMoves(ChessPosition start, BoardState boardState) {
+        ChessPieceMap pieceMap = boardState.getChessPieceMap();
+        List<ChessMove> moves = movesTo(start, Attacks.kingAttacks(start.index()) & ~pieceMap.getOccupancy(getColor()));
 
-        if (canCastleKingside(start, pieceMap)) {
-            moves.add(new ChessMove(start, new ChessPosition(6, start.row())));
+        if (canCastleKingside(start, boardState)) {
+            moves.add(new ChessMove(start, ChessPosition.of(6, start.row())));
         }
 
-        if (canCastleQueenside(start, pieceMap)) {
-            moves.add(new ChessMove(start, new ChessPosition(2, start.row())));
+        if (canCastleQueenside(start, boardState)) {
+            moves.add(new ChessMove(start, ChessPosition.of(2, start.row())));
         }
 
+        return withoutSelfCheck(moves, pieceMap);
+    }
+
+    private List<ChessMove> withoutSelfCheck(List<ChessMove> moves, ChessPieceMap pieceMap) {
+        List<ChessMove> validMoves = new ArrayList<>();
         for (ChessMove move : moves) {
-            ChessPieceMap tempMap = BoardUtils.simulateMove(move, pieceMap);
-            if (!BoardUtils.isKingInCheck(color, tempMap)) {
+            if (!BoardUtils.leavesKingInCheck(move, pieceMap)) {
                 validMoves.add(move);
             }
         }
-
         return validMoves;
     }
 
-    public boolean canCastleKingside(ChessPosition start, ChessPieceMap pieceMap) {
-        if (BoardUtils.isKingInCheck(getColor(), pieceMap)) {
-            return false;
-        }
-
-        if (hasMoved()) {
-            return false;
-        }
-
-        int row = start.row();
-        ChessPosition rookPos = new ChessPosition(7, row);
-        ChessPiece rook = pieceMap.getPiece(rookPos);
-
-        if (!(rook instanceof Rook) || rook.hasMoved()) {
-            return false;
-        }
-
-        for (int col = start.col() + 1; col < 7; col++) {
-            if (pieceMap.hasPiece(new ChessPosition(col, row))) {
-                return false;
-            }
-        }
-
-        for (int col = start.col(); col <= start.col() + 2; col++) {
-            ChessPosition pos = new ChessPosition(col, row);
-            ChessPieceMap tempMap = BoardUtils.simulateMove(new ChessMove(start, pos), pieceMap);
-            if (BoardUtils.isKingInCheck(getColor(), tempMap)) {
-                return false;
-            }
-        }
-        return true;
+    /**
+     * Checks whether this king may castle kingside: the board state holds the
+     * kingside castling right, the king and rook stand on their home squares,
+     * the squares between them are empty, and the king does not start on, pass
+     * through or land on an attacked square.
+     *
+     * @param start      the king's position
+     * @param boardState the current position
+     * @return true if castling kingside is allowed
+     */
+    public boolean canCastleKingside(ChessPosition start, BoardState boardState) {
+        boolean hasRight = getColor().isWhite() ? boardState.canWhiteCastleKingside() : boardState.canBlackCastleKingside();
+        return hasRight && canCastle(start, 7, boardState.getChessPieceMap());
     }
 
-    public boolean canCastleQueenside(ChessPosition start, ChessPieceMap pieceMap) {
-        if (BoardUtils.isKingInCheck(getColor(), pieceMap)) {
-            return false;
-        }
-
-        if (hasMoved()) {
-            return false;
-        }
-
-        int row = start.row();
-        ChessPosition rookPos = new ChessPosition(0, row);
-        ChessPiece rook = pieceMap.getPiece(rookPos);
+    /**
+     * Checks whether this king may castle queenside: the board state holds the
+     * queenside castling right, the king and rook stand on their home squares,
+     * the squares between them are empty, and the king does not start on, pass
+     * through or land on an attacked square.
+     *
+     * @param start      the king's position
+     * @param boardState the current position
+     * @return true if castling queenside is allowed
+     */
+    public boolean canCastleQueenside(ChessPosition start, BoardState boardState) {
+        boolean hasRight = getColor().isWhite() ? boardState.canWhiteCastleQueenside() : boardState.canBlackCastleQueenside();
+        return hasRight && canCastle(start, 0, boardState.getChessPieceMap());
+    }
 
-        if (!(rook instanceof Rook) || rook.hasMoved()) {
+    private boolean canCastle(ChessPosition start, int rookCol, ChessPieceMap pieceMap) {
+        int row = getColor().isWhite() ? 0 : 7;
+        if (start.col() != 4 || start.row() != row || pieceMap.getPiece(ChessPosition.of(rookCol, row)) != Rook.of(getColor())) {
             return false;
         }
 
-        for (int col = start.col() - 1; col > 0; col--) {
-            if (pieceMap.hasPiece(new ChessPosition(col, row))) {
+        int step = rookCol > start.col() ? 1 : -1;
+        for (int col = start.col() + step; col != rookCol; col += step) {
+            if (pieceMap.hasPiece(ChessPosition.of(col, row))) {
                 return false;
             }
         }
 
-        for (int col = start.col(); col >= start.col() - 2; col--) {
-            ChessPosition pos = new ChessPosition(col, row);
-            ChessPieceMap tempMap = BoardUtils.simulateMove(new ChessMove(start, pos), pieceMap);
-            if (BoardUtils.isKingInCheck(getColor(), tempMap)) {
+        PieceColor opponentColor = getColor().getOpponent();
+        for (int col = start.col(); col != start.col() + 3 * step; col += step) {
+            if (BoardUtils.isSquareAttacked(ChessPosition.of(col, row), opponentColor, pieceMap)) {
                 return false;
             }
         }
@@ -124,15 +117,12 @@ public class King extends ChessPiece {
     }
 
     @Override
-    public String getPieceNotation() {
-        return this.getColor().isWhite() ? "K" : "k";
+    public PieceType getPieceType() {
+        return PieceType.KING;
     }
 
     @Override
-    public ChessPiece deepCopy() {
-        King copy = new King(this.getColor());
-        copy.pieceValue = this.pieceValue;
-        copy.setHasMoved(this.hasMoved());
-        return copy;
+    public String getPieceNotation() {
+        return this.getColor().isWhite() ? "K" : "k";
     }
 }
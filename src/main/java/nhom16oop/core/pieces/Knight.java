@@ -1,55 +1,39 @@
 package nhom16oop.core.pieces;
 
 import nhom16oop.constants.PieceColor;
+import nhom16oop.constants.PieceType;
 import nhom16oop.core.model.ChessMove;
 import nhom16oop.core.model.ChessPiece;
 import nhom16oop.core.model.ChessPosition;
-import nhom16oop.utils.BoardUtils;
+import nhom16oop.core.movegen.Attacks;
 
-import java.util.ArrayList;
 import java.util.List;
 
-public class Knight extends ChessPiece {
-    {
-        this.pieceValue = 3;
+public final class Knight extends ChessPiece {
+
+    public static final Knight WHITE = new Knight(PieceColor.WHITE);
+    public static final Knight BLACK = new Knight(PieceColor.BLACK);
+
+    private Knight(PieceColor color) {
+        super(color, 3);
     }
 
-    public Knight(PieceColor color) {
-        super(color, color.isWhite() ? "white_knight.png" : "black_knight.png");
+    public static Knight of(PieceColor color) {
+        return color.isWhite() ? WHITE : BLACK;
     }
 
     @Override
     public List<ChessMove> generateValidMoves(ChessPosition start, ChessPieceMap pieceMap) {
-        List<ChessMove> moves = new ArrayList<>();
-        int startRow = start.row();
-        int startCol = start.col();
-
-        int[][] offsets = {{1, 2}, {1, -2}, {-1, 2}, {-1, -2}, {2, 1}, {2, -1}, {-2, 1}, {-2, -1}};
-
-        for (int[] offset : offsets) {
-            int newCol = startCol + offset[0];
-            int newRow = startRow + offset[1];
-            if (BoardUtils.isWithinBoard(newCol, newRow)) {
-                ChessPosition pos = new ChessPosition(newCol, newRow);
-                if (!pieceMap.hasPiece(pos) || (pieceMap.hasPiece(pos) && pieceMap.getPiece(pos).getColor() != getColor())) {
-                    moves.add(new ChessMove(start, pos));
-                }
-            }
-        }
-
-        return moves;
+        return movesTo(start, Attacks.knightAttacks(start.index()) & ~pieceMap.getOccupancy(getColor()));
     }
 
     @Override
-    public String getPieceNotation() {
-        return this.getColor().isWhite() ? "N" : "n";
+    public PieceType getPieceType() {
+        return PieceType.KNIGHT;
     }
 
     @Override
-    public ChessPiece deepCopy() {
-        Knight copy = new Knight(this.getColor());
-        copy.pieceValue = this.pieceValue;
-        copy.setHasMoved(this.hasMoved());
-        return copy;
+    public String getPieceNotation() {
+        return this.getColor().isWhite() ? "N" : "n";
     }
 }
@@ -1,31 +1,27 @@
 package nhom16oop.core.pieces;
 
 import nhom16oop.constants.PieceColor;
+import nhom16oop.constants.PieceType;
 import nhom16oop.core.model.BoardState;
 import nhom16oop.core.model.ChessMove;
 import nhom16oop.core.model.ChessPiece;
 import nhom16oop.core.model.ChessPosition;
-import nhom16oop.utils.BoardUtils;
+import nhom16oop.core.movegen.Attacks;
 
 import java.util.ArrayList;
 import java.util.List;
 
-public class Pawn extends ChessPiece {
+public final class Pawn extends ChessPiece {
 
-    private final BoardState boardState;
+    public static final Pawn WHITE = new Pawn(PieceColor.WHITE);
+    public static final Pawn BLACK = new Pawn(PieceColor.BLACK);
 
-    {
-        this.pieceValue = 1;
+    private Pawn(PieceColor color) {
+        super(color, 1);
     }
 
-    public Pawn(PieceColor color, BoardState boardState) {
-        super(color, color.isWhite() ? "white_pawn.png" : "black_pawn.png");
-        this.boardState = boardState;
-    }
-
-    public Pawn(PieceColor color) {
-        super(color, color.isWhite() ? "white_pawn.png" : "black_pawn.png");
-        this.boardState = null;
+    public static Pawn of(PieceColor color) {
+        return color.isWhite() ? WHITE : BLACK;
     }
 
     @Override
@@ -38,11 +34,11 @@ public class Pawn extends ChessPiece {
         // Move forward
         int newRow = startRow + direction;
         if (newRow >= 0 && newRow <= 7) {
-            ChessPosition forward = new ChessPosition(startCol, newRow);
+            ChessPosition forward = ChessPosition.of(startCol, newRow);
             if (!pieceMap.hasPiece(forward)) {
                 moves.add(new ChessMove(start, forward));
-                if (!hasMoved() && ((getColor().isWhite() && startRow == 1) || (getColor().isBlack() && startRow == 6))) {
-                    ChessPosition twoForward = new ChessPosition(startCol, startRow + 2 * direction);
+                if ((getColor().isWhite() && startRow == 1) || (getColor().isBlack() && startRow == 6)) {
+                    ChessPosition twoForward = ChessPosition.of(startCol, startRow + 2 * direction);
                     if (!pieceMap.hasPiece(twoForward)) {
                         moves.add(new ChessMove(start, twoForward));
                     }
@@ -51,39 +47,37 @@ public class Pawn extends ChessPiece {
         }
 
         // Capture opponent's piece
-        int[] captureCols = {startCol - 1, startCol + 1};
-        for (int col : captureCols) {
-            if (BoardUtils.isWithinBoard(col, newRow)) {
-                ChessPosition capturePos = new ChessPosition(col, newRow);
-                if (pieceMap.hasPiece(capturePos) && pieceMap.getPiece(capturePos).getColor() != getColor()) {
-                    moves.add(new ChessMove(start, capturePos));
-                }
-            }
-        }
+        long captures = Attacks.pawnAttacks(getColor(), start.index()) & pieceMap.getOccupancy(getColor().getOpponent());
+        moves.addAll(movesTo(start, captures));
 
-        // En passant
-        ChessMove lastMove = boardState.getLastMove();
-        if (lastMove != null) {
-            ChessPiece lastMovedPiece = pieceMap.getPiece(lastMove.end());
-            if (lastMovedPiece instanceof Pawn && Math.abs(lastMove.start().row() - lastMove.end().row()) == 2 && lastMove.end().row() == startRow && Math.abs(lastMove.end().col() - startCol) == 1) {
-                ChessPosition enPassantTarget = new ChessPosition(lastMove.end().col(), startRow + direction);
-                moves.add(new ChessMove(start, enPassantTarget));
-            }
-        }
+        return moves;
+    }
 
+    /**
+     * Generates the pawn's moves including an en passant capture onto the
+     * board state's en passant target square.
+     *
+     * @param start      the starting position of the pawn
+     * @param boardState the current position
+     * @return a list of valid moves
+     */
+    @Override
+    public List<ChessMove> generateValidMoves(ChessPosition start, BoardState boardState) {
+        List<ChessMove> moves = generateValidMoves(start, boardState.getChessPieceMap());
+        ChessPosition enPassantTarget = boardState.getEnPassantTargetSquare();
+        if (enPassantTarget != null && (Attacks.pawnAttacks(getColor(), start.index()) & (1L << enPassantTarget.index())) != 0) {
+            moves.add(new ChessMove(start, enPassantTarget));
+        }
         return moves;
     }
 
     @Override
-    public String getPieceNotation() {
-        return this.getColor().isWhite() ? "P" : "p";
+    public PieceType getPieceType() {
+        return PieceType.PAWN;
     }
 
     @Override
-    public ChessPiece deepCopy() {
-        Pawn copy = new Pawn(this.getColor(), this.boardState);
-        copy.pieceValue = this.pieceValue;
-        copy.setHasMoved(this.hasMoved());
-        return copy;
+    public String getPieceNotation() {
+        return this.getColor().isWhite() ? "P" : "p";
     }
 }
@@ -1,65 +1,40 @@
 package nhom16oop.core.pieces;
 
 import nhom16oop.constants.PieceColor;
+import nhom16oop.constants.PieceType;
 import nhom16oop.core.model.ChessMove;
 import nhom16oop.core.model.ChessPiece;
 import nhom16oop.core.model.ChessPosition;
-import nhom16oop.utils.BoardUtils;
+import nhom16oop.core.movegen.Attacks;
 
-import java.util.ArrayList;
 import java.util.List;
 
-public class Queen extends ChessPiece {
+public final class Queen extends ChessPiece {
 
-    {
-        this.pieceValue = 9;
+    public static final Queen WHITE = new Queen(PieceColor.WHITE);
+    public static final Queen BLACK = new Queen(PieceColor.BLACK);
+
+    private Queen(PieceColor color) {
+        super(color, 9);
     }
 
-    public Queen(PieceColor color) {
-        super(color, color.isWhite() ? "white_queen.png" : "black_queen.png");
+    public static Queen of(PieceColor color) {
+        return color.isWhite() ? WHITE : BLACK;
     }
 
     @Override
     public List<ChessMove> generateValidMoves(ChessPosition start, ChessPieceMap pieceMap) {
-        List<ChessMove> moves = new ArrayList<>();
-        int startRow = start.row();
-        int startCol = start.col();
-
-        int[][] directions = {{0, 1}, {0, -1}, {1, 0}, {-1, 0}, {1, 1}, {1, -1}, {-1, 1}, {-1, -1}};
-
-        for (int[] dir : directions) {
-            int dCol = dir[0];
-            int dRow = dir[1];
-            int newCol = startCol + dCol;
-            int newRow = startRow + dRow;
-
-            while (BoardUtils.isWithinBoard(newCol, newRow)) {
-                ChessPosition pos = new ChessPosition(newCol, newRow);
-                if (!pieceMap.hasPiece(pos)) {
-                    moves.add(new ChessMove(start, pos));
-                } else {
-                    if (pieceMap.getPiece(pos).getColor() != getColor()) {
-                        moves.add(new ChessMove(start, pos));
-                    }
-                    break;
-                }
-                newCol += dCol;
-                newRow += dRow;
-            }
-        }
-        return moves;
+        long attacks = Attacks.attacksFrom(PieceType.QUEEN, start.index(), pieceMap.getOccupancy());
+        return movesTo(start, attacks & ~pieceMap.getOccupancy(getColor()));
     }
 
     @Override
-    public String getPieceNotation() {
-        return this.getColor().isWhite() ? "Q" : "q";
+    public PieceType getPieceType() {
+        return PieceType.QUEEN;
     }
 
     @Override
-    public ChessPiece deepCopy() {
-        Queen copy = new Queen(this.getColor());
-        copy.pieceValue = this.pieceValue;
-        copy.setHasMoved(this.hasMoved());
-        return copy;
+    public String getPieceNotation() {
+        return this.getColor().isWhite() ? "Q" : "q";
     }
 }
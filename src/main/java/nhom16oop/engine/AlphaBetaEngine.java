@@ -0,0 +1,576 @@
+package nhom16oop.engine;
+
+import nhom16oop.constants.GameConstants;
+import nhom16oop.core.model.BoardState;
+import nhom16oop.core.model.ChessPiece;
+import nhom16oop.core.model.FenCodec;
+import nhom16oop.core.movegen.LegalMoveGenerator;
+import nhom16oop.core.movegen.Move;
+import nhom16oop.core.movegen.MoveList;
+import nhom16oop.core.pieces.BitboardPieceMap;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Arrays;
+
+/**
+ * An in-process engine: iterative deepening alpha-beta search with principal
+ * variation search (PVS) and a quiescence search over captures and
+ * promotions, evaluated by {@link Evaluator}. Moves come from the project's
+ * {@link LegalMoveGenerator} and are made and taken back on a private copy of
+ * the position, so no external binary is needed.
+ * <p>
+ * Each iteration searches one ply deeper than the last, starting with the
+ * previous best move. After the first move of a node, the others are searched
+ * with a null window and only searched again with the full window if they
+ * beat it. Captures are tried first, most valuable victim and least valuable
+ * attacker first, then promotions, the two killer moves of the ply and the
+ * remaining quiet moves by history score. A side in check is searched one
+ * ply deeper.
+ * <p>
+ * The search stops at the depth, node or time limit, whichever comes first,
+ * and returns the best move of the last finished iteration. Repetitions
+ * within the searched line, or of game positions passed to
+ * {@link #bestMove(BoardState, long[], SearchLimits)}, and the fifty-move
+ * rule score as draws.
+ * <p>
+ * Results are kept in a {@link TranspositionTable}, which may be shared with
+ * other engines searching at the same time. A stored result deep enough for
+ * the node ends its search when its bound allows, and a stored best move is
+ * always tried first.
+ */
+public final class AlphaBetaEngine implements Engine {
+
+    private static final Logger logger = LoggerFactory.getLogger(AlphaBetaEngine.class);
+
+    /** Score of giving mate on the next move; mate in more plies scores less. */
+    public static final int MATE_SCORE = 32000;
+    /** Time budget used when a search is given no limits at all. */
+    public static final long DEFAULT_MOVE_TIME_MILLIS = 1000;
+    /** Transposition table size used by {@link #AlphaBetaEngine()}. */
+    public static final int DEFAULT_HASH_MEGABYTES = 64;
+
+    private static final int INFINITY = MATE_SCORE + 1;
+    private static final int MAX_PLY = 64;
+    private static final int MAX_MOVES = 256;
+    private static final int NO_MOVE = 0;
+    private static final long[] NO_KEYS = new long[0];
+    private static final int LIMIT_CHECK_MASK = 1023;
+
+    private static final int HASH_MOVE_SCORE = 2_000_000;
+    private static final int CAPTURE_SCORE = 1_000_000;
+    private static final int PROMOTION_SCORE = 900_000;
+    private static final int FIRST_KILLER_SCORE = 800_000;
+    private static final int SECOND_KILLER_SCORE = 700_000;
+
+    private final MoveList moveList = new MoveList();
+    private final int[][] plyMoves = new int[MAX_PLY + 1][MAX_MOVES];
+    private final int[][] plyScores = new int[MAX_PLY + 1][MAX_MOVES];
+    private final int[][] killers = new int[MAX_PLY + 1][2];
+    private final int[] history = new int[64 * 64];
+    private final long[] pathKeys = new long[MAX_PLY + 2];
+    private final int[] hashMoves = new int[MAX_PLY + 1];
+    private final TranspositionTable table;
+
+    private long[] gameKeys = NO_KEYS;
+    private BoardState board;
+    private BitboardPieceMap pieces;
+    private long deadline;
+    private long nodeLimit;
+    private long nodes;
+    private long hashProbes;
+    private long hashHits;
+    private int tableAge;
+    private boolean aborted;
+    private int iterationBestMove;
+
+    private int lastScore;
+    private int lastDepth;
+    private long lastNodes;
+    private long lastHashProbes;
+    private long lastHashHits;
+
+    /**
+     * Constructs an engine with its own transposition table of
+     * {@link #DEFAULT_HASH_MEGABYTES}.
+     */
+    public AlphaBetaEngine() {
+        this(new TranspositionTable(DEFAULT_HASH_MEGABYTES));
+    }
+
+    /**
+     * Constructs an engine that uses the given transposition table, which
+     * may be shared with other engines.
+     *
+     * @param table the transposition table
+     */
+    public AlphaBetaEngine(TranspositionTable table) {
+        this.table = table;
+    }
+
+    @Override
+    public void start() {
+        logger.debug("Java alpha-beta engine ready");
+    }
+
+    @Override
+    public String bestMove(BoardState position, SearchLimits limits) {
+        return bestMove(position, NO_KEYS, limits);
+    }
+
+    @Override
+    public String bestMove(BoardState position, long[] gameKeys, SearchLimits limits) {
+        int move = search(position, gameKeys, limits);
+        return move == NO_MOVE ? null : Move.toUci(move);
+    }
+
+    @Override
+    public void stop() {
+        logger.debug("Java alpha-beta engine stopped");
+    }
+
+    @Override
+    public String getName() {
+        return "Java alpha-beta";
+    }
+
+    /**
+     * Searches a position within the given limits.
+     *
+     * @param position the position to search, not changed by the search
+     * @param limits   the search limits; with none, the search runs for
+     *                 {@link #DEFAULT_MOVE_TIME_MILLIS}
+     * @return the best packed move found, or 0 if the side to move has no
+     *         legal move
+     */
+    public int search(BoardState position, SearchLimits limits) {
+        return search(position, NO_KEYS, limits);
+    }
+
+    /**
+     * Searches a position reached in a game within the given limits. A line
+     * that returns to one of the earlier game positions scores as a draw.
+     *
+     * @param position the position to search, not changed by the search
+     * @param gameKeys the Zobrist keys of the game positions before this
+     *                 one, back to the last irreversible move, oldest first
+     * @param limits   the search limits; with none, the search runs for
+     *                 {@link #DEFAULT_MOVE_TIME_MILLIS}
+     * @return the best packed move found, or 0 if the side to move has no
+     *         legal move
+     */
+    public synchronized int search(BoardState position, long[] gameKeys, SearchLimits limits) {
+        if (limits.isUnbounded()) {
+            limits = SearchLimits.ofMoveTime(DEFAULT_MOVE_TIME_MILLIS);
+        }
+        long startTime = System.nanoTime();
+        // Search a bitboard copy, which also keeps the caller's board untouched
+        board = FenCodec.decode(position.getFEN());
+        pieces = (BitboardPieceMap) board.getChessPieceMap();
+        deadline = limits.moveTimeMillis() > 0 ? startTime + limits.moveTimeMillis() * 1_000_000L : Long.MAX_VALUE;
+        nodeLimit = limits.nodes() > 0 ? limits.nodes() : Long.MAX_VALUE;
+        this.gameKeys = gameKeys;
+        nodes = 0;
+        hashProbes = 0;
+        hashHits = 0;
+        aborted = false;
+        for (int[] plyKillers : killers) {
+            Arrays.fill(plyKillers, NO_MOVE);
+        }
+        Arrays.fill(history, 0);
+        Arrays.fill(hashMoves, NO_MOVE);
+        tableAge = table.newSearch();
+        lastScore = 0;
+        lastDepth = 0;
+        lastNodes = 0;
+        lastHashProbes = 0;
+        lastHashHits = 0;
+
+        LegalMoveGenerator generator = new LegalMoveGenerator(board);
+        moveList.clear();
+        generator.generateLegalMoves(moveList);
+        int rootCount = moveList.size();
+        if (rootCount == 0) {
+            return NO_MOVE;
+        }
+        int[] rootMoves = plyMoves[0];
+        for (int i = 0; i < rootCount; i++) {
+            rootMoves[i] = moveList.get(i);
+        }
+        scoreMoves(0, rootCount);
+        sortAll(rootMoves, plyScores[0], rootCount);
+
+        int bestMove = rootMoves[0];
+        int maxDepth = limits.depth() > 0 ? Math.min(limits.depth(), MAX_PLY - 1) : MAX_PLY - 1;
+        pathKeys[0] = board.getZobristKey();
+        for (int depth = 1; depth <= maxDepth; depth++) {
+            int score = searchRoot(rootCount, depth);
+            if (aborted) {
+                break;
+            }
+            bestMove = iterationBestMove;
+            moveToFront(rootMoves, rootCount, bestMove);
+            lastScore = score;
+            lastDepth = depth;
+            logger.debug("Depth {}: {} score {} nodes {}", depth, Move.toUci(bestMove), score, nodes);
+            if (rootCount == 1 || Math.abs(score) >= MATE_SCORE - MAX_PLY) {
+                break;
+            }
+        }
+        lastNodes = nodes;
+        lastHashProbes = hashProbes;
+        lastHashHits = hashHits;
+        logger.info("Searched depth {} in {} ms, {} nodes, best {} score {}, hash hit rate {}%, hash full {} permille",
+                lastDepth, (System.nanoTime() - startTime) / 1_000_000, nodes, Move.toUci(bestMove), lastScore,
+                hashProbes == 0 ? 0 : hashHits * 100 / hashProbes, table.getFillPermille());
+        board = null;
+        pieces = null;
+        this.gameKeys = NO_KEYS;
+        return bestMove;
+    }
+
+    public int getLastScore() {
+        return lastScore;
+    }
+
+    public int getLastDepth() {
+        return lastDepth;
+    }
+
+    public long getLastNodes() {
+        return lastNodes;
+    }
+
+    /**
+     * Returns the share of transposition table probes of the last search
+     * that found their position.
+     *
+     * @return the hit rate between 0 and 1, 0 if the table was not probed
+     */
+    public double getLastHashHitRate() {
+        return lastHashProbes == 0 ? 0 : (double) lastHashHits / lastHashProbes;
+    }
+
+    public TranspositionTable getTable() {
+        return table;
+    }
+
+    // --- Search ---
+
+    private int searchRoot(int moveCount, int depth) {
+        int[] moves = plyMoves[0];
+        int alpha = -INFINITY;
+        int bestScore = -INFINITY;
+        for (int i = 0; i < moveCount; i++) {
+            int move = moves[i];
+            long undo = board.makeMove(move);
+            pathKeys[1] = board.getZobristKey();
+            int score;
+            if (i == 0) {
+                score = -negamax(depth - 1, -INFINITY, -alpha, 1);
+            } else {
+                score = -negamax(depth - 1, -alpha - 1, -alpha, 1);
+                if (score > alpha && !aborted) {
+                    score = -negamax(depth - 1, -INFINITY, -alpha, 1);
+                }
+            }
+            board.unmakeMove(move, undo);
+            if (aborted) {
+                break;
+            }
+            if (score > bestScore) {
+                bestScore = score;
+                iterationBestMove = move;
+                alpha = Math.max(alpha, score);
+            }
+        }
+        return bestScore;
+    }
+
+    private int negamax(int depth, int alpha, int beta, int ply) {
+        if (isDraw(ply)) {
+            return 0;
+        }
+        if (depth <= 0 || ply >= MAX_PLY) {
+            return quiescence(alpha, beta, ply);
+        }
+        if (countNode()) {
+            return 0;
+        }
+
+        long key = pathKeys[ply];
+        long entry = table.probe(key);
+        hashProbes++;
+        if (entry != 0) {
+            hashHits++;
+        }
+        hashMoves[ply] = TranspositionTable.move(entry);
+        if (entry != 0 && TranspositionTable.depth(entry) >= depth) {
+            int score = scoreFromTable(TranspositionTable.score(entry), ply);
+            int bound = TranspositionTable.bound(entry);
+            if (bound == TranspositionTable.EXACT
+                    || (bound == TranspositionTable.LOWER && score >= beta)
+                    || (bound == TranspositionTable.UPPER && score <= alpha)) {
+                return score;
+            }
+        }
+
+        LegalMoveGenerator generator = new LegalMoveGenerator(board);
+        int moveCount = generate(generator, ply, false);
+        boolean inCheck = generator.isInCheck();
+        if (moveCount == 0) {
+            return inCheck ? -MATE_SCORE + ply : 0;
+        }
+        int storedDepth = depth;
+        if (inCheck) {
+            depth++;
+        }
+        int originalAlpha = alpha;
+        int bestMove = NO_MOVE;
+
+        int bestScore = -INFINITY;
+        for (int i = 0; i < moveCount; i++) {
+            int move = selectNext(ply, i, moveCount);
+            long undo = board.makeMove(move);
+            pathKeys[ply + 1] = board.getZobristKey();
+            int score;
+            if (i == 0) {
+                score = -negamax(depth - 1, -beta, -alpha, ply + 1);
+            } else {
+                score = -negamax(depth - 1, -alpha - 1, -alpha, ply + 1);
+                if (score > alpha && score < beta && !aborted) {
+                    score = -negamax(depth - 1, -beta, -alpha, ply + 1);
+                }
+            }
+            board.unmakeMove(move, undo);
+            if (aborted) {
+                return 0;
+            }
+            if (score > bestScore) {
+                bestScore = score;
+                bestMove = move;
+                if (score > alpha) {
+                    alpha = score;
+                    if (alpha >= beta) {
+                        if (!isTactical(move)) {
+                            storeKiller(ply, move);
+                            history[historyIndex(move)] += depth * depth;
+                        }
+                        break;
+                    }
+                }
+            }
+        }
+        int bound = bestScore >= beta ? TranspositionTable.LOWER
+                : bestScore > originalAlpha ? TranspositionTable.EXACT : TranspositionTable.UPPER;
+        table.store(key, bestMove, scoreToTable(bestScore, ply), storedDepth, bound, tableAge);
+        return bestScore;
+    }
+
+    /**
+     * Mate scores count plies from the root; the table stores them counted
+     * from the node instead, so they stay right when the position is reached
+     * at another ply.
+     */
+    private static int scoreToTable(int score, int ply) {
+        if (score >= MATE_SCORE - MAX_PLY) {
+            return score + ply;
+        }
+        return score <= -MATE_SCORE + MAX_PLY ? score - ply : score;
+    }
+
+    private static int scoreFromTable(int score, int ply) {
+        if (score >= MATE_SCORE - MAX_PLY) {
+            return score - ply;
+        }
+        return score <= -MATE_SCORE + MAX_PLY ? score + ply : score;
+    }
+
+    private int quiescence(int alpha, int beta, int ply) {
+        if (countNode()) {
+            return 0;
+        }
+        if (ply >= MAX_PLY) {
+            return Evaluator.evaluate(board);
+        }
+
+        LegalMoveGenerator generator = new LegalMoveGenerator(board);
+        boolean inCheck = generator.isInCheck();
+        int bestScore = -INFINITY;
+        if (!inCheck) {
+            int standPat = Evaluator.evaluate(board);
+            if (standPat >= beta) {
+                return standPat;
+            }
+            alpha = Math.max(alpha, standPat);
+            bestScore = standPat;
+        }
+
+        // In check every evasion is searched, otherwise only captures and promotions
+        hashMoves[ply] = NO_MOVE;
+        int moveCount = generate(generator, ply, !inCheck);
+        if (moveCount == 0) {
+            return inCheck ? -MATE_SCORE + ply : bestScore;
+        }
+        for (int i = 0; i < moveCount; i++) {
+            int move = selectNext(ply, i, moveCount);
+            long undo = board.makeMove(move);
+            int score = -quiescence(-beta, -alpha, ply + 1);
+            board.unmakeMove(move, undo);
+            if (aborted) {
+                return 0;
+            }
+            if (score > bestScore) {
+                bestScore = score;
+                if (score > alpha) {
+                    alpha = score;
+                    if (alpha >= beta) {
+                        break;
+                    }
+                }
+            }
+        }
+        return bestScore;
+    }
+
+    /**
+     * Counts a node and checks the node and time limits every
+     * {@code LIMIT_CHECK_MASK + 1} nodes.
+     *
+     * @return true if the search has to stop
+     */
+    private boolean countNode() {
+        nodes++;
+        if (nodes >= nodeLimit || ((nodes & LIMIT_CHECK_MASK) == 0 && System.nanoTime() >= deadline)) {
+            aborted = true;
+        }
+        return aborted;
+    }
+
+    /**
+     * Checks the fifty-move rule and whether the position already occurred
+     * with the same side to move, in the searched line or earlier in the
+     * game. Game positions continue the line below ply 0, the newest one at
+     * ply -1.
+     */
+    private boolean isDraw(int ply) {
+        int halfmoveClock = board.getHalfmoveClock();
+        if (halfmoveClock >= GameConstants.FIFTY_MOVE_RULE_LIMIT) {
+            return true;
+        }
+        long key = pathKeys[ply];
+        int oldest = Math.max(ply - halfmoveClock, -gameKeys.length);
+        for (int earlier = ply - 2; earlier >= oldest; earlier -= 2) {
+            long earlierKey = earlier >= 0 ? pathKeys[earlier] : gameKeys[gameKeys.length + earlier];
+            if (earlierKey == key) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // --- Move Ordering ---
+
+    private int generate(LegalMoveGenerator generator, int ply, boolean tacticalOnly) {
+        moveList.clear();
+        generator.generateLegalMoves(moveList);
+        int[] moves = plyMoves[ply];
+        int count = 0;
+        for (int i = 0; i < moveList.size(); i++) {
+            int move = moveList.get(i);
+            if (!tacticalOnly || isTactical(move)) {
+                moves[count++] = move;
+            }
+        }
+        scoreMoves(ply, count);
+        return count;
+    }
+
+    private void scoreMoves(int ply, int count) {
+        int[] moves = plyMoves[ply];
+        int[] scores = plyScores[ply];
+        for (int i = 0; i < count; i++) {
+            int move = moves[i];
+            if (move == hashMoves[ply]) {
+                scores[i] = HASH_MOVE_SCORE;
+            } else if (Move.isCapture(move)) {
+                ChessPiece victim = pieces.getPiece(Move.to(move));
+                int victimValue = victim != null ? Evaluator.PIECE_VALUES[victim.getPieceType().ordinal()] : Evaluator.PIECE_VALUES[0];
+                ChessPiece attacker = pieces.getPiece(Move.from(move));
+                scores[i] = CAPTURE_SCORE + victimValue * 8 - attacker.getPieceType().ordinal();
+            } else if (Move.isPromotion(move)) {
+                scores[i] = PROMOTION_SCORE + Evaluator.PIECE_VALUES[Move.promotion(move).ordinal()];
+            } else if (move == killers[ply][0]) {
+                scores[i] = FIRST_KILLER_SCORE;
+            } else if (move == killers[ply][1]) {
+                scores[i] = SECOND_KILLER_SCORE;
+            } else {
+                scores[i] = Math.min(history[historyIndex(move)], SECOND_KILLER_SCORE - 1);
+            }
+        }
+    }
+
+    /**
+     * Swaps the best scored move of those not yet tried into place and
+     * returns it. Cut-offs usually come early, so this is cheaper than
+     * sorting the whole list up front.
+     */
+    private int selectNext(int ply, int index, int count) {
+        int[] moves = plyMoves[ply];
+        int[] scores = plyScores[ply];
+        int best = index;
+        for (int i = index + 1; i < count; i++) {
+            if (scores[i] > scores[best]) {
+                best = i;
+            }
+        }
+        swap(moves, scores, index, best);
+        return moves[index];
+    }
+
+    private static void sortAll(int[] moves, int[] scores, int count) {
+        for (int i = 0; i < count; i++) {
+            int best = i;
+            for (int j = i + 1; j < count; j++) {
+                if (scores[j] > scores[best]) {
+                    best = j;
+                }
+            }
+            swap(moves, scores, i, best);
+        }
+    }
+
+    private static void moveToFront(int[] moves, int count, int move) {
+        for (int i = 0; i < count; i++) {
+            if (moves[i] == move) {
+                System.arraycopy(moves, 0, moves, 1, i);
+                moves[0] = move;
+                return;
+            }
+        }
+    }
+
+    private static void swap(int[] moves, int[] scores, int i, int j) {
+        int move = moves[i];
+        moves[i] = moves[j];
+        moves[j] = move;
+        int score = scores[i];
+        scores[i] = scores[j];
+        scores[j] = score;
+    }
+
+    private void storeKiller(int ply, int move) {
+        if (killers[ply][0] != move) {
+            killers[ply][1] = killers[ply][0];
+            killers[ply][0] = move;
+        }
+    }
+
+    private static boolean isTactical(int move) {
+        return Move.isCapture(move) || Move.isPromotion(move);
+    }
+
+    private static int historyIndex(int move) {
+        return Move.from(move) << 6 | Move.to(move);
+    }
+}
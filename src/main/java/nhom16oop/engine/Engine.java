@@ -0,0 +1,54 @@
+package nhom16oop.engine;
+
+import nhom16oop.core.model.BoardState;
+
+/**
+ * A chess engine that picks a move for a position. Implemented by the
+ * {@link Stockfish} process wrapper, which speaks UCI to an external binary,
+ * and by the in-process {@link AlphaBetaEngine}. {@link Engines} chooses one
+ * from the configuration.
+ */
+public interface Engine {
+
+    /**
+     * Prepares the engine for use. May return before the engine is ready.
+     */
+    void start();
+
+    /**
+     * Searches a position and returns the best move found.
+     *
+     * @param position the position to search, not changed by the search
+     * @param limits   how long or how deep to search
+     * @return the best move in UCI notation, or null if there is none
+     */
+    String bestMove(BoardState position, SearchLimits limits);
+
+    /**
+     * Searches a position reached in a game and returns the best move found,
+     * scoring a return to an earlier position of the game as a draw. Engines
+     * that only see the position, as {@link Stockfish} does when given a FEN,
+     * ignore the earlier positions.
+     *
+     * @param position  the position to search, not changed by the search
+     * @param gameKeys  the Zobrist keys of the game positions before this one,
+     *                  back to the last irreversible move, oldest first
+     * @param limits    how long or how deep to search
+     * @return the best move in UCI notation, or null if there is none
+     */
+    default String bestMove(BoardState position, long[] gameKeys, SearchLimits limits) {
+        return bestMove(position, limits);
+    }
+
+    /**
+     * Stops the engine and releases its resources.
+     */
+    void stop();
+
+    /**
+     * Returns a name for logging.
+     *
+     * @return the engine name
+     */
+    String getName();
+}
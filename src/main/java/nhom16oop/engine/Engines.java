@@ -0,0 +1,87 @@
+package nhom16oop.engine;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Creates the engine used for AI moves and hints, chosen by system
+ * properties:
+ * <ul>
+ *     <li>{@code chess.engine}: {@code uci} for the bundled Stockfish,
+ *     {@code java} for the in-process {@link AlphaBetaEngine}. Defaults to
+ *     {@code uci} where a Stockfish executable is bundled for the platform
+ *     and to {@code java} elsewhere.</li>
+ *     <li>{@code chess.engine.hash}: the size in megabytes of the
+ *     transposition table shared by all Java engines, 64 by default.</li>
+ *     <li>{@code chess.engine.depth}, {@code chess.engine.nodes} and
+ *     {@code chess.engine.movetime} (milliseconds): search limits, unset by
+ *     default, which leaves each engine to its own default.</li>
+ * </ul>
+ */
+public final class Engines {
+
+    private static final Logger logger = LoggerFactory.getLogger(Engines.class);
+
+    public static final String ENGINE_PROPERTY = "chess.engine";
+    public static final String DEPTH_PROPERTY = "chess.engine.depth";
+    public static final String NODES_PROPERTY = "chess.engine.nodes";
+    public static final String MOVE_TIME_PROPERTY = "chess.engine.movetime";
+    public static final String HASH_PROPERTY = "chess.engine.hash";
+
+    public static final String UCI = "uci";
+    public static final String JAVA = "java";
+
+    private static TranspositionTable sharedTable;
+
+    private Engines() {
+        throw new AssertionError("Cannot instantiate Engines class");
+    }
+
+    /**
+     * Creates and starts the configured engine. An unknown backend name, or
+     * {@code uci} on a platform without a bundled executable, falls back to
+     * the Java engine with a warning.
+     *
+     * @return the started engine
+     */
+    public static Engine create() {
+        String backend = System.getProperty(ENGINE_PROPERTY, Stockfish.isAvailable() ? UCI : JAVA).trim().toLowerCase();
+        Engine engine;
+        if (backend.equals(UCI) && Stockfish.isAvailable()) {
+            engine = new Stockfish();
+        } else {
+            if (!backend.equals(JAVA)) {
+                logger.warn("Engine '{}' is not available, using the Java engine", backend);
+            }
+            engine = new AlphaBetaEngine(sharedTable());
+        }
+        engine.start();
+        logger.info("Using engine: {}", engine.getName());
+        return engine;
+    }
+
+    /**
+     * Returns the transposition table shared by the Java engines, allocating
+     * it on first use with the configured size.
+     *
+     * @return the shared table
+     */
+    public static synchronized TranspositionTable sharedTable() {
+        if (sharedTable == null) {
+            int megabytes = Integer.getInteger(HASH_PROPERTY, AlphaBetaEngine.DEFAULT_HASH_MEGABYTES);
+            sharedTable = new TranspositionTable(megabytes);
+            logger.info("Allocated {} MB transposition table off the heap", sharedTable.getSizeBytes() >> 20);
+        }
+        return sharedTable;
+    }
+
+    /**
+     * Reads the configured search limits.
+     *
+     * @return the limits, {@link SearchLimits#NONE} if none are set
+     */
+    public static SearchLimits limits() {
+        return new SearchLimits(Integer.getInteger(DEPTH_PROPERTY, 0),
+                Long.getLong(NODES_PROPERTY, 0L), Long.getLong(MOVE_TIME_PROPERTY, 0L));
+    }
+}
@@ -0,0 +1,153 @@
+package nhom16oop.engine;
+
+import nhom16oop.constants.PieceColor;
+import nhom16oop.constants.PieceType;
+import nhom16oop.core.model.BoardState;
+import nhom16oop.core.pieces.ChessPieceMap;
+
+/**
+ * Static evaluation for {@link AlphaBetaEngine}: material plus piece-square
+ * tables, in centipawns.
+ * <p>
+ * The tables are written from white's side with rank 8 on the first line, as
+ * the board is usually drawn; a black piece reads the square mirrored across
+ * the middle of the board. The king has one table for the middlegame and one
+ * for the endgame, blended by how much non-pawn material is left.
+ */
+public final class Evaluator {
+
+    /** Piece values in centipawns, indexed by {@link PieceType} ordinal. */
+    public static final int[] PIECE_VALUES = {100, 320, 330, 500, 900, 0};
+
+    private static final PieceType[] PIECE_TYPES = PieceType.values();
+    private static final int[] PHASE_WEIGHTS = {0, 1, 1, 2, 4, 0};
+    private static final int MAX_PHASE = 24;
+
+    private static final int[] PAWN_TABLE = {
+            0, 0, 0, 0, 0, 0, 0, 0,
+            50, 50, 50, 50, 50, 50, 50, 50,
+            10, 10, 20, 30, 30, 20, 10, 10,
+            5, 5, 10, 25, 25, 10, 5, 5,
+            0, 0, 0, 20, 20, 0, 0, 0,
+            5, -5, -10, 0, 0, -10, -5, 5,
+            5, 10, 10, -20, -20, 10, 10, 5,
+            0, 0, 0, 0, 0, 0, 0, 0
+    };
+
+    private static final int[] KNIGHT_TABLE = {
+            -50, -40, -30, -30, -30, -30, -40, -50,
+            -40, -20, 0, 0, 0, 0, -20, -40,
+            -30, 0, 10, 15, 15, 10, 0, -30,
+            -30, 5, 15, 20, 20, 15, 5, -30,
+            -30, 0, 15, 20, 20, 15, 0, -30,
+            -30, 5, 10, 15, 15, 10, 5, -30,
+            -40, -20, 0, 5, 5, 0, -20, -40,
+            -50, -40, -30, -30, -30, -30, -40, -50
+    };
+
+    private static final int[] BISHOP_TABLE = {
+            -20, -10, -10, -10, -10, -10, -10, -20,
+            -10, 0, 0, 0, 0, 0, 0, -10,
+            -10, 0, 5, 10, 10, 5, 0, -10,
+            -10, 5, 5, 10, 10, 5, 5, -10,
+            -10, 0, 10, 10, 10, 10, 0, -10,
+            -10, 10, 10, 10, 10, 10, 10, -10,
+            -10, 5, 0, 0, 0, 0, 5, -10,
+            -20, -10, -10, -10, -10, -10, -10, -20
+    };
+
+    private static final int[] ROOK_TABLE = {
+            0, 0, 0, 0, 0, 0, 0, 0,
+            5, 10, 10, 10, 10, 10, 10, 5,
+            -5, 0, 0, 0, 0, 0, 0, -5,
+            -5, 0, 0, 0, 0, 0, 0, -5,
+            -5, 0, 0, 0, 0, 0, 0, -5,
+            -5, 0, 0, 0, 0, 0, 0, -5,
+            -5, 0, 0, 0, 0, 0, 0, -5,
+            0, 0, 0, 5, 5, 0, 0, 0
+    };
+
+    private static final int[] QUEEN_TABLE = {
+            -20, -10, -10, -5, -5, -10, -10, -20,
+            -10, 0, 0, 0, 0, 0, 0, -10,
+            -10, 0, 5, 5, 5, 5, 0, -10,
+            -5, 0, 5, 5, 5, 5, 0, -5,
+            0, 0, 5, 5, 5, 5, 0, -5,
+            -10, 5, 5, 5, 5, 5, 0, -10,
+            -10, 0, 5, 0, 0, 0, 0, -10,
+            -20, -10, -10, -5, -5, -10, -10, -20
+    };
+
+    private static final int[] KING_MIDDLEGAME_TABLE = {
+            -30, -40, -40, -50, -50, -40, -40, -30,
+            -30, -40, -40, -50, -50, -40, -40, -30,
+            -30, -40, -40, -50, -50, -40, -40, -30,
+            -30, -40, -40, -50, -50, -40, -40, -30,
+            -20, -30, -30, -40, -40, -30, -30, -20,
+            -10, -20, -20, -20, -20, -20, -20, -10,
+            20, 20, 0, 0, 0, 0, 20, 20,
+            20, 30, 10, 0, 0, 10, 30, 20
+    };
+
+    private static final int[] KING_ENDGAME_TABLE = {
+            -50, -40, -30, -20, -20, -30, -40, -50,
+            -30, -20, -10, 0, 0, -10, -20, -30,
+            -30, -10, 20, 30, 30, 20, -10, -30,
+            -30, -10, 30, 40, 40, 30, -10, -30,
+            -30, -10, 30, 40, 40, 30, -10, -30,
+            -30, -10, 20, 30, 30, 20, -10, -30,
+            -30, -30, 0, 0, 0, 0, -30, -30,
+            -50, -30, -30, -30, -30, -30, -30, -50
+    };
+
+    private static final int[][] TABLES = {PAWN_TABLE, KNIGHT_TABLE, BISHOP_TABLE, ROOK_TABLE, QUEEN_TABLE};
+
+    private Evaluator() {
+        throw new AssertionError("Cannot instantiate Evaluator class");
+    }
+
+    /**
+     * Evaluates a position from the point of view of the side to move.
+     *
+     * @param boardState the position
+     * @return the score in centipawns, positive when the side to move is better
+     */
+    public static int evaluate(BoardState boardState) {
+        ChessPieceMap pieces = boardState.getChessPieceMap();
+        int phase = 0;
+        for (PieceType type : PIECE_TYPES) {
+            phase += PHASE_WEIGHTS[type.ordinal()]
+                    * (pieces.getPieceCount(PieceColor.WHITE, type) + pieces.getPieceCount(PieceColor.BLACK, type));
+        }
+        phase = Math.min(phase, MAX_PHASE);
+
+        int score = evaluateSide(pieces, PieceColor.WHITE, phase) - evaluateSide(pieces, PieceColor.BLACK, phase);
+        return boardState.getCurrentPlayerColor().isWhite() ? score : -score;
+    }
+
+    private static int evaluateSide(ChessPieceMap pieces, PieceColor color, int phase) {
+        int score = 0;
+        for (int type = 0; type < TABLES.length; type++) {
+            int[] table = TABLES[type];
+            long bits = pieces.getPieces(color, PIECE_TYPES[type]);
+            score += Long.bitCount(bits) * PIECE_VALUES[type];
+            for (; bits != 0; bits &= bits - 1) {
+                score += table[tableIndex(color, Long.numberOfTrailingZeros(bits))];
+            }
+        }
+        long king = pieces.getPieces(color, PieceType.KING);
+        if (king != 0) {
+            int index = tableIndex(color, Long.numberOfTrailingZeros(king));
+            score += (KING_MIDDLEGAME_TABLE[index] * phase + KING_ENDGAME_TABLE[index] * (MAX_PHASE - phase)) / MAX_PHASE;
+        }
+        return score;
+    }
+
+    /**
+     * Maps a square (row * 8 + col, a1 = 0) to its entry in a table written
+     * with rank 8 first, mirrored for black.
+     */
+    private static int tableIndex(PieceColor color, int square) {
+        return color.isWhite() ? square ^ 56 : square;
+    }
+}
@@ -0,0 +1,37 @@
+package nhom16oop.engine;
+
+/**
+ * Bounds on a search. A zero field means no bound of that kind; the search
+ * stops at whichever bound is reached first.
+ *
+ * @param depth          the maximum depth in plies
+ * @param nodes          the maximum number of nodes
+ * @param moveTimeMillis the maximum time in milliseconds
+ */
+public record SearchLimits(int depth, long nodes, long moveTimeMillis) {
+
+    /** No bound at all; each engine falls back to its own default. */
+    public static final SearchLimits NONE = new SearchLimits(0, 0, 0);
+
+    public SearchLimits {
+        if (depth < 0 || nodes < 0 || moveTimeMillis < 0) {
+            throw new IllegalArgumentException("Search limits must not be negative: " + depth + ", " + nodes + ", " + moveTimeMillis);
+        }
+    }
+
+    public static SearchLimits ofDepth(int depth) {
+        return new SearchLimits(depth, 0, 0);
+    }
+
+    public static SearchLimits ofNodes(long nodes) {
+        return new SearchLimits(0, nodes, 0);
+    }
+
+    public static SearchLimits ofMoveTime(long moveTimeMillis) {
+        return new SearchLimits(0, 0, moveTimeMillis);
+    }
+
+    public boolean isUnbounded() {
+        return depth == 0 && nodes == 0 && moveTimeMillis == 0;
+    }
+}
@@ -12,14 +12,17 @@ import java.util.Random;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 
+import nhom16oop.core.model.BoardState;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 /**
  * Manages interaction with the Stockfish chess engine.
  * Provides methods to start the engine, send commands, retrieve moves, and stop the engine.
+ * Talks UCI to the bundled executable, so it only works on platforms one is
+ * bundled for; see {@link #isAvailable()}.
  */
-public class Stockfish {
+public class Stockfish implements Engine {
     private static final Logger logger = LoggerFactory.getLogger(Stockfish.class);
     private Process stockfishProcess;
     private BufferedReader reader;
@@ -39,6 +42,7 @@ public class Stockfish {
      *
      * @throws RuntimeException if the Stockfish executable is not found or fails to initialize
      */
+    @Override
     public void start() {
         executor.submit(() -> {
             try {
@@ -93,11 +97,41 @@ public class Stockfish {
      * @return the best move in UCI notation, or null if no move is found
      */
     public String getBestMove(String fen) {
-        sendCommand("position fen " + fen);
         Random random = new Random();
         // random depth from 20 to 26
         int depth = random.nextInt(7) + 20;
-        sendCommand("go depth " + depth);
+        return search(fen, "go depth " + depth);
+    }
+
+    /**
+     * Gets the best move for a position within the given limits. Without any
+     * limit, behaves like {@link #getBestMove(String)}.
+     *
+     * @param position the position to search
+     * @param limits   the search limits
+     * @return the best move in UCI notation, or null if no move is found
+     */
+    @Override
+    public String bestMove(BoardState position, SearchLimits limits) {
+        if (limits.isUnbounded()) {
+            return getBestMove(position.getFEN());
+        }
+        StringBuilder go = new StringBuilder("go");
+        if (limits.depth() > 0) {
+            go.append(" depth ").append(limits.depth());
+        }
+        if (limits.nodes() > 0) {
+            go.append(" nodes ").append(limits.nodes());
+        }
+        if (limits.moveTimeMillis() > 0) {
+            go.append(" movetime ").append(limits.moveTimeMillis());
+        }
+        return search(position.getFEN(), go.toString());
+    }
+
+    private String search(String fen, String goCommand) {
+        sendCommand("position fen " + fen);
+        sendCommand(goCommand);
         List<String> output = getOutput();
         for (String line : output) {
             if (line.startsWith("bestmove")) {
@@ -108,10 +142,30 @@ public class Stockfish {
         return null;
     }
 
+    @Override
+    public String getName() {
+        return "Stockfish";
+    }
+
+    /**
+     * Checks whether a Stockfish executable is bundled for this platform.
+     *
+     * @return true if the executable resource exists
+     */
+    public static boolean isAvailable() {
+        return Stockfish.class.getClassLoader().getResource(executableName()) != null;
+    }
+
+    private static String executableName() {
+        String os = System.getProperty("os.name").toLowerCase();
+        return os.contains("win") ? "stockfish.exe" : "stockfish";
+    }
+
     /**
      * Stops the Stockfish engine and releases resources.
      */
-    public void stopEngine() {
+    @Override
+    public void stop() {
         if (stockfishProcess != null) {
             sendCommand("quit");
             stockfishProcess.destroy();
@@ -132,8 +186,7 @@ public class Stockfish {
      */
     private void startEngine() {
         try {
-            String os = System.getProperty("os.name").toLowerCase();
-            String stockfishFile = os.contains("win") ? "stockfish.exe" : "stockfish";
+            String stockfishFile = executableName();
             String stockfishPath = Objects.requireNonNull(getClass().getClassLoader().getResource(stockfishFile), "Stockfish executable not found: " + stockfishFile).getPath();
             logger.info("Starting Stockfish at path: {}", stockfishPath);
             ProcessBuilder pb = new ProcessBuilder(stockfishPath);
@@ -0,0 +1,200 @@
+package nhom16oop.engine;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * A fixed-size table of search results keyed by position hash, kept off the
+ * Java heap and shared by any number of search threads without locking.
+ * <p>
+ * The table is one or more direct byte buffers of 16-byte buckets. Each
+ * bucket holds two longs: the entry data and the data XORed with the key, the
+ * same scheme as {@link nhom16oop.perft.PerftHashTable}. A probe only trusts a
+ * bucket whose two halves agree with the key, so a bucket torn by two threads
+ * writing at once reads as a miss instead of a mixed entry. The entry data
+ * packs:
+ * <pre>
+ * bits  0-18  packed move (see {@link nhom16oop.core.movegen.Move}), 0 if none
+ * bits 19-34  score, as a signed 16-bit value
+ * bits 35-42  depth
+ * bits 43-44  bound: {@link #EXACT}, {@link #LOWER} or {@link #UPPER}
+ * bits 45-52  age, the search generation the entry was stored in
+ * </pre>
+ * A bucket is replaced when it holds an entry from an earlier search, when
+ * the new entry was searched at least as deep, or when it holds the same
+ * position. Buffers are at most 1 GB each, so tables of several gigabytes
+ * are split over several buffers. They stay outside the heap and add no
+ * garbage collection work; the JVM caps direct memory at the maximum heap
+ * size unless {@code -XX:MaxDirectMemorySize} is given.
+ */
+public final class TranspositionTable {
+
+    public static final int EXACT = 1;
+    public static final int LOWER = 2;
+    public static final int UPPER = 3;
+
+    private static final VarHandle LONGS = MethodHandles.byteBufferViewVarHandle(long[].class, ByteOrder.nativeOrder());
+
+    private static final int BUCKET_BYTES = 16;
+    private static final int CHUNK_BUCKET_BITS = 26;
+    private static final int MOVE_MASK = (1 << 19) - 1;
+    private static final int SCORE_SHIFT = 19;
+    private static final int DEPTH_SHIFT = 35;
+    private static final int BOUND_SHIFT = 43;
+    private static final int AGE_SHIFT = 45;
+    private static final int BYTE_MASK = 0xff;
+    private static final int FILL_SAMPLE = 1000;
+
+    private final ByteBuffer[] chunks;
+    private final long bucketMask;
+    private final int chunkBucketMask;
+    private volatile int age;
+
+    /**
+     * Constructs a table using about the given amount of memory, rounded down
+     * to a power of two number of buckets.
+     *
+     * @param megabytes the table size in megabytes, at least 1
+     */
+    public TranspositionTable(int megabytes) {
+        if (megabytes < 1) {
+            throw new IllegalArgumentException("Hash size must be at least 1 MB: " + megabytes);
+        }
+        long buckets = Long.highestOneBit(megabytes * 1024L * 1024L / BUCKET_BYTES);
+        int chunkBuckets = (int) Math.min(buckets, 1L << CHUNK_BUCKET_BITS);
+        this.chunks = new ByteBuffer[(int) (buckets / chunkBuckets)];
+        for (int i = 0; i < chunks.length; i++) {
+            chunks[i] = ByteBuffer.allocateDirect(chunkBuckets * BUCKET_BYTES).order(ByteOrder.nativeOrder());
+        }
+        this.bucketMask = buckets - 1;
+        this.chunkBucketMask = chunkBuckets - 1;
+    }
+
+    /**
+     * Starts a new search generation, so that entries of earlier searches
+     * are replaced first. A search reads the generation once, here, and
+     * passes it to every {@link #store}, so engines sharing the table never
+     * read the field on the hot path.
+     *
+     * @return the generation of the new search
+     */
+    public synchronized int newSearch() {
+        age = (age + 1) & BYTE_MASK;
+        return age;
+    }
+
+    /**
+     * Looks up a position.
+     *
+     * @param key the Zobrist key of the position
+     * @return the entry data, to be read with the static accessors, or 0 if
+     *         the table holds no entry for the position
+     */
+    public long probe(long key) {
+        long bucket = key & bucketMask;
+        ByteBuffer chunk = chunks[(int) (bucket >>> CHUNK_BUCKET_BITS)];
+        int offset = ((int) bucket & chunkBucketMask) * BUCKET_BYTES;
+        long check = (long) LONGS.getOpaque(chunk, offset);
+        long data = (long) LONGS.getOpaque(chunk, offset + 8);
+        if (data != 0 && (check ^ data) == key) {
+            return data;
+        }
+        return 0;
+    }
+
+    /**
+     * Stores a search result, unless the bucket holds a deeper result of the
+     * current search for another position.
+     *
+     * @param key   the Zobrist key of the position
+     * @param move  the best packed move, or 0 if none
+     * @param score the score, between -32768 and 32767
+     * @param depth the depth searched, between 0 and 255
+     * @param bound {@link #EXACT}, {@link #LOWER} or {@link #UPPER}
+     * @param age   the generation returned by {@link #newSearch()} for the
+     *              search storing the result
+     */
+    public void store(long key, int move, int score, int depth, int bound, int age) {
+        long bucket = key & bucketMask;
+        ByteBuffer chunk = chunks[(int) (bucket >>> CHUNK_BUCKET_BITS)];
+        int offset = ((int) bucket & chunkBucketMask) * BUCKET_BYTES;
+        long check = (long) LONGS.getOpaque(chunk, offset);
+        long old = (long) LONGS.getOpaque(chunk, offset + 8);
+        if (old != 0 && age(old) == age && depth(old) > depth && (check ^ old) != key) {
+            return;
+        }
+        long data = (move & MOVE_MASK)
+                | (long) (score & 0xffff) << SCORE_SHIFT
+                | (long) (depth & BYTE_MASK) << DEPTH_SHIFT
+                | (long) bound << BOUND_SHIFT
+                | (long) age << AGE_SHIFT;
+        LONGS.setOpaque(chunk, offset, key ^ data);
+        LONGS.setOpaque(chunk, offset + 8, data);
+    }
+
+    /**
+     * Empties the table.
+     */
+    public void clear() {
+        for (ByteBuffer chunk : chunks) {
+            for (int offset = 0; offset < chunk.capacity(); offset += 8) {
+                LONGS.setOpaque(chunk, offset, 0L);
+            }
+        }
+    }
+
+    // --- Entry Fields ---
+
+    public static int move(long data) {
+        return (int) data & MOVE_MASK;
+    }
+
+    public static int score(long data) {
+        return (short) (data >>> SCORE_SHIFT);
+    }
+
+    public static int depth(long data) {
+        return (int) (data >>> DEPTH_SHIFT) & BYTE_MASK;
+    }
+
+    public static int bound(long data) {
+        return (int) (data >>> BOUND_SHIFT) & 0x3;
+    }
+
+    private static int age(long data) {
+        return (int) (data >>> AGE_SHIFT) & BYTE_MASK;
+    }
+
+    // --- Statistics ---
+
+    /**
+     * Estimates how full the table is with entries of the current search,
+     * from the first thousand buckets, in the per mille unit UCI engines
+     * report as {@code hashfull}.
+     *
+     * @return the estimated fill in per mille
+     */
+    public int getFillPermille() {
+        long sample = Math.min(FILL_SAMPLE, bucketMask + 1);
+        int used = 0;
+        for (int bucket = 0; bucket < sample; bucket++) {
+            ByteBuffer chunk = chunks[bucket >>> CHUNK_BUCKET_BITS];
+            long data = (long) LONGS.getOpaque(chunk, (bucket & chunkBucketMask) * BUCKET_BYTES + 8);
+            if (data != 0 && age(data) == age) {
+                used++;
+            }
+        }
+        return (int) (used * 1000 / sample);
+    }
+
+    /**
+     * Returns the size of the table in bytes.
+     *
+     * @return the number of bytes allocated off the heap
+     */
+    public long getSizeBytes() {
+        return (bucketMask + 1) * BUCKET_BYTES;
+    }
+}
@@ -1,16 +1,22 @@
 package nhom16oop.game;
 
+import nhom16oop.constants.GameStatus;
 import nhom16oop.constants.PieceColor;
 import nhom16oop.core.model.BoardState;
 import nhom16oop.core.model.ChessMove;
 import nhom16oop.core.model.ChessPiece;
 import nhom16oop.core.model.ChessPosition;
+import nhom16oop.core.model.FenCodec;
+import nhom16oop.core.movegen.LegalMoveGenerator;
+import nhom16oop.core.movegen.LegalMoveSet;
+import nhom16oop.core.movegen.Move;
+import nhom16oop.core.movegen.MoveList;
 import nhom16oop.core.pieces.*;
+import nhom16oop.history.RepetitionTable;
 import nhom16oop.utils.ChessNotationUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.util.HashMap;
 import java.util.Map;
 
 /**
@@ -19,15 +25,20 @@ import java.util.Map;
 public class BoardManager {
 
     protected static final Logger logger = LoggerFactory.getLogger(BoardManager.class);
-    private final Map<BoardState, Integer> boardStateHistory;
+    private final RepetitionTable repetitionTable;
+    private final GameStatusEvaluator gameStatusEvaluator;
+    private final PositionPrecomputer positionPrecomputer;
     private final BoardState currentBoardState;
+    private volatile LegalMoveSet legalMoveSet;
 
     /**
      * Constructs a new BoardManager with an empty board state.
      */
     public BoardManager() {
-        this.boardStateHistory = new HashMap<>();
-        this.currentBoardState = new BoardState(new ChessPieceMap());
+        this.repetitionTable = new RepetitionTable();
+        this.gameStatusEvaluator = new GameStatusEvaluator();
+        this.positionPrecomputer = new PositionPrecomputer(gameStatusEvaluator);
+        this.currentBoardState = new BoardState(new BitboardPieceMap());
     }
 
     /**
@@ -48,7 +59,7 @@ public class BoardManager {
      * @param piece The piece to place.
      */
     public void setPiece(int x, int y, ChessPiece piece) {
-        setPiece(new ChessPosition(x, y), piece);
+        setPiece(ChessPosition.of(x, y), piece);
     }
 
     /**
@@ -83,28 +94,50 @@ public class BoardManager {
     }
 
     /**
-     * Updates the movement status of a piece after a move.
-     *
-     * @param move The move performed.
+     * Records the current position in the repetition table. Called once for
+     * the starting position and once after every move, when the turn has
+     * passed to the other player.
      */
-    public void updatePieceMovement(ChessMove move) {
-        ChessPiece piece = getPiece(move.end());
-        if (piece != null) {
-            piece.setHasMoved(true);
-            logger.info("Updated piece movement: {}, hasMoved={}", piece, piece.hasMoved());
+    public void updateBoardStateHistory() {
+        long key = currentBoardState.getZobristKey();
+        repetitionTable.push(key, currentBoardState.getHalfmoveClock());
+        positionPrecomputer.submit(currentBoardState);
+        if (logger.isDebugEnabled()) {
+            logger.debug("Updated board state (key {}), occurrences: {}", Long.toHexString(key), repetitionTable.countOccurrences());
+            logger.debug("Current board state (FEN): {}", currentBoardState.getFEN());
         }
     }
 
     /**
-     * Updates the board state history with the current state.
+     * Removes the newest position from the repetition table when its move is
+     * undone.
      */
-    public void updateBoardStateHistory() {
-        String fenFourParts = ChessNotationUtils.getFenFourParts(currentBoardState);
-        String FEN = ChessNotationUtils.getFEN(currentBoardState);
-        boardStateHistory.merge(currentBoardState, 1, Integer::sum);
-        logger.debug("Updated board state (FEN four parts): {}, occurrences: {}", fenFourParts, boardStateHistory.get(currentBoardState));
+    public void revertBoardStateHistory() {
+        repetitionTable.pop();
+    }
 
-        logger.debug("Current board state (FEN): {}", FEN);
+    /**
+     * Restarts the repetition table from the current position, for when a
+     * position is loaded rather than reached by moves.
+     */
+    public void resetBoardStateHistory() {
+        repetitionTable.clear();
+        updateBoardStateHistory();
+    }
+
+    /**
+     * Replaces the current position with a copy of another one, for jumping
+     * to a ply of the game. The repetition table is left to the caller.
+     *
+     * @param position the position to show
+     */
+    public void setPosition(BoardState position) {
+        clear();
+        for (Map.Entry<ChessPosition, ChessPiece> entry : position.getChessPieceMap().getPieceMap().entrySet()) {
+            setPiece(entry.getKey(), entry.getValue());
+        }
+        currentBoardState.updateFrom(position);
+        positionPrecomputer.submit(currentBoardState);
     }
 
     /**
@@ -131,10 +164,10 @@ public class BoardManager {
      * @param pawnRow The row for pawns (1 or 6).
      */
     private void placeInitialPieces(PieceColor color, int backRow, int pawnRow) {
-        ChessPiece[] backRowPieces = {new Rook(color), new Knight(color), new Bishop(color), new Queen(color), new King(color), new Bishop(color), new Knight(color), new Rook(color)};
+        ChessPiece[] backRowPieces = {Rook.of(color), Knight.of(color), Bishop.of(color), Queen.of(color), King.of(color), Bishop.of(color), Knight.of(color), Rook.of(color)};
         for (int col = 0; col < 8; col++) {
             setPiece(col, backRow, backRowPieces[col]);
-            setPiece(col, pawnRow, new Pawn(color, this.currentBoardState));
+            setPiece(col, pawnRow, Pawn.of(color));
         }
     }
 
@@ -161,46 +194,107 @@ public class BoardManager {
         logger.info("Last move: {}", lastMove);
     }
 
-    public Map<BoardState, Integer> getBoardStateHistory() {
-        return boardStateHistory;
+    public RepetitionTable getRepetitionTable() {
+        return repetitionTable;
     }
+
     /**
-     * Load board state từ FEN string
+     * Evaluates whether the game is over in the current position. The result
+     * for a position is cached, so callers may ask as often as they like.
+     *
+     * @return the status of the current position
      */
-    public void loadFromFEN(String fen) {
-        clear();
-        
-        String[] parts = fen.split(" ");
-        if (parts.length < 4) {
-            throw new IllegalArgumentException("Invalid FEN string: " + fen);
+    public GameStatus getGameStatus() {
+        return gameStatusEvaluator.evaluate(currentBoardState, repetitionTable);
+    }
+
+    /**
+     * Evaluates whether the game is over in a copy of a position taken
+     * earlier, for checks that run while the game goes on.
+     *
+     * @param position            the copied position
+     * @param threefoldRepetition whether the position had occurred three
+     *                            times when it was copied
+     * @return the status of the copied position
+     */
+    public GameStatus getGameStatus(BoardState position, boolean threefoldRepetition) {
+        return gameStatusEvaluator.evaluate(position, threefoldRepetition);
+    }
+
+    /**
+     * Returns the legal moves of the side to move. The set is normally built
+     * in the background right after the move that reached the position (see
+     * {@link PositionPrecomputer}), and built here only if that has not
+     * finished yet.
+     *
+     * @return the legal moves in the current position
+     */
+    public LegalMoveSet getLegalMoveSet() {
+        long key = currentBoardState.getZobristKey();
+        LegalMoveSet moves = legalMoveSet;
+        if (moves == null || moves.getPositionKey() != key) {
+            moves = positionPrecomputer.getLegalMoveSet(key);
+            if (moves == null) {
+                moves = new LegalMoveSet(currentBoardState);
+            }
+            legalMoveSet = moves;
+        }
+        return moves;
+    }
+
+    /**
+     * Formats a move in Standard Algebraic Notation, using the SAN computed in
+     * the background when the position was reached if it is available.
+     *
+     * @param before the position before the move
+     * @param move   the packed move
+     * @return the move in SAN, or in UCI notation if the move is not legal in
+     * the position
+     */
+    public String getSan(BoardState before, int move) {
+        String uci = Move.toUci(move);
+        String san = positionPrecomputer.getSan(before.getZobristKey(), uci);
+        if (san != null) {
+            return san;
         }
-        
-        // Parse piece positions (part 1)
-        String[] ranks = parts[0].split("/");
-        for (int rank = 0; rank < 8; rank++) {
-            int col = 0;
-            String rankStr = ranks[7 - rank]; // FEN từ rank 8 xuống rank 1
-            
-            for (char c : rankStr.toCharArray()) {
-                if (Character.isDigit(c)) {
-                    col += Character.getNumericValue(c);
-                } else {
-                    ChessPiece piece = this.getCurrentBoardState().createPieceFromFENChar(c);
-                    if (piece != null) {
-                        setPiece(new ChessPosition(col, rank), piece);
-                    }
-                    col++;
-                }
+        BoardState position = before.deepCopy();
+        MoveList moves = new MoveList();
+        new LegalMoveGenerator(position).generateLegalMoves(moves);
+        for (int i = 0; i < moves.size(); i++) {
+            if (Move.toUci(moves.get(i)).equals(uci)) {
+                return ChessNotationUtils.toSan(position, moves.get(i), moves);
             }
         }
-        
-        // Parse active color (part 2)
-        PieceColor activeColor = parts[1].equals("w") ? PieceColor.WHITE : PieceColor.BLACK;
-        currentBoardState.setCurrentPlayerColor(activeColor);
-        
-        // Parse castling rights (part 3)
-        // En passant (part 4) sẽ tự động update sau move đầu tiên
-        
+        return uci;
+    }
+
+    /**
+     * Checks whether the side to move is in check in the current position.
+     *
+     * @return true if the current player's king is attacked
+     */
+    public boolean isCurrentPlayerInCheck() {
+        return gameStatusEvaluator.isInCheck(currentBoardState);
+    }
+
+    /**
+     * Replaces the current position with one given in FEN, including its
+     * castling rights, en passant square and move counters, and restarts the
+     * repetition table from it.
+     *
+     * @param fen the position in FEN
+     * @throws IllegalArgumentException if the text is not a valid FEN
+     */
+    public void loadFromFEN(String fen) {
+        FenCodec.decode(fen, currentBoardState);
+        resetBoardStateHistory();
         logger.info("Board loaded from FEN: {}", fen);
     }
+
+    /**
+     * Stops the background precomputation of positions.
+     */
+    public void shutdown() {
+        positionPrecomputer.shutdown();
+    }
 }
@@ -1,11 +1,14 @@
 package nhom16oop.game;
 
 import nhom16oop.constants.GameMode;
+import nhom16oop.constants.GameStatus;
 import nhom16oop.constants.PieceColor;
+import nhom16oop.constants.PieceType;
 import nhom16oop.core.model.BoardState;
 import nhom16oop.core.model.ChessMove;
 import nhom16oop.core.model.ChessPiece;
 import nhom16oop.core.model.ChessPosition;
+import nhom16oop.core.movegen.Move;
 import nhom16oop.core.pieces.*;
 import nhom16oop.history.FileManager;
 import nhom16oop.history.GameHistoryManager;
@@ -20,7 +23,6 @@ import nhom16oop.ui.board.ChessTile;
 import nhom16oop.ui.components.dialogs.GameOverDialog;
 import nhom16oop.ui.components.dialogs.PromotionDialog;
 import nhom16oop.utils.BoardUtils;
-import nhom16oop.utils.ChessNotationUtils;
 import nhom16oop.utils.SoundPlayer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -40,7 +42,6 @@ import java.util.concurrent.Executors;
 public final class ChessController implements MoveExecutor {
 
     private static final Logger logger = LoggerFactory.getLogger(ChessController.class);
-    private static final int FIFTY_MOVE_RULE_LIMIT = 50;
 
     private JFrame frame;
     private ChessBoard chessBoard;
@@ -141,6 +142,7 @@ public final class ChessController implements MoveExecutor {
         
         // Load board từ FEN
         boardManager.loadFromFEN(fen);
+        historyManager.clear();
         boardUI.repaintPieces();
         
         // Xác định player color từ FEN (phần thứ 2)
@@ -199,10 +201,8 @@ public final class ChessController implements MoveExecutor {
         ChessPiece piece = boardManager.getPiece(move.start());
         BoardState currentBoardState = boardManager.getCurrentBoardState();
 
-        historyManager.clearRedoStack();
-
         boolean isCapture = boardManager.getPiece(move.end()) != null;
-        boolean isPawnMove = piece instanceof Pawn;
+        boolean isPawnMove = piece.getPieceType() == PieceType.PAWN;
 
         ChessTile startTile = boardUI.getTile(move.start());
         ChessTile endTile = boardUI.getTile(move.end());
@@ -212,7 +212,7 @@ public final class ChessController implements MoveExecutor {
             notifyPieceCaptured(piece.getColor(), capturedPiece);
         }
 
-        if (piece instanceof Pawn && (move.end().row() == 7 || move.end().row() == 0)) {
+        if (isPawnMove && (move.end().row() == 7 || move.end().row() == 0)) {
             if (promotionPiece != null) {
                 piece = promotionPiece;
                 logger.info("AI pawn promoted to {} at {}", piece.getClass().getSimpleName(), move.end().toChessNotation());
@@ -222,7 +222,8 @@ public final class ChessController implements MoveExecutor {
             SoundPlayer.playMoveSound();
         }
 
-        historyManager.saveStateForUndo(currentBoardState);
+        int packedMove = Move.of(currentBoardState, move, piece.getPieceType());
+        historyManager.recordMove(currentBoardState, packedMove, boardManager.getSan(currentBoardState, packedMove));
 
         boardManager.setLastMove(move);
 
@@ -232,23 +233,10 @@ public final class ChessController implements MoveExecutor {
         boardManager.setPiece(move.end(), piece);
         boardManager.removePiece(move.start());
 
-        boardManager.updatePieceMovement(move);
 
         startTile.setPiece(null);
         endTile.setPiece(piece);
 
-        if (BoardUtils.isThreefoldRepetition(this.boardManager)) {
-            gameEnded = true;
-            SwingUtilities.invokeLater(() -> {
-                GameOverDialog dialog = new GameOverDialog(frame, "Draw");
-                dialog.setVisible(true);
-            });
-            logger.info("Game ended due to threefold repetition (FIDE)");
-            boardUI.repaintTiles(startTile, endTile);
-            notifyGameStateChanged();
-            return true;
-        }
-
         boardUI.repaintTiles(startTile, endTile);
 
         if (isCapture || isPawnMove) {
@@ -258,11 +246,10 @@ public final class ChessController implements MoveExecutor {
         }
 
         logger.debug("Executed move: {} to {}", move.start().toChessNotation(), move.end().toChessNotation());
-        boardManager.updateBoardStateHistory();
         actionManager.switchTurn();
         notifyHistoryChangeListeners();
 
-        boolean isCheck = BoardUtils.isKingInCheck(currentBoardState.getCurrentPlayerColor(), currentBoardState.getChessPieceMap());
+        boolean isCheck = boardManager.isCurrentPlayerInCheck();
 
         logger.debug("isCheck: {}", isCheck);
 
@@ -274,7 +261,7 @@ public final class ChessController implements MoveExecutor {
             SoundPlayer.playMoveSound();
         }
 
-        executor.submit(this::checkGameEndConditions);
+        checkGameEndConditionsAsync();
 
         // === PUZZLE MODE: Increment moves ===
         if (gameMode == GameMode.PUZZLE_MODE) {
@@ -305,47 +292,40 @@ public final class ChessController implements MoveExecutor {
             return false;
         }
 
-        ChessPiece king = boardManager.getPiece(kingPos);
-        if (!(king instanceof King kingPiece) || king.hasMoved()) {
-            logger.debug("King has moved or not found at {}", kingPos.toChessNotation());
-            return false;
-        }
+        King king = boardManager.getChessPieceMap().getKing(color);
 
-        boolean canCastle = isKingside ? kingPiece.canCastleKingside(kingPos, boardManager.getChessPieceMap()) : kingPiece.canCastleQueenside(kingPos, boardManager.getChessPieceMap());
+        boolean canCastle = isKingside ? king.canCastleKingside(kingPos, currentBoardState) : king.canCastleQueenside(kingPos, currentBoardState);
         if (!canCastle) {
             logger.debug("Cannot castle {} for {}", isKingside ? "kingside" : "queenside", color);
             return false;
         }
 
-        historyManager.clearRedoStack();
-
         int kingRow = (color.isWhite()) ? 0 : 7;
         int rookCol = isKingside ? 7 : 0;
 
-        ChessPosition rookPos = new ChessPosition(rookCol, kingRow);
+        ChessPosition rookPos = ChessPosition.of(rookCol, kingRow);
         ChessPiece rook = boardManager.getPiece(rookPos);
 
         int kingTargetCol = isKingside ? 6 : 2;
         int rookTargetCol = isKingside ? 5 : 3;
 
         ChessTile kingStartTile = boardUI.getTile(kingPos);
-        ChessTile kingEndTile = boardUI.getTile(new ChessPosition(kingTargetCol, kingRow));
+        ChessTile kingEndTile = boardUI.getTile(ChessPosition.of(kingTargetCol, kingRow));
         ChessTile rookStartTile = boardUI.getTile(rookPos);
-        ChessTile rookEndTile = boardUI.getTile(new ChessPosition(rookTargetCol, kingRow));
+        ChessTile rookEndTile = boardUI.getTile(ChessPosition.of(rookTargetCol, kingRow));
 
-        historyManager.saveStateForUndo(currentBoardState);
+        ChessMove castlingMove = new ChessMove(kingPos, ChessPosition.of(kingTargetCol, kingRow));
+        int packedMove = Move.of(currentBoardState, castlingMove, null);
+        historyManager.recordMove(currentBoardState, packedMove, boardManager.getSan(currentBoardState, packedMove));
 
-        boardManager.setLastMove(new ChessMove(kingPos, new ChessPosition(kingTargetCol, kingRow)));
+        boardManager.setLastMove(castlingMove);
 
         boardUI.updateBoardUI();
 
         boardManager.removePiece(kingPos);
         boardManager.removePiece(rookPos);
-        boardManager.setPiece(new ChessPosition(kingTargetCol, kingRow), king);
-        boardManager.setPiece(new ChessPosition(rookTargetCol, kingRow), rook);
-
-        king.setHasMoved(true);
-        rook.setHasMoved(true);
+        boardManager.setPiece(ChessPosition.of(kingTargetCol, kingRow), king);
+        boardManager.setPiece(ChessPosition.of(rookTargetCol, kingRow), rook);
 
         kingStartTile.setPiece(null);
         rookStartTile.setPiece(null);
@@ -354,15 +334,13 @@ public final class ChessController implements MoveExecutor {
 
         boardManager.getCurrentBoardState().incrementHalfmoveClock();
 
-        boardManager.updateBoardStateHistory();
-
         boardUI.repaintTiles(kingStartTile, kingEndTile, rookStartTile, rookEndTile);
         logger.debug("Castling performed: {} for {}", isKingside ? "Kingside" : "Queenside", color);
-        executor.submit(this::checkGameEndConditions);
 
         actionManager.switchTurn();
+        checkGameEndConditionsAsync();
 
-        boolean isCheck = BoardUtils.isKingInCheck(boardManager.getCurrentPlayerColor(), boardManager.getChessPieceMap());
+        boolean isCheck = boardManager.isCurrentPlayerInCheck();
 
         if (isCheck) {
             SoundPlayer.playMoveCheckSound();
@@ -381,69 +359,60 @@ public final class ChessController implements MoveExecutor {
     public boolean performEnPassant(ChessMove move) {
         ChessPiece piece = boardManager.getPiece(move.start());
         BoardState currentBoardState = boardManager.getCurrentBoardState();
-        if (!(piece instanceof Pawn) || gameEnded) {
+        if (piece == null || piece.getPieceType() != PieceType.PAWN || gameEnded) {
             logger.debug("Not a pawn or game ended at {}", move.start().toChessNotation());
             return false;
         }
 
-        ChessMove lastMove = boardManager.getLastMove();
-        if (lastMove == null) {
-            logger.debug("No last move for en passant check");
-            return false;
-        }
-
-        ChessPiece lastMovedPiece = boardManager.getPiece(lastMove.end());
-        if (!(lastMovedPiece instanceof Pawn) || Math.abs(lastMove.start().row() - lastMove.end().row()) != 2 || lastMove.end().row() != move.start().row() || Math.abs(lastMove.end().col() - move.start().col()) != 1) {
-            logger.debug("Last move does not qualify for en passant");
+        ChessPosition enPassantTarget = currentBoardState.getEnPassantTargetSquare();
+        if (!move.end().equals(enPassantTarget) || Math.abs(move.end().col() - move.start().col()) != 1) {
+            logger.debug("No en passant capture onto {}", move.end().toChessNotation());
             return false;
         }
 
         int direction = piece.getColor().isWhite() ? 1 : -1;
-        ChessPosition targetPos = move.end();
-        if (targetPos.row() != move.start().row() + direction || targetPos.col() != lastMove.end().col()) {
+        if (move.end().row() != move.start().row() + direction) {
             logger.debug("Invalid en passant target position");
             return false;
         }
 
-        ChessPieceMap tempMap = BoardUtils.simulateMove(move, boardManager.getChessPieceMap());
-        tempMap.removePiece(lastMove.end());
-        if (BoardUtils.isKingInCheck(piece.getColor(), tempMap)) {
+        ChessPosition capturedPos = ChessPosition.of(move.end().col(), move.start().row());
+
+        if (BoardUtils.leavesKingInCheck(move, boardManager.getChessPieceMap())) {
             logger.debug("En passant invalid under check");
             return false;
         }
 
-        historyManager.clearRedoStack();
-        historyManager.saveStateForUndo(currentBoardState);
+        int packedMove = Move.of(currentBoardState, move, null);
+        historyManager.recordMove(currentBoardState, packedMove, boardManager.getSan(currentBoardState, packedMove));
 
         ChessTile startTile = boardUI.getTile(move.start());
         ChessTile endTile = boardUI.getTile(move.end());
-        ChessTile capturedTile = boardUI.getTile(lastMove.end());
+        ChessTile capturedTile = boardUI.getTile(capturedPos);
 
-        ChessPiece capturedPiece = boardManager.getPiece(lastMove.end());
+        ChessPiece capturedPiece = boardManager.getPiece(capturedPos);
         notifyPieceCaptured(piece.getColor(), capturedPiece);
 
         boardManager.setLastMove(move);
 
         boardUI.updateBoardUI();
 
-        boardManager.removePiece(lastMove.end());
+        boardManager.removePiece(capturedPos);
         boardManager.removePiece(move.start());
         boardManager.setPiece(move.end(), piece);
-        boardManager.updatePieceMovement(move);
-        boardManager.updateBoardStateHistory();
 
         startTile.setPiece(null);
         endTile.setPiece(piece);
         capturedTile.setPiece(null);
 
         boardUI.repaintTiles(startTile, endTile, capturedTile);
-        logger.info("En passant performed: {} to {}, captured at {}", move.start().toChessNotation(), move.end().toChessNotation(), lastMove.end().toChessNotation());
+        logger.info("En passant performed: {} to {}, captured at {}", move.start().toChessNotation(), move.end().toChessNotation(), capturedPos.toChessNotation());
 
         boardManager.getCurrentBoardState().clearHalfmoveClock();
 
         actionManager.switchTurn();
 
-        executor.submit(this::checkGameEndConditions);
+        checkGameEndConditionsAsync();
 
         return true;
     }
@@ -463,12 +432,12 @@ public final class ChessController implements MoveExecutor {
         ChessPiece promotedPiece;
 
         switch (selectedPiece) {
-            case "Queen" -> promotedPiece = new Queen(color);
-            case "Rook" -> promotedPiece = new Rook(color);
-            case "Bishop" -> promotedPiece = new Bishop(color);
-            case "Knight" -> promotedPiece = new Knight(color);
+            case "Queen" -> promotedPiece = Queen.of(color);
+            case "Rook" -> promotedPiece = Rook.of(color);
+            case "Bishop" -> promotedPiece = Bishop.of(color);
+            case "Knight" -> promotedPiece = Knight.of(color);
             default -> {
-                promotedPiece = new Queen(color);
+                promotedPiece = Queen.of(color);
                 logger.error("Invalid promotion choice: {}, defaulting to Queen", selectedPiece);
             }
         }
@@ -487,34 +456,34 @@ public final class ChessController implements MoveExecutor {
     public boolean movePiece(ChessMove move, ChessPiece promotionPiece) {
         ChessPiece piece = boardManager.getPiece(move.start());
         boolean moveSuccessful = false;
-        if (piece == null || gameEnded || !boardUI.getCurrentValidMoves().contains(move) || !BoardUtils.isMoveValidUnderCheck(move, boardManager.getChessPieceMap())) {
+        if (piece == null || gameEnded || !boardManager.getLegalMoveSet().contains(move)) {
             SoundPlayer.playMoveIllegal();
             logger.debug("No piece found at start position or game ended: {}", move.start().toChessNotation());
             boardUI.setCurrentLeftClickedTile(null);
             return false;
         }
 
-        switch (piece) {
-            case King king when Math.abs(move.end().col() - move.start().col()) == 2 -> {
-                boolean isKingside = move.end().col() > move.start().col();
-                if (performCastling(isKingside, piece.getColor())) {
-                    SoundPlayer.playCastleSound();
-                    moveSuccessful = true;
-                } else {
-                    SoundPlayer.playMoveIllegal();
-                }
-            }
-            case Pawn pawn when boardManager.getPiece(move.end()) == null && move.start().col() != move.end().col() && Math.abs(move.start().row() - move.end().row()) == 1 -> {
-                if (performEnPassant(move)) {
-                    SoundPlayer.playCaptureSound();
-                    moveSuccessful = true;
-                } else {
-                    SoundPlayer.playMoveIllegal();
-                }
+        PieceType type = piece.getPieceType();
+        boolean isCastling = type == PieceType.KING && Math.abs(move.end().col() - move.start().col()) == 2;
+        boolean isEnPassant = type == PieceType.PAWN && boardManager.getPiece(move.end()) == null
+                && move.start().col() != move.end().col() && Math.abs(move.start().row() - move.end().row()) == 1;
+        if (isCastling) {
+            boolean isKingside = move.end().col() > move.start().col();
+            if (performCastling(isKingside, piece.getColor())) {
+                SoundPlayer.playCastleSound();
+                moveSuccessful = true;
+            } else {
+                SoundPlayer.playMoveIllegal();
             }
-            default -> {
-                moveSuccessful = executeMove(move, promotionPiece);
+        } else if (isEnPassant) {
+            if (performEnPassant(move)) {
+                SoundPlayer.playCaptureSound();
+                moveSuccessful = true;
+            } else {
+                SoundPlayer.playMoveIllegal();
             }
+        } else {
+            moveSuccessful = executeMove(move, promotionPiece);
         }
 
         if (moveSuccessful) {
@@ -649,15 +618,20 @@ public final class ChessController implements MoveExecutor {
 
     /**
      * Checks for game-ending conditions such as checkmate, stalemate, or draws.
+     *
+     * @param currentBoardState   a copy of the position to check, taken when
+     *                            the check was queued
+     * @param threefoldRepetition whether the position had occurred three times
      */
-    private void checkGameEndConditions() {
+    private void checkGameEndConditions(BoardState currentBoardState, boolean threefoldRepetition) {
+        GameStatus status = boardManager.getGameStatus(currentBoardState, threefoldRepetition);
 
         // === PUZZLE MODE CHECKS ===
         if (gameMode == GameMode.PUZZLE_MODE) {
             PieceColor opponentColor = humanPlayerColor.getOpponent();
             
             // Kiểm tra chiếu hết đối thủ (THẮNG)
-            if (BoardUtils.isCheckmate(opponentColor, boardManager.getChessPieceMap())) {
+            if (currentBoardState.getCurrentPlayerColor() == opponentColor && status == GameStatus.CHECKMATE) {
                 gameEnded = true;
                 SwingUtilities.invokeLater(() -> {
                     GameOverDialog dialog = new GameOverDialog(
@@ -683,32 +657,29 @@ public final class ChessController implements MoveExecutor {
             }
         }
 
-        BoardState currentBoardState = boardManager.getCurrentBoardState();
-
-        if (BoardUtils.isCheckmate(currentBoardState.getCurrentPlayerColor(), boardManager.getChessPieceMap())) {
-            gameEnded = true;
-            SwingUtilities.invokeLater(this::showGameOverDialog);
-        } else if (currentBoardState.getHalfmoveClock() >= FIFTY_MOVE_RULE_LIMIT) {
-            gameEnded = true;
-            SwingUtilities.invokeLater(() -> {
-                GameOverDialog dialog = new GameOverDialog(frame, "Draw game!!!!");
-                dialog.setVisible(true);
-            });
-            logger.info("Game ended due to 50-move rule");
-        } else if (BoardUtils.isDeadPosition(boardManager.getChessPieceMap())) {
+        if (status.isGameOver()) {
             gameEnded = true;
-            SwingUtilities.invokeLater(() -> {
-                GameOverDialog dialog = new GameOverDialog(frame, "Draw game!!!!");
-                dialog.setVisible(true);
-            });
-            logger.info("Game ended due to dead position (insufficient material)");
-        } else if (BoardUtils.isStalemate(currentBoardState.getCurrentPlayerColor(), boardManager.getChessPieceMap())) {
-            gameEnded = true;
-            SwingUtilities.invokeLater(() -> {
-                GameOverDialog dialog = new GameOverDialog(frame, "Stalemate!");
-                dialog.setVisible(true);
-            });
-            logger.info("Game ended due to stalemate");
+        }
+        switch (status) {
+            case CHECKMATE -> SwingUtilities.invokeLater(this::showGameOverDialog);
+            case FIFTY_MOVE -> {
+                showDrawDialog("Draw game!!!!");
+                logger.info("Game ended due to 50-move rule");
+            }
+            case REPETITION -> {
+                showDrawDialog("Draw");
+                logger.info("Game ended due to threefold repetition (FIDE)");
+            }
+            case DEAD -> {
+                showDrawDialog("Draw game!!!!");
+                logger.info("Game ended due to dead position (insufficient material)");
+            }
+            case STALEMATE -> {
+                showDrawDialog("Stalemate!");
+                logger.info("Game ended due to stalemate");
+            }
+            case ONGOING -> {
+            }
         }
         if (gameEnded) {
             notifyGameStateChanged();
@@ -716,10 +687,21 @@ public final class ChessController implements MoveExecutor {
     }
 
     /**
-     * Asynchronously checks for game-ending conditions.
+     * Asynchronously checks for game-ending conditions. The position is copied
+     * here, on the thread that changed it, so the check is not affected by
+     * moves made before it runs.
      */
     public void checkGameEndConditionsAsync() {
-        executor.submit(this::checkGameEndConditions);
+        BoardState position = boardManager.getCurrentBoardState().deepCopy();
+        boolean threefoldRepetition = boardManager.getRepetitionTable().isThreefoldRepetition();
+        executor.submit(() -> checkGameEndConditions(position, threefoldRepetition));
+    }
+
+    private void showDrawDialog(String message) {
+        SwingUtilities.invokeLater(() -> {
+            GameOverDialog dialog = new GameOverDialog(frame, message);
+            dialog.setVisible(true);
+        });
     }
 
     /**
@@ -738,6 +720,7 @@ public final class ChessController implements MoveExecutor {
      */
     public void shutdown() {
         executor.shutdown();
+        boardManager.shutdown();
         SoundPlayer.shutdown();
         if (whitePlayer != null) {
             whitePlayer.shutdown();
@@ -900,7 +883,7 @@ public final class ChessController implements MoveExecutor {
         try {
             if (boardManager != null) {
                 BoardState state = boardManager.getCurrentBoardState();
-                s.fen = ChessNotationUtils.getFEN(state);
+                s.fen = state.getFEN();
             }
             // if (controller.getHistoryManager() != null) {
             //     s.movesSerialized = controller.getHistoryManager().serializeCurrentHistory();
@@ -919,7 +902,8 @@ public final class ChessController implements MoveExecutor {
         try {
             logger.info("try apply FEN: {}", FEN);
             if (FEN != null && !FEN.isEmpty()) {
-                boardManager.getCurrentBoardState().setFromFEN(FEN); // implement loadFromFEN if missing
+                boardManager.loadFromFEN(FEN);
+                historyManager.clear();
                 // notifyTurnChanged();
                 if (boardUI != null) {
                     boardUI.clear();
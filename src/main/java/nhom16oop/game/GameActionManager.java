@@ -3,30 +3,31 @@ package nhom16oop.game;
 import nhom16oop.constants.GameMode;
 import nhom16oop.core.model.BoardState;
 import nhom16oop.core.model.ChessMove;
-import nhom16oop.core.model.ChessPiece;
 import nhom16oop.core.model.ChessPosition;
-import nhom16oop.engine.Stockfish;
+import nhom16oop.engine.Engine;
+import nhom16oop.engine.Engines;
 import nhom16oop.history.GameHistoryManager;
 import nhom16oop.ui.board.ChessTile;
 import nhom16oop.ui.components.dialogs.GameOverDialog;
-import nhom16oop.utils.ChessNotationUtils;
 import nhom16oop.utils.SoundPlayer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import javax.swing.*;
-import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 /**
  * Manages game actions such as hints, undo/redo, and resignation.
- * Interacts with the Stockfish engine for hints and the game history for state management.
+ * Interacts with the configured engine (see {@link Engines}) for hints and the game history for state management.
  */
 public class GameActionManager {
 
     private static final Logger logger = LoggerFactory.getLogger(GameActionManager.class);
     private final ChessController controller;
     private JFrame frame;
-    private final Stockfish stockfish;
+    private final Engine engine;
+    private final ExecutorService hintExecutor = Executors.newSingleThreadExecutor();
     private final GameHistoryManager historyManager;
 
     /**
@@ -37,13 +38,14 @@ public class GameActionManager {
     public GameActionManager(ChessController controller) {
         this.controller = controller;
         this.historyManager = controller.getHistoryManager();
-        this.stockfish = new Stockfish();
-        this.stockfish.start();
+        this.engine = Engines.create();
         logger.debug("GameActionManager initialized");
     }
 
     /**
-     * Shows a hint for the best move in PLAYER_VS_AI mode using Stockfish.
+     * Shows a hint for the best move in PLAYER_VS_AI mode using the engine.
+     * The engine searches a copy of the position off the UI thread, and the
+     * move is highlighted on the UI thread once found.
      */
     public void showHint() {
         if (controller.isGameEnded() || controller.getGameMode() != GameMode.PLAYER_VS_AI) {
@@ -51,18 +53,41 @@ public class GameActionManager {
             return;
         }
 
-        String fen = ChessNotationUtils.getFEN(controller.getBoardManager().getCurrentBoardState());
-        String bestMove = stockfish.getBestMove(fen);
+        BoardManager boardManager = controller.getBoardManager();
+        BoardState position = boardManager.getCurrentBoardState().deepCopy();
+        long[] gameKeys = boardManager.getRepetitionTable().getReversibleKeys();
+        hintExecutor.submit(() -> {
+            try {
+                String bestMove = engine.bestMove(position, gameKeys, Engines.limits());
+                SwingUtilities.invokeLater(() -> showHintMove(bestMove, position.getZobristKey()));
+            } catch (Exception e) {
+                logger.error("Hint search failed with {}", engine.getName(), e);
+            }
+        });
+    }
+
+    /**
+     * Highlights the engine's move unless the board has moved on since the
+     * search started.
+     *
+     * @param bestMove    the move in UCI notation, or null if there is none
+     * @param positionKey the Zobrist key of the searched position
+     */
+    private void showHintMove(String bestMove, long positionKey) {
+        if (controller.getBoardManager().getCurrentBoardState().getZobristKey() != positionKey) {
+            logger.debug("Discarding hint {} for a position no longer on the board", bestMove);
+            return;
+        }
         if (bestMove != null && bestMove.length() >= 4) {
             try {
-                ChessMove hintMove = parseStockfishMove(bestMove);
+                ChessMove hintMove = parseUciMove(bestMove);
                 highlightHintMove(hintMove);
                 logger.info("Hint provided: {}", bestMove);
             } catch (IllegalArgumentException e) {
-                logger.error("Failed to parse Stockfish move: {}", bestMove, e);
+                logger.error("Failed to parse engine move: {}", bestMove, e);
             }
         } else {
-            logger.error("Invalid or no move received from Stockfish: {}", bestMove);
+            logger.error("Invalid or no move received from {}: {}", engine.getName(), bestMove);
         }
     }
 
@@ -70,15 +95,17 @@ public class GameActionManager {
      * Undoes the last move, restoring the previous board state.
      */
     public void undoMove() {
-        if (controller.isGameEnded() || historyManager.getUndoStack().isEmpty()) {
+        if (controller.isGameEnded() || !historyManager.canUndo()) {
             logger.debug("Cannot undo: game ended or no moves to undo");
             SoundPlayer.playMoveIllegal();
             return;
         }
 
         controller.pauseTimer();
-        BoardState previousState = historyManager.getUndoStack().pop();
-        restoreBoardState(previousState, true);
+        controller.getBoardManager().revertBoardStateHistory();
+        historyManager.undo(controller.getBoardManager().getCurrentBoardState());
+        refreshBoard();
+        SoundPlayer.playMoveSound();
         controller.notifyHistoryChangeListeners();
         controller.resumeTimer();
         logger.info("Undo move performed, restored to previous state");
@@ -88,7 +115,7 @@ public class GameActionManager {
      * Redoes a previously undone move, restoring the next board state.
      */
     public void redoMove() {
-        if (controller.isGameEnded() || historyManager.getRedoStack().isEmpty()) {
+        if (controller.isGameEnded() || !historyManager.canRedo()) {
             logger.debug("Cannot redo: game ended or redo stack empty");
             SoundPlayer.playMoveIllegal();
             return;
@@ -96,8 +123,10 @@ public class GameActionManager {
 
         try {
             controller.pauseTimer();
-            BoardState nextState = historyManager.getRedoStack().pop();
-            restoreBoardState(nextState, false);
+            historyManager.redo(controller.getBoardManager().getCurrentBoardState());
+            controller.getBoardManager().updateBoardStateHistory();
+            refreshBoard();
+            SoundPlayer.playMoveSound();
             controller.notifyHistoryChangeListeners();
             controller.resumeTimer();
             logger.info("Redo performed, restored state");
@@ -107,6 +136,31 @@ public class GameActionManager {
         }
     }
 
+    /**
+     * Shows the position at any ply of the game, played or undone, without
+     * stepping through the moves in between. Moves after the ply stay
+     * available to redo.
+     *
+     * @param ply the number of moves from the start of the game
+     */
+    public void jumpToPly(int ply) {
+        if (controller.isGameEnded() || ply == historyManager.getUndoCount()) {
+            return;
+        }
+        if (ply < 0 || ply > historyManager.getMoveCount()) {
+            logger.debug("Cannot jump to ply {}: game has {} moves", ply, historyManager.getMoveCount());
+            return;
+        }
+
+        controller.pauseTimer();
+        BoardManager boardManager = controller.getBoardManager();
+        boardManager.setPosition(historyManager.jumpTo(ply, boardManager.getRepetitionTable()));
+        refreshBoard();
+        controller.notifyHistoryChangeListeners();
+        controller.resumeTimer();
+        logger.info("Jumped to ply {}", ply);
+    }
+
     /**
      * Resigns the game, declaring the opponent as the winner.
      */
@@ -139,26 +193,28 @@ public class GameActionManager {
         BoardState currentBoardState = controller.getBoardManager().getCurrentBoardState();
         currentBoardState.setCurrentPlayerColor(currentBoardState.getCurrentPlayerColor().getOpponent());
         if (controller.getBoardManager().getCurrentPlayerColor().isWhite()) currentBoardState.incrementFullmoveNumber();
+        controller.getBoardManager().updateBoardStateHistory();
         controller.notifyGameStateChanged();
         controller.notifyTurnChanged();
         controller.notifyScoreUpdated();
     }
     /**
-     * Shuts down the manager, stopping the Stockfish engine.
+     * Shuts down the manager, stopping any hint search and the engine.
      */
     public void shutdown() {
-        stockfish.stopEngine();
+        hintExecutor.shutdownNow();
+        engine.stop();
         logger.debug("GameActionManager shutdown");
     }
 
     /**
-     * Parses a Stockfish move notation into a ChessMove.
+     * Parses an engine move in UCI notation into a ChessMove.
      *
      * @param moveNotation The move notation (e.g., "e2e4").
      * @return The parsed ChessMove.
      * @throws IllegalArgumentException If the notation is invalid.
      */
-    private ChessMove parseStockfishMove(String moveNotation) {
+    private ChessMove parseUciMove(String moveNotation) {
         if (moveNotation == null || moveNotation.length() < 4) {
             throw new IllegalArgumentException("Invalid move notation: " + moveNotation);
         }
@@ -183,36 +239,17 @@ public class GameActionManager {
     }
 
     /**
-     * Restores the board to a specified state, updating UI and listeners.
-     *
-     * @param state  The BoardState to restore.
-     * @param isUndo True if this is an undo operation, false for redo.
+     * Redraws the board after the current board state was changed in place by
+     * an undo, a redo or a jump, and checks whether the game is over.
      */
-    private void restoreBoardState(BoardState state, boolean isUndo) {
-        historyManager.decrementBoardStateCount(controller.getBoardManager().getCurrentBoardState());
-        if (isUndo) {
-            historyManager.saveStateForRedo(controller.getBoardManager().getCurrentBoardState());
-            historyManager.decrementBoardStateCount(state);
-        } else {
-            historyManager.saveStateForUndo(controller.getBoardManager().getCurrentBoardState());
-            historyManager.incrementBoardStateCount(state);
-        }
-
+    private void refreshBoard() {
         controller.getBoardUI().clearLastMoveHighlights();
         controller.getBoardUI().setCurrentLeftClickedTile(null);
-        controller.clear();
-
-        for (Map.Entry<ChessPosition, ChessPiece> entry : state.getChessPieceMap().getPieceMap().entrySet()) {
-            controller.getBoardManager().setPiece(entry.getKey(), entry.getValue());
-        }
-
-        controller.getBoardManager().getCurrentBoardState().updateFrom(state);
-        controller.getBoardManager().setLastMove(state.getLastMove());
+        controller.getBoardUI().clearCurrentValidMoves();
         controller.getBoardUI().repaintPieces();
         controller.getBoardUI().highlightLastMove();
 
         notifyGameStateListeners();
-        SoundPlayer.playMoveSound();
         controller.checkGameEndConditionsAsync();
     }
 
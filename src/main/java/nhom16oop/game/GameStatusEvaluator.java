@@ -0,0 +1,146 @@
+package nhom16oop.game;
+
+import nhom16oop.constants.GameConstants;
+import nhom16oop.constants.GameStatus;
+import nhom16oop.core.model.BoardState;
+import nhom16oop.core.movegen.LegalMoveGenerator;
+import nhom16oop.history.RepetitionTable;
+import nhom16oop.utils.BoardUtils;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Works out whether the game is over, evaluating each position once. Whether
+ * the side to move is in check, whether it has a legal move (generation stops
+ * at the first one) and whether mate is still possible depend only on the
+ * position, so they are cached by Zobrist key and shared by every caller.
+ * The fifty-move rule and repetition depend on the game's history and are
+ * checked against it on every call, which costs a counter comparison and a
+ * short table scan.
+ * <p>
+ * When several outcomes apply, checkmate wins, followed by the fifty-move
+ * rule, repetition, a dead position and stalemate.
+ * <p>
+ * Game end checks run on a background thread while the UI asks about check on
+ * the event thread, so the cache is guarded by its own lock. Only the lookup
+ * and the insertion hold it; a status is computed outside it, so two threads
+ * may compute the same position at once, which only costs the duplicate work.
+ */
+public class GameStatusEvaluator {
+
+    private static final int CACHE_SIZE = 1024;
+
+    /**
+     * The part of the status that depends only on the position.
+     *
+     * @param inCheck whether the side to move is in check
+     * @param status  CHECKMATE, STALEMATE, DEAD or ONGOING
+     */
+    private record PositionStatus(boolean inCheck, GameStatus status) {
+    }
+
+    private final Map<Long, PositionStatus> cache = new LinkedHashMap<>(CACHE_SIZE, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Long, PositionStatus> eldest) {
+            return size() > CACHE_SIZE;
+        }
+    };
+
+    /**
+     * Evaluates the status of a position reached in a game.
+     *
+     * @param boardState      the position, with the side to move set
+     * @param repetitionTable the positions reached so far, newest being
+     *                        {@code boardState}, or null to skip the
+     *                        repetition check
+     * @return the game status
+     */
+    public GameStatus evaluate(BoardState boardState, RepetitionTable repetitionTable) {
+        return evaluate(boardState, repetitionTable != null && repetitionTable.isThreefoldRepetition());
+    }
+
+    /**
+     * Evaluates the status of a position whose repetition count was taken
+     * beforehand, as for a copy of the position checked on another thread.
+     *
+     * @param boardState          the position, with the side to move set
+     * @param threefoldRepetition whether the position has occurred three times
+     * @return the game status
+     */
+    public GameStatus evaluate(BoardState boardState, boolean threefoldRepetition) {
+        GameStatus status = getPositionStatus(boardState).status();
+        if (status == GameStatus.CHECKMATE) {
+            return status;
+        }
+        if (boardState.getHalfmoveClock() >= GameConstants.FIFTY_MOVE_RULE_LIMIT) {
+            return GameStatus.FIFTY_MOVE;
+        }
+        if (threefoldRepetition) {
+            return GameStatus.REPETITION;
+        }
+        return status;
+    }
+
+    /**
+     * Checks whether the side to move is in check.
+     *
+     * @param boardState the position
+     * @return true if the king of the side to move is attacked
+     */
+    public boolean isInCheck(BoardState boardState) {
+        return getPositionStatus(boardState).inCheck();
+    }
+
+    /**
+     * Computes and caches the parts of the status that depend only on the
+     * position, so a later {@link #evaluate} or {@link #isInCheck} for it is a
+     * lookup.
+     *
+     * @param boardState the position
+     */
+    public void precompute(BoardState boardState) {
+        getPositionStatus(boardState);
+    }
+
+    /**
+     * Forgets every cached position.
+     */
+    public void clear() {
+        synchronized (cache) {
+            cache.clear();
+        }
+    }
+
+    private PositionStatus getPositionStatus(BoardState boardState) {
+        long key = boardState.getZobristKey();
+        PositionStatus status;
+        synchronized (cache) {
+            status = cache.get(key);
+        }
+        if (status == null) {
+            status = computePositionStatus(boardState);
+            synchronized (cache) {
+                cache.put(key, status);
+            }
+        }
+        return status;
+    }
+
+    private static PositionStatus computePositionStatus(BoardState boardState) {
+        LegalMoveGenerator generator = new LegalMoveGenerator(boardState);
+        boolean inCheck = generator.isInCheck();
+        boolean hasLegalMove = generator.hasLegalMove();
+        GameStatus status;
+        if (inCheck && !hasLegalMove) {
+            status = GameStatus.CHECKMATE;
+        } else if (BoardUtils.isDeadPosition(boardState.getChessPieceMap())) {
+            status = GameStatus.DEAD;
+        } else if (!hasLegalMove) {
+            status = GameStatus.STALEMATE;
+        } else {
+            status = GameStatus.ONGOING;
+        }
+        return new PositionStatus(inCheck, status);
+    }
+}
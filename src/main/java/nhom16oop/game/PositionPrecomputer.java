@@ -0,0 +1,170 @@
+package nhom16oop.game;
+
+import nhom16oop.core.model.BoardState;
+import nhom16oop.core.movegen.LegalMoveGenerator;
+import nhom16oop.core.movegen.LegalMoveSet;
+import nhom16oop.core.movegen.Move;
+import nhom16oop.core.movegen.MoveList;
+import nhom16oop.utils.ChessNotationUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Uses the time a player spends thinking to prepare everything the UI thread
+ * will ask for once the next move is made. When a position is reached, a
+ * background thread computes its legal move set, its game status and the SAN
+ * of each of its moves, then does the same for the position after every
+ * legal reply. Results are published into a bounded cache keyed by Zobrist
+ * key, so highlighting, move validation, game end detection and the move list
+ * find them ready instead of computing them on the spot.
+ * <p>
+ * Only the newest position is worked on: when another position is submitted,
+ * work on the previous one stops at the next reply. Everything here is an
+ * optimization; a cache miss just means the caller computes the value itself.
+ */
+public class PositionPrecomputer {
+
+    private static final Logger logger = LoggerFactory.getLogger(PositionPrecomputer.class);
+    private static final int CACHE_SIZE = 2048;
+
+    /**
+     * What is known in advance about one position.
+     *
+     * @param legalMoves the legal moves of the side to move
+     * @param sanByUci   the SAN of each legal move, keyed by its UCI notation
+     */
+    public record Entry(LegalMoveSet legalMoves, Map<String, String> sanByUci) {
+    }
+
+    private final GameStatusEvaluator gameStatusEvaluator;
+    private final ExecutorService executor;
+    private final AtomicLong latestRequest = new AtomicLong();
+    private final Map<Long, Entry> cache = new LinkedHashMap<>(CACHE_SIZE, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Long, Entry> eldest) {
+            return size() > CACHE_SIZE;
+        }
+    };
+
+    /**
+     * Constructs a precomputer with its own low-priority daemon thread.
+     *
+     * @param gameStatusEvaluator the evaluator whose cache game statuses are
+     *                            computed into
+     */
+    public PositionPrecomputer(GameStatusEvaluator gameStatusEvaluator) {
+        this.gameStatusEvaluator = gameStatusEvaluator;
+        this.executor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "position-precomputer");
+            thread.setDaemon(true);
+            thread.setPriority(Thread.MIN_PRIORITY);
+            return thread;
+        });
+    }
+
+    /**
+     * Starts precomputing a position and its replies in the background. The
+     * position is copied, so the caller may go on changing it.
+     *
+     * @param boardState the position just reached
+     */
+    public void submit(BoardState boardState) {
+        if (executor.isShutdown()) {
+            return;
+        }
+        BoardState position = boardState.deepCopy();
+        long request = latestRequest.incrementAndGet();
+        executor.execute(() -> {
+            try {
+                precompute(position, request);
+            } catch (RuntimeException e) {
+                logger.warn("Precomputation failed", e);
+            }
+        });
+    }
+
+    /**
+     * Stops the background thread, abandoning any precomputation in progress,
+     * and drops the cached positions. Later submissions are ignored.
+     */
+    public synchronized void shutdown() {
+        executor.shutdownNow();
+        cache.clear();
+    }
+
+    /**
+     * Returns the precomputed legal moves of a position.
+     *
+     * @param positionKey the Zobrist key of the position
+     * @return the legal move set, or null if it has not been computed
+     */
+    public LegalMoveSet getLegalMoveSet(long positionKey) {
+        Entry entry = getEntry(positionKey);
+        return entry != null ? entry.legalMoves() : null;
+    }
+
+    /**
+     * Returns the precomputed SAN of a move.
+     *
+     * @param positionKey the Zobrist key of the position before the move
+     * @param uci         the move in UCI notation, e.g. "e2e4" or "e7e8q"
+     * @return the move in SAN, or null if it has not been computed
+     */
+    public String getSan(long positionKey, String uci) {
+        Entry entry = getEntry(positionKey);
+        return entry != null ? entry.sanByUci().get(uci) : null;
+    }
+
+    public synchronized Entry getEntry(long positionKey) {
+        return cache.get(positionKey);
+    }
+
+    private synchronized void putEntry(long positionKey, Entry entry) {
+        cache.put(positionKey, entry);
+    }
+
+    private void precompute(BoardState position, long request) {
+        if (request != latestRequest.get()) {
+            return;
+        }
+        MoveList moves = new MoveList();
+        prepare(position, moves);
+        MoveList replies = new MoveList();
+        for (int i = 0; i < moves.size(); i++) {
+            if (request != latestRequest.get()) {
+                return;
+            }
+            int move = moves.get(i);
+            long undo = position.makeMove(move);
+            replies.clear();
+            prepare(position, replies);
+            position.unmakeMove(move, undo);
+        }
+    }
+
+    /**
+     * Computes and caches the entry and game status of one position, and
+     * leaves its legal moves in {@code moves}.
+     */
+    private void prepare(BoardState position, MoveList moves) {
+        new LegalMoveGenerator(position).generateLegalMoves(moves);
+        long key = position.getZobristKey();
+        gameStatusEvaluator.precompute(position);
+        if (getEntry(key) != null) {
+            return;
+        }
+        Map<String, String> sanByUci = new HashMap<>();
+        for (int i = 0; i < moves.size(); i++) {
+            int move = moves.get(i);
+            sanByUci.put(Move.toUci(move), ChessNotationUtils.toSan(position, move, moves));
+        }
+        putEntry(key, new Entry(new LegalMoveSet(key, moves), Map.copyOf(sanByUci)));
+    }
+}
@@ -1,76 +1,288 @@
 package nhom16oop.history;
 
+import nhom16oop.constants.PieceColor;
+import nhom16oop.constants.PieceType;
 import nhom16oop.core.model.BoardState;
+import nhom16oop.core.model.ChessMove;
+import nhom16oop.core.model.ChessPiece;
+import nhom16oop.core.model.ChessPosition;
+import nhom16oop.core.model.UndoRecord;
+import nhom16oop.core.movegen.Move;
+import nhom16oop.core.pieces.BitboardPieceMap;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.util.Map;
-import java.util.Stack;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.Arrays;
 
+/**
+ * Records the moves of a game for undo and redo as one {@code long} per ply,
+ * instead of a copy of the board for every move.
+ * <p>
+ * Each entry packs the move (see {@link Move}) together with what the move
+ * overwrites and cannot be recomputed from the position after it:
+ * <pre>
+ * bits  0-18  packed move
+ * bits 19-22  castling rights before the move
+ * bits 23-29  en passant target square before the move, 64 if none
+ * bits 30-32  captured piece type ordinal + 1, 0 if nothing was captured
+ * bits 33-48  halfmove clock before the move
+ * </pre>
+ * The moved piece, the castling rook, the fullmove number and the previous
+ * last move all follow from the position after the move and the entry
+ * before it, so an undo is a single {@link BoardState#unmakeMove(UndoRecord)}
+ * and a redo a single {@link BoardState#makeMove(int)}.
+ * <p>
+ * Undone moves stay in the array after the cursor until a new move is
+ * recorded, which makes them the redo history. The notation of each move is
+ * kept alongside, worked out once when the move is recorded, so showing the
+ * move list never replays the game. The {@link GameTimeline}
+ * keeps position checkpoints alongside, so any ply of the recorded game can
+ * be reached without undoing or redoing one move at a time.
+ */
 public class GameHistoryManager {
 
     private static final Logger logger = LoggerFactory.getLogger(GameHistoryManager.class);
 
-    private final Map<BoardState, Integer> boardStateHistory;
-    private final Stack<BoardState> undoStack;
-    private final Stack<BoardState> redoStack;
+    private static final int INITIAL_CAPACITY = 256;
+    private static final int MOVE_BITS = 19;
+    private static final long MOVE_MASK = (1L << MOVE_BITS) - 1;
+    private static final int CASTLING_SHIFT = 19;
+    private static final int EN_PASSANT_SHIFT = 23;
+    private static final int NO_SQUARE = 64;
+    private static final int CAPTURED_SHIFT = 30;
+    private static final int HALFMOVE_SHIFT = 33;
+    private static final int HALFMOVE_MASK = 0xffff;
+    private static final PieceType[] PIECE_TYPES = PieceType.values();
 
-    public GameHistoryManager() {
-        this.boardStateHistory = new ConcurrentHashMap<>();
-        this.undoStack = new Stack<>();
-        this.redoStack = new Stack<>();
-    }
+    private long[] plies = new long[INITIAL_CAPACITY];
+    private long[] positionKeys = new long[INITIAL_CAPACITY];
+    private String[] notations = new String[INITIAL_CAPACITY];
+    private int size;
+    private int cursor;
+    private ChessMove initialLastMove;
+    private final GameTimeline timeline = new GameTimeline(GameTimeline.DEFAULT_CHECKPOINT_INTERVAL);
 
-    public void saveStateForUndo(BoardState state) {
-        if (state == null) {
-            logger.warn("Attempted to save null BoardState for undo");
+    /**
+     * Records a move about to be made in the given position and drops any
+     * undone moves, which can no longer be redone.
+     *
+     * @param before   the position before the move
+     * @param move     the packed move
+     * @param notation the move in Standard Algebraic Notation
+     */
+    public void recordMove(BoardState before, int move, String notation) {
+        if (before == null) {
+            logger.warn("Attempted to record a move without a BoardState");
             return;
         }
+        if (cursor == 0) {
+            initialLastMove = before.getLastMove();
+        }
+        ChessPosition enPassant = before.getEnPassantTargetSquare();
+        ChessPiece captured = Move.isEnPassant(move) ? null : before.getChessPieceMap().getPiece(Move.toChessMove(move).end());
+        long entry = move
+                | (long) before.getCastlingRights() << CASTLING_SHIFT
+                | (long) (enPassant != null ? BitboardPieceMap.squareOf(enPassant) : NO_SQUARE) << EN_PASSANT_SHIFT
+                | (long) (captured != null ? captured.getPieceType().ordinal() + 1 : 0) << CAPTURED_SHIFT
+                | (long) Math.min(before.getHalfmoveClock(), HALFMOVE_MASK) << HALFMOVE_SHIFT;
+        if (cursor == plies.length) {
+            plies = Arrays.copyOf(plies, cursor * 2);
+            positionKeys = Arrays.copyOf(positionKeys, cursor * 2);
+            notations = Arrays.copyOf(notations, cursor * 2);
+        }
+        timeline.onMoveRecorded(cursor, before);
+        positionKeys[cursor] = before.getZobristKey();
+        notations[cursor] = notation;
+        plies[cursor++] = entry;
+        size = cursor;
+        logger.debug("Recorded move {}, undo history size: {}", Move.toUci(move), cursor);
+    }
 
-        BoardState stateCopy = state.deepCopy();
-        undoStack.push(stateCopy);
-        incrementBoardStateCount(stateCopy);
-        logger.debug("Saved state for undo. Last move: {}, Undo stack size: {}", stateCopy.getLastMove(), undoStack.size());
+    /**
+     * Takes back the newest move on the given board state, which must be the
+     * position the move led to.
+     *
+     * @param boardState the current position, changed in place
+     * @return the packed move that was taken back
+     * @throws IllegalStateException if there is no move to undo
+     */
+    public int undo(BoardState boardState) {
+        if (cursor == 0) {
+            throw new IllegalStateException("No move to undo");
+        }
+        long entry = plies[--cursor];
+        boardState.unmakeMove(toUndoRecord(boardState, entry, previousLastMove(cursor)));
+        logger.debug("Undid move {}, undo history size: {}", Move.toUci(moveOf(entry)), cursor);
+        return moveOf(entry);
     }
 
-    public void saveStateForRedo(BoardState state) {
-        if (state == null) {
-            logger.warn("Attempted to save null BoardState for redo");
-            return;
+    /**
+     * Makes the most recently undone move again on the given board state.
+     *
+     * @param boardState the current position, changed in place
+     * @return the packed move that was made
+     * @throws IllegalStateException if there is no move to redo
+     */
+    public int redo(BoardState boardState) {
+        if (cursor == size) {
+            throw new IllegalStateException("No move to redo");
         }
-        BoardState stateCopy = state.deepCopy();
-        redoStack.push(stateCopy);
-        logger.debug("Saved state for redo. Redo stack size: {}", redoStack.size());
+        int move = moveOf(plies[cursor++]);
+        boardState.makeMove(move);
+        logger.debug("Redid move {}, redo history size: {}", Move.toUci(move), size - cursor);
+        return move;
     }
 
-    public Stack<BoardState> getUndoStack() {
-        return undoStack;
+    /**
+     * Moves to any ply of the recorded game, played or undone, as if moves
+     * had been undone or redone one at a time up to it. The repetition table
+     * is brought along from the stored position keys.
+     *
+     * @param ply             the number of moves from the start, between 0
+     *                        and {@link #getMoveCount()}
+     * @param repetitionTable the table holding the positions up to the
+     *                        current ply
+     * @return a new board state holding the position at the ply
+     * @throws IndexOutOfBoundsException if the ply is outside the recorded game
+     */
+    public BoardState jumpTo(int ply, RepetitionTable repetitionTable) {
+        BoardState position = positionAt(ply);
+        if (ply < cursor) {
+            for (int undone = cursor; undone > ply; undone--) {
+                repetitionTable.pop();
+            }
+        } else if (ply > cursor) {
+            // A recorded move's entry holds the key of the position it was
+            // played from, which is the position at that ply
+            for (int redone = cursor + 1; redone < ply; redone++) {
+                repetitionTable.push(positionKeys[redone], halfmoveClockBefore(plies[redone]));
+            }
+            repetitionTable.push(position.getZobristKey(), position.getHalfmoveClock());
+        }
+        cursor = ply;
+        logger.debug("Jumped to ply {} of {}", ply, size);
+        return position;
     }
 
-    public Stack<BoardState> getRedoStack() {
-        return redoStack;
+    /**
+     * Rebuilds the position at any ply of the recorded game, played or
+     * undone, from the nearest timeline checkpoint before it.
+     *
+     * @param ply the number of moves from the start, between 0 and
+     *            {@link #getMoveCount()}
+     * @return a new board state holding the position at the ply
+     * @throws IndexOutOfBoundsException if the ply is outside the recorded
+     *                                   game or no move has been recorded
+     */
+    public BoardState positionAt(int ply) {
+        return timeline.positionAt(ply, size, this::getMove);
     }
 
-    public void clearRedoStack() {
-        this.redoStack.clear();
+    /**
+     * Returns a recorded move, played or undone.
+     *
+     * @param ply the index of the move, 0 for the first
+     * @return the packed move
+     * @throws IndexOutOfBoundsException if no move is recorded at the ply
+     */
+    public int getMove(int ply) {
+        if (ply < 0 || ply >= size) {
+            throw new IndexOutOfBoundsException("No played move at ply " + ply);
+        }
+        return moveOf(plies[ply]);
     }
 
-    public void incrementBoardStateCount(BoardState state) {
-        if (state == null) {
-            logger.warn("Attempted to increment count for null BoardState");
-            return;
+    /**
+     * Returns the notation of a recorded move, played or undone.
+     *
+     * @param ply the index of the move, 0 for the first
+     * @return the move in Standard Algebraic Notation
+     * @throws IndexOutOfBoundsException if no move is recorded at the ply
+     */
+    public String getNotation(int ply) {
+        if (ply < 0 || ply >= size) {
+            throw new IndexOutOfBoundsException("No played move at ply " + ply);
         }
-        boardStateHistory.merge(state, 1, Integer::sum);
-        logger.debug("Incremented board state count: {} -> {}", state, boardStateHistory.get(state));
+        return notations[ply];
     }
 
-    public void decrementBoardStateCount(BoardState state) {
-        if (state == null) {
-            logger.warn("Attempted to decrement count for null BoardState");
-            return;
+    public boolean canUndo() {
+        return cursor > 0;
+    }
+
+    public boolean canRedo() {
+        return cursor < size;
+    }
+
+    public int getUndoCount() {
+        return cursor;
+    }
+
+    public int getRedoCount() {
+        return size - cursor;
+    }
+
+    public int getMoveCount() {
+        return size;
+    }
+
+    public GameTimeline getTimeline() {
+        return timeline;
+    }
+
+    /**
+     * Forgets every recorded move, for when a position is loaded rather than
+     * reached by moves.
+     */
+    public void clear() {
+        size = 0;
+        cursor = 0;
+        initialLastMove = null;
+        timeline.clear();
+    }
+
+    private ChessMove previousLastMove(int ply) {
+        return ply == 0 ? initialLastMove : Move.toChessMove(moveOf(plies[ply - 1]));
+    }
+
+    private static int moveOf(long entry) {
+        return (int) (entry & MOVE_MASK);
+    }
+
+    private static int halfmoveClockBefore(long entry) {
+        return (int) (entry >>> HALFMOVE_SHIFT) & HALFMOVE_MASK;
+    }
+
+    /**
+     * Rebuilds the undo record of a move from its entry and the position the
+     * move led to.
+     */
+    private static UndoRecord toUndoRecord(BoardState after, long entry, ChessMove lastMove) {
+        int move = moveOf(entry);
+        ChessMove chessMove = Move.toChessMove(move);
+        PieceColor mover = after.getCurrentPlayerColor().getOpponent();
+        ChessPiece movedPiece = Move.isPromotion(move)
+                ? ChessPiece.of(mover, PieceType.PAWN)
+                : after.getChessPieceMap().getPiece(chessMove.end());
+
+        ChessPiece capturedPiece = null;
+        ChessPosition capturedPosition = chessMove.end();
+        if (Move.isEnPassant(move)) {
+            capturedPiece = ChessPiece.of(mover.getOpponent(), PieceType.PAWN);
+            capturedPosition = ChessPosition.of(chessMove.end().col(), chessMove.start().row());
+        } else {
+            int captured = (int) (entry >>> CAPTURED_SHIFT) & 0x7;
+            if (captured != 0) {
+                capturedPiece = ChessPiece.of(mover.getOpponent(), PIECE_TYPES[captured - 1]);
+            }
         }
-        boardStateHistory.computeIfPresent(state, (k, v) -> v > 1 ? v - 1 : null);
-        logger.debug("Decremented board state count: {} -> {}", state, boardStateHistory.getOrDefault(state, 0));
+
+        ChessPiece castlingRook = Move.isCastling(move) ? ChessPiece.of(mover, PieceType.ROOK) : null;
+        int enPassantSquare = (int) (entry >>> EN_PASSANT_SHIFT) & 0x7f;
+        int fullmoveNumber = after.getFullmoveNumber() - (mover.isBlack() ? 1 : 0);
+        return new UndoRecord(chessMove, movedPiece, capturedPiece, capturedPosition, castlingRook,
+                (int) (entry >>> CASTLING_SHIFT) & 0xf,
+                enPassantSquare == NO_SQUARE ? null : BitboardPieceMap.positionOf(enPassantSquare),
+                halfmoveClockBefore(entry), fullmoveNumber, lastMove);
     }
 }
@@ -0,0 +1,82 @@
+package nhom16oop.history;
+
+import nhom16oop.core.model.BoardState;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.IntUnaryOperator;
+
+/**
+ * Gives the position at any ply of the game recorded by a
+ * {@link GameHistoryManager}, including plies that were undone and can still
+ * be redone.
+ * <p>
+ * A copy of the position is kept every {@code checkpointInterval} plies,
+ * taken as the moves are recorded. Checkpoints sit at fixed plies, so the
+ * nearest one before a ply is found by division, and reaching the ply
+ * replays fewer than {@code checkpointInterval} moves on a copy of it.
+ * Memory grows with the number of moves divided by the interval.
+ */
+public class GameTimeline {
+
+    public static final int DEFAULT_CHECKPOINT_INTERVAL = 16;
+
+    private final int checkpointInterval;
+    private final List<BoardState> checkpoints = new ArrayList<>();
+
+    GameTimeline(int checkpointInterval) {
+        if (checkpointInterval < 1) {
+            throw new IllegalArgumentException("Checkpoint interval must be at least 1: " + checkpointInterval);
+        }
+        this.checkpointInterval = checkpointInterval;
+    }
+
+    /**
+     * Called by the history before a move is recorded at a ply. Drops the
+     * checkpoints after the ply, which belonged to moves that are being
+     * replaced, and takes one if the ply is due for it.
+     *
+     * @param ply    the ply of the move about to be recorded
+     * @param before the position at that ply
+     */
+    void onMoveRecorded(int ply, BoardState before) {
+        int valid = ply / checkpointInterval + 1;
+        while (checkpoints.size() > valid) {
+            checkpoints.remove(checkpoints.size() - 1);
+        }
+        if (ply % checkpointInterval == 0 && checkpoints.size() == ply / checkpointInterval) {
+            checkpoints.add(before.deepCopy());
+        }
+    }
+
+    void clear() {
+        checkpoints.clear();
+    }
+
+    /**
+     * Rebuilds the position at a ply from the nearest checkpoint before it.
+     *
+     * @param ply       the number of moves from the start, between 0 and
+     *                  {@code moveCount}
+     * @param moveCount the number of recorded moves
+     * @param moves     gives the packed move recorded at a ply
+     * @return a new board state holding the position at the ply
+     * @throws IndexOutOfBoundsException if the ply is outside the recorded
+     *                                   game or no move has been recorded
+     */
+    BoardState positionAt(int ply, int moveCount, IntUnaryOperator moves) {
+        if (ply < 0 || ply > moveCount || checkpoints.isEmpty()) {
+            throw new IndexOutOfBoundsException("No position at ply " + ply);
+        }
+        int index = Math.min(ply / checkpointInterval, checkpoints.size() - 1);
+        BoardState position = checkpoints.get(index).deepCopy();
+        for (int replay = index * checkpointInterval; replay < ply; replay++) {
+            position.makeMove(moves.applyAsInt(replay));
+        }
+        return position;
+    }
+
+    public int getCheckpointInterval() {
+        return checkpointInterval;
+    }
+}
@@ -0,0 +1,113 @@
+package nhom16oop.history;
+
+import java.util.Arrays;
+
+/**
+ * Records the Zobrist key of every position reached in a game, indexed by ply,
+ * for threefold repetition detection.
+ * <p>
+ * A position can only repeat one reached since the last irreversible move (a
+ * capture or a pawn move), which is exactly what the halfmove clock counts, so
+ * a lookup compares the newest key with at most {@code halfmoveClock / 2}
+ * earlier keys of the same side to move. Taking a move back just drops the
+ * newest entry.
+ * <p>
+ * Methods are synchronized because game end checks read the table from a
+ * background thread while moves are recorded on the UI thread.
+ */
+public class RepetitionTable {
+
+    private static final int INITIAL_CAPACITY = 256;
+
+    private long[] keys = new long[INITIAL_CAPACITY];
+    private int[] halfmoveClocks = new int[INITIAL_CAPACITY];
+    private int size;
+
+    /**
+     * Records a newly reached position.
+     *
+     * @param key           the Zobrist key of the position
+     * @param halfmoveClock the halfmove clock of the position
+     */
+    public synchronized void push(long key, int halfmoveClock) {
+        if (size == keys.length) {
+            keys = Arrays.copyOf(keys, size * 2);
+            halfmoveClocks = Arrays.copyOf(halfmoveClocks, size * 2);
+        }
+        keys[size] = key;
+        halfmoveClocks[size] = halfmoveClock;
+        size++;
+    }
+
+    /**
+     * Drops the newest position, as when its move is undone. Does nothing if
+     * the table is empty.
+     */
+    public synchronized void pop() {
+        if (size > 0) {
+            size--;
+        }
+    }
+
+    /**
+     * Forgets every recorded position.
+     */
+    public synchronized void clear() {
+        size = 0;
+    }
+
+    /**
+     * Returns the number of recorded positions.
+     *
+     * @return the number of plies in the table
+     */
+    public synchronized int size() {
+        return size;
+    }
+
+    /**
+     * Returns the keys of the positions before the newest one, back to the
+     * last irreversible move, oldest first. These are the earlier positions a
+     * line played from the newest position can repeat.
+     *
+     * @return the keys, empty if the table holds at most one position
+     */
+    public synchronized long[] getReversibleKeys() {
+        if (size == 0) {
+            return new long[0];
+        }
+        int newest = size - 1;
+        int oldest = Math.max(0, newest - halfmoveClocks[newest]);
+        return Arrays.copyOfRange(keys, oldest, newest);
+    }
+
+    /**
+     * Counts how many times the newest position has occurred, itself included.
+     *
+     * @return the number of occurrences, or 0 if the table is empty
+     */
+    public synchronized int countOccurrences() {
+        if (size == 0) {
+            return 0;
+        }
+        int newest = size - 1;
+        long key = keys[newest];
+        int oldest = Math.max(0, newest - halfmoveClocks[newest]);
+        int occurrences = 1;
+        for (int ply = newest - 2; ply >= oldest; ply -= 2) {
+            if (keys[ply] == key) {
+                occurrences++;
+            }
+        }
+        return occurrences;
+    }
+
+    /**
+     * Checks if the newest position has occurred at least three times.
+     *
+     * @return true if the position is a threefold repetition, false otherwise
+     */
+    public boolean isThreefoldRepetition() {
+        return countOccurrences() >= 3;
+    }
+}
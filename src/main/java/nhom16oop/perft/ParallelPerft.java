@@ -0,0 +1,94 @@
+package nhom16oop.perft;
+
+import nhom16oop.core.model.BoardState;
+import nhom16oop.core.movegen.LegalMoveGenerator;
+import nhom16oop.core.movegen.MoveList;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Perft spread over a {@link ForkJoinPool}. The tree is split into one task per
+ * move at the root and again at the second ply; every task plays its move on
+ * its own copy of the position, and the subtrees below the split are counted
+ * with a single-threaded {@link Perft}. Threads may share a
+ * {@link PerftHashTable} so a subtree reached by several move orders is only
+ * counted once.
+ */
+public final class ParallelPerft implements AutoCloseable {
+
+    private static final int SPLIT_PLIES = 2;
+
+    private final ForkJoinPool pool;
+    private final PerftHashTable hashTable;
+
+    /**
+     * Constructs a ParallelPerft with its own pool.
+     *
+     * @param threads   the number of worker threads
+     * @param hashTable the shared subtree count table, or null to count every
+     *                  subtree
+     */
+    public ParallelPerft(int threads, PerftHashTable hashTable) {
+        this.pool = new ForkJoinPool(threads);
+        this.hashTable = hashTable;
+    }
+
+    /**
+     * Counts the positions reachable in exactly {@code depth} plies. The given
+     * board state is copied and not modified.
+     *
+     * @param boardState the root position
+     * @param depth      the number of plies, 0 or more
+     * @return the number of leaf nodes
+     */
+    public long perft(BoardState boardState, int depth) {
+        return pool.invoke(new PerftTask(boardState.deepCopy(), depth, SPLIT_PLIES));
+    }
+
+    public int getParallelism() {
+        return pool.getParallelism();
+    }
+
+    @Override
+    public void close() {
+        pool.shutdown();
+    }
+
+    private final class PerftTask extends RecursiveTask<Long> {
+
+        private final BoardState position;
+        private final int depth;
+        private final int splitPlies;
+
+        PerftTask(BoardState position, int depth, int splitPlies) {
+            this.position = position;
+            this.depth = depth;
+            this.splitPlies = splitPlies;
+        }
+
+        @Override
+        protected Long compute() {
+            if (splitPlies == 0 || depth <= 2) {
+                return new Perft(position, hashTable).perft(depth);
+            }
+            MoveList moves = new MoveList();
+            new LegalMoveGenerator(position).generateLegalMoves(moves);
+            List<PerftTask> subtasks = new ArrayList<>(moves.size());
+            for (int i = 0; i < moves.size(); i++) {
+                BoardState child = position.deepCopy();
+                child.makeMove(moves.get(i));
+                PerftTask subtask = new PerftTask(child, depth - 1, splitPlies - 1);
+                subtask.fork();
+                subtasks.add(subtask);
+            }
+            long nodes = 0;
+            for (PerftTask subtask : subtasks) {
+                nodes += subtask.join();
+            }
+            return nodes;
+        }
+    }
+}
@@ -0,0 +1,127 @@
+package nhom16oop.perft;
+
+import nhom16oop.core.model.BoardState;
+import nhom16oop.core.movegen.LegalMoveGenerator;
+import nhom16oop.core.movegen.Move;
+import nhom16oop.core.movegen.MoveList;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Counts the leaf nodes of the legal move tree to a fixed depth ("perft").
+ * Comparing the counts with published reference values validates move
+ * generation together with castling, en passant and promotion handling in
+ * {@link BoardState#makeMove(int)} and {@link BoardState#unmakeMove(int, long)}.
+ * <p>
+ * Moves are made and taken back on the given board state, which is left as it
+ * was when a count returns. One move list is kept per ply and reused, so a run
+ * allocates little beyond the move generators themselves.
+ */
+public final class Perft {
+
+    private final BoardState boardState;
+    private final PerftHashTable hashTable;
+    private MoveList[] moveLists = new MoveList[0];
+
+    /**
+     * Constructs a Perft that walks the given position in place.
+     *
+     * @param boardState the root position
+     */
+    public Perft(BoardState boardState) {
+        this(boardState, null);
+    }
+
+    /**
+     * Constructs a Perft that walks the given position in place and reuses
+     * subtree counts stored in a hash table.
+     *
+     * @param boardState the root position
+     * @param hashTable  the subtree count table, or null to count every subtree
+     */
+    public Perft(BoardState boardState, PerftHashTable hashTable) {
+        this.boardState = boardState;
+        this.hashTable = hashTable;
+    }
+
+    /**
+     * Counts the positions reachable in exactly {@code depth} plies.
+     *
+     * @param depth the number of plies, 0 or more
+     * @return the number of leaf nodes
+     */
+    public long perft(int depth) {
+        ensureMoveLists(depth);
+        return count(depth);
+    }
+
+    /**
+     * Counts the leaf nodes below each root move separately, the usual way to
+     * narrow down a wrong total by comparing with another move generator.
+     *
+     * @param depth the number of plies including the root move, 1 or more
+     * @return the leaf count per root move in UCI notation, in generation order
+     */
+    public Map<String, Long> divide(int depth) {
+        if (depth < 1) {
+            throw new IllegalArgumentException("Divide depth must be at least 1: " + depth);
+        }
+        ensureMoveLists(depth);
+        MoveList moves = new MoveList();
+        new LegalMoveGenerator(boardState).generateLegalMoves(moves);
+        Map<String, Long> counts = new LinkedHashMap<>();
+        for (int i = 0; i < moves.size(); i++) {
+            int move = moves.get(i);
+            long undo = boardState.makeMove(move);
+            counts.put(Move.toUci(move), count(depth - 1));
+            boardState.unmakeMove(move, undo);
+        }
+        return counts;
+    }
+
+    private long count(int depth) {
+        if (depth == 0) {
+            return 1;
+        }
+        long key = 0;
+        if (hashTable != null && depth > 1) {
+            key = boardState.getZobristKey();
+            long cached = hashTable.probe(key, depth);
+            if (cached >= 0) {
+                return cached;
+            }
+        }
+        MoveList moves = moveLists[depth];
+        moves.clear();
+        new LegalMoveGenerator(boardState).generateLegalMoves(moves);
+        if (depth == 1) {
+            return moves.size();
+        }
+        long nodes = 0;
+        for (int i = 0; i < moves.size(); i++) {
+            int move = moves.get(i);
+            long undo = boardState.makeMove(move);
+            nodes += count(depth - 1);
+            boardState.unmakeMove(move, undo);
+        }
+        if (hashTable != null) {
+            hashTable.store(key, depth, nodes);
+        }
+        return nodes;
+    }
+
+    private void ensureMoveLists(int depth) {
+        if (depth < 0) {
+            throw new IllegalArgumentException("Perft depth must not be negative: " + depth);
+        }
+        if (moveLists.length <= depth) {
+            MoveList[] grown = new MoveList[depth + 1];
+            System.arraycopy(moveLists, 0, grown, 0, moveLists.length);
+            for (int i = moveLists.length; i < grown.length; i++) {
+                grown[i] = new MoveList();
+            }
+            moveLists = grown;
+        }
+    }
+}
@@ -0,0 +1,250 @@
+package nhom16oop.perft;
+
+import nhom16oop.core.model.BoardState;
+import nhom16oop.core.model.FenCodec;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Command line entry point for perft.
+ * <pre>
+ * perft    &lt;depth&gt; [fen]   count leaf nodes (default: start position)
+ * divide   &lt;depth&gt; [fen]   count leaf nodes per root move
+ * suite    [max depth]      run the reference positions and compare counts
+ * epd      &lt;depth&gt; &lt;file&gt;  count leaf nodes for every position of a FEN/EPD file
+ * parallel &lt;depth&gt; [--threads=1,2,4] [--hash=MB] [fen]
+ *                           count with each thread count and report scaling
+ * </pre>
+ * For example:
+ * <pre>
+ * mvn compile exec:java -Dexec.mainClass=nhom16oop.perft.PerftCli -Dexec.args="suite 4"
+ * </pre>
+ * The suite exits with status 1 if any count differs from the reference.
+ */
+public final class PerftCli {
+
+    private PerftCli() {
+        throw new AssertionError("Cannot instantiate PerftCli class");
+    }
+
+    public static void main(String[] args) {
+        if (args.length == 0) {
+            printUsage();
+            System.exit(2);
+        }
+        try {
+            switch (args[0]) {
+                case "perft" -> runPerft(parseDepth(args), parseFen(args));
+                case "divide" -> runDivide(parseDepth(args), parseFen(args));
+                case "parallel" -> runParallel(args);
+                case "epd" -> runEpd(parseDepth(args), args);
+                case "suite" -> {
+                    int maxDepth = args.length > 1 ? Integer.parseInt(args[1]) : Integer.MAX_VALUE;
+                    if (!runSuite(maxDepth)) {
+                        System.exit(1);
+                    }
+                }
+                default -> {
+                    printUsage();
+                    System.exit(2);
+                }
+            }
+        } catch (IOException e) {
+            System.err.println("Cannot read file: " + e.getMessage());
+            System.exit(2);
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            printUsage();
+            System.exit(2);
+        }
+    }
+
+    private static void runPerft(int depth, String fen) {
+        Perft perft = new Perft(new BoardState(fen));
+        long start = System.nanoTime();
+        long nodes = perft.perft(depth);
+        long elapsed = System.nanoTime() - start;
+        System.out.printf("perft(%d) = %,d  %s%n", depth, nodes, formatSpeed(nodes, elapsed));
+    }
+
+    private static void runDivide(int depth, String fen) {
+        Perft perft = new Perft(new BoardState(fen));
+        long start = System.nanoTime();
+        Map<String, Long> counts = perft.divide(depth);
+        long elapsed = System.nanoTime() - start;
+        long total = 0;
+        for (Map.Entry<String, Long> entry : counts.entrySet()) {
+            System.out.printf("%s: %d%n", entry.getKey(), entry.getValue());
+            total += entry.getValue();
+        }
+        System.out.printf("%nMoves: %d%nNodes: %,d  %s%n", counts.size(), total, formatSpeed(total, elapsed));
+    }
+
+    /**
+     * Counts every position of a FEN or EPD file, one per line, decoding each
+     * into the same board state.
+     */
+    private static void runEpd(int depth, String[] args) throws IOException {
+        if (args.length < 3) {
+            throw new IllegalArgumentException("Missing file");
+        }
+        long[] totals = new long[2];
+        long start = System.nanoTime();
+        try (Reader reader = Files.newBufferedReader(Path.of(args[2]))) {
+            FenCodec.decodeAll(reader, new BoardState(PerftSuite.START_FEN), boardState -> {
+                long nodes = new Perft(boardState).perft(depth);
+                totals[0]++;
+                totals[1] += nodes;
+                System.out.printf("%6d: %,13d  %s%n", totals[0], nodes, FenCodec.encode(boardState));
+            });
+        }
+        long elapsed = System.nanoTime() - start;
+        System.out.printf("%nPositions: %d%nNodes: %,d  %s%n", totals[0], totals[1], formatSpeed(totals[1], elapsed));
+    }
+
+    /**
+     * Counts the same tree with each requested thread count and prints the
+     * speedup over the first run and the efficiency per thread. A fresh hash
+     * table is used for every run so the runs stay comparable.
+     */
+    private static void runParallel(String[] args) {
+        int depth = parseDepth(args);
+        List<Integer> threadCounts = defaultThreadCounts();
+        int hashMegabytes = 0;
+        List<String> fenParts = new ArrayList<>();
+        for (int i = 2; i < args.length; i++) {
+            if (args[i].startsWith("--threads=")) {
+                threadCounts = new ArrayList<>();
+                for (String count : args[i].substring("--threads=".length()).split(",")) {
+                    threadCounts.add(Integer.parseInt(count.trim()));
+                }
+            } else if (args[i].startsWith("--hash=")) {
+                hashMegabytes = Integer.parseInt(args[i].substring("--hash=".length()));
+            } else {
+                fenParts.add(args[i]);
+            }
+        }
+        String fen = fenParts.isEmpty() || fenParts.get(0).equals("startpos") ? PerftSuite.START_FEN : String.join(" ", fenParts);
+        BoardState boardState = new BoardState(fen);
+
+        // Warm up the JIT so the first measured run is not penalized
+        try (ParallelPerft warmUp = new ParallelPerft(threadCounts.get(0), null)) {
+            warmUp.perft(boardState, Math.max(0, depth - 1));
+        }
+
+        System.out.printf("perft(%d) on %s, hash %s%n", depth, fen, hashMegabytes > 0 ? hashMegabytes + " MB" : "off");
+        System.out.println("threads        nodes     time            nps  speedup  efficiency");
+        long baseline = 0;
+        int baselineThreads = 0;
+        long expectedNodes = -1;
+        for (int threads : threadCounts) {
+            PerftHashTable hashTable = hashMegabytes > 0 ? new PerftHashTable(hashMegabytes) : null;
+            long nodes;
+            long elapsed;
+            try (ParallelPerft perft = new ParallelPerft(threads, hashTable)) {
+                long start = System.nanoTime();
+                nodes = perft.perft(boardState, depth);
+                elapsed = System.nanoTime() - start;
+            }
+            if (baseline == 0) {
+                baseline = elapsed;
+                baselineThreads = threads;
+                expectedNodes = nodes;
+            }
+            double speedup = (double) baseline / elapsed;
+            double efficiency = speedup * baselineThreads / threads;
+            System.out.printf("%7d %,12d %7.3fs %,14d %7.2fx %10.0f%%%s%n", threads, nodes, elapsed / 1e9,
+                    (long) (nodes / (elapsed / 1e9)), speedup, efficiency * 100,
+                    nodes == expectedNodes ? "" : "  MISMATCH");
+        }
+    }
+
+    private static List<Integer> defaultThreadCounts() {
+        int processors = Runtime.getRuntime().availableProcessors();
+        List<Integer> counts = new ArrayList<>();
+        for (int threads = 1; threads < processors; threads *= 2) {
+            counts.add(threads);
+        }
+        counts.add(processors);
+        return counts;
+    }
+
+    /**
+     * Runs every reference position up to its deepest known count or
+     * {@code maxDepth}, whichever is lower.
+     *
+     * @return true if every count matched
+     */
+    static boolean runSuite(int maxDepth) {
+        int failures = 0;
+        long totalNodes = 0;
+        long totalTime = 0;
+        for (PerftSuite.Position position : PerftSuite.POSITIONS) {
+            System.out.println(position.name());
+            System.out.println("  " + position.fen());
+            Perft perft = new Perft(new BoardState(position.fen()));
+            for (int depth = 1; depth <= Math.min(maxDepth, position.maxDepth()); depth++) {
+                long start = System.nanoTime();
+                long nodes = perft.perft(depth);
+                long elapsed = System.nanoTime() - start;
+                totalNodes += nodes;
+                totalTime += elapsed;
+                boolean ok = nodes == position.expected(depth);
+                if (!ok) {
+                    failures++;
+                }
+                System.out.printf("  depth %d: %,13d %s  %s%n", depth, nodes,
+                        ok ? "ok  " : "FAIL (expected " + String.format("%,d", position.expected(depth)) + ")",
+                        formatSpeed(nodes, elapsed));
+            }
+        }
+        System.out.printf("%n%s: %,d nodes, %s%n", failures == 0 ? "All counts match" : failures + " count(s) differ",
+                totalNodes, formatSpeed(totalNodes, totalTime));
+        return failures == 0;
+    }
+
+    private static int parseDepth(String[] args) {
+        if (args.length < 2) {
+            throw new IllegalArgumentException("Missing depth");
+        }
+        try {
+            return Integer.parseInt(args[1]);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid depth: " + args[1]);
+        }
+    }
+
+    /**
+     * Joins the arguments after the depth back into a FEN, so it may be passed
+     * quoted or unquoted.
+     */
+    private static String parseFen(String[] args) {
+        if (args.length < 3 || args[2].equals("startpos")) {
+            return PerftSuite.START_FEN;
+        }
+        return String.join(" ", Arrays.copyOfRange(args, 2, args.length));
+    }
+
+    static String formatSpeed(long nodes, long elapsedNanos) {
+        double seconds = elapsedNanos / 1e9;
+        long nodesPerSecond = seconds > 0 ? (long) (nodes / seconds) : 0;
+        return String.format("%.3fs, %,d nps", seconds, nodesPerSecond);
+    }
+
+    private static void printUsage() {
+        System.err.println("Usage:");
+        System.err.println("  perft  <depth> [fen]   count leaf nodes (default: start position)");
+        System.err.println("  divide <depth> [fen]   count leaf nodes per root move");
+        System.err.println("  suite  [max depth]     run the reference positions");
+        System.err.println("  epd    <depth> <file>  count leaf nodes for every position of a FEN/EPD file");
+        System.err.println("  parallel <depth> [--threads=1,2,4] [--hash=MB] [fen]");
+        System.err.println("                         count with each thread count and report scaling");
+    }
+}
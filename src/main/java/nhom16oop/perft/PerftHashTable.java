@@ -0,0 +1,64 @@
+package nhom16oop.perft;
+
+/**
+ * A fixed-size table of perft subtree counts keyed by position hash and
+ * depth, shared by all threads of a {@link ParallelPerft} run.
+ * <p>
+ * Each slot holds two longs: the count and the count XORed with the key. A
+ * probe only trusts a slot whose two halves agree with the key, so slots
+ * overwritten concurrently by two threads are rejected instead of returning a
+ * mixed entry, and no locking is needed. Newer entries always replace older
+ * ones.
+ */
+public final class PerftHashTable {
+
+    private static final long DEPTH_MULTIPLIER = 0x9E3779B97F4A7C15L;
+
+    private final long[] entries;
+    private final int mask;
+
+    /**
+     * Constructs a table using about the given amount of memory, rounded down
+     * to a power of two number of slots.
+     *
+     * @param megabytes the table size in megabytes, at least 1
+     */
+    public PerftHashTable(int megabytes) {
+        if (megabytes < 1) {
+            throw new IllegalArgumentException("Hash size must be at least 1 MB: " + megabytes);
+        }
+        long slots = Long.highestOneBit(megabytes * 1024L * 1024L / 16);
+        int size = (int) Math.min(slots, 1 << 29);
+        this.entries = new long[size * 2];
+        this.mask = size - 1;
+    }
+
+    /**
+     * Looks up the count of a subtree.
+     *
+     * @param positionKey the Zobrist key of the subtree's root
+     * @param depth       the depth the subtree was counted to
+     * @return the stored count, or -1 if the table holds no count for it
+     */
+    public long probe(long positionKey, int depth) {
+        long key = positionKey ^ (depth * DEPTH_MULTIPLIER);
+        int slot = ((int) key & mask) << 1;
+        long check = entries[slot];
+        long count = entries[slot + 1];
+        return (check ^ count) == key ? count : -1;
+    }
+
+    /**
+     * Stores the count of a subtree.
+     *
+     * @param positionKey the Zobrist key of the subtree's root
+     * @param depth       the depth the subtree was counted to
+     * @param count       the number of leaf nodes
+     */
+    public void store(long positionKey, int depth, long count) {
+        long key = positionKey ^ (depth * DEPTH_MULTIPLIER);
+        int slot = ((int) key & mask) << 1;
+        entries[slot] = key ^ count;
+        entries[slot + 1] = count;
+    }
+}
@@ -0,0 +1,56 @@
+package nhom16oop.perft;
+
+import java.util.List;
+
+/**
+ * Reference positions with published perft node counts, used to check the
+ * move generator. Together they cover castling through and out of attacked
+ * squares, en passant captures that expose the king along a rank, and
+ * promotions with and without capture.
+ */
+public final class PerftSuite {
+
+    public static final String START_FEN = "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1";
+
+    /**
+     * A test position and its expected node counts.
+     *
+     * @param name  a short description of the position
+     * @param fen   the position in FEN
+     * @param nodes the expected counts, {@code nodes[0]} being depth 1
+     */
+    public record Position(String name, String fen, long... nodes) {
+
+        public int maxDepth() {
+            return nodes.length;
+        }
+
+        public long expected(int depth) {
+            return nodes[depth - 1];
+        }
+    }
+
+    public static final List<Position> POSITIONS = List.of(
+            new Position("Start position", START_FEN,
+                    20, 400, 8_902, 197_281, 4_865_609),
+            new Position("Kiwipete (castling, pins, en passant)",
+                    "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1",
+                    48, 2_039, 97_862, 4_085_603),
+            new Position("Rook endgame (en passant discovered check)",
+                    "8/2p5/3p4/KP5r/1R3p1k/8/4P1P1/8 w - - 0 1",
+                    14, 191, 2_812, 43_238, 674_624),
+            new Position("Promotions and checks",
+                    "r3k2r/Pppp1ppp/1b3nbN/nP6/BBP1P3/q4N2/Pp1P2PP/R2Q1RK1 w kq - 0 1",
+                    6, 264, 9_467, 422_333),
+            new Position("Underpromotion with capture",
+                    "rnbq1k1r/pp1Pbppp/2p5/8/2B5/8/PPP1NnPP/RNBQK2R w KQ - 1 8",
+                    44, 1_486, 62_379, 2_103_487),
+            new Position("Symmetrical middlegame",
+                    "r4rk1/1pp1qppp/p1np1n2/2b1p1B1/2B1P1b1/P1NP1N2/1PP1QPPP/R4RK1 w - - 0 10",
+                    46, 2_079, 89_890, 3_894_594)
+    );
+
+    private PerftSuite() {
+        throw new AssertionError("Cannot instantiate PerftSuite class");
+    }
+}
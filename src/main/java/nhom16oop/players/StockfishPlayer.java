@@ -8,10 +8,11 @@ import nhom16oop.core.pieces.Bishop;
 import nhom16oop.core.pieces.Knight;
 import nhom16oop.core.pieces.Queen;
 import nhom16oop.core.pieces.Rook;
-import nhom16oop.engine.Stockfish;
+import nhom16oop.engine.Engine;
+import nhom16oop.engine.Engines;
+import nhom16oop.game.BoardManager;
 import nhom16oop.game.ChessController;
 import nhom16oop.ui.board.ChessTile;
-import nhom16oop.utils.ChessNotationUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -20,12 +21,13 @@ import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
 
 /**
- * Represents an AI player powered by the Stockfish chess engine.
+ * Represents an AI player powered by a chess engine: Stockfish or the
+ * built-in Java search, as configured (see {@link Engines}).
  */
 public class StockfishPlayer implements Player {
 
     private static final Logger logger = LoggerFactory.getLogger(StockfishPlayer.class);
-    private final Stockfish stockfishEngine;
+    private final Engine engine;
     private final ChessController chessController;
     private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor();
     private static final int MOVE_DELAY_TIME = 1500;
@@ -38,15 +40,14 @@ public class StockfishPlayer implements Player {
      * @param stockfishColor  the color of the player (White or Black)
      */
     public StockfishPlayer(ChessController chessController, PieceColor stockfishColor) {
-        this.stockfishEngine = new Stockfish();
-        this.stockfishEngine.start();
+        this.engine = Engines.create();
         this.chessController = chessController;
         this.stockfishColor = stockfishColor;
-        logger.info("Stockfish player initialized with color: {}", stockfishColor.isWhite() ? "White" : "Black");
+        logger.info("{} player initialized with color: {}", engine.getName(), stockfishColor.isWhite() ? "White" : "Black");
     }
 
     /**
-     * Executes a move using the Stockfish engine after a short delay.
+     * Executes a move using the engine after a short delay.
      */
     @Override
     public void makeMove() {
@@ -55,7 +56,9 @@ public class StockfishPlayer implements Player {
                 return;
             }
             try {
-                String bestMoveStr = stockfishEngine.getBestMove(ChessNotationUtils.getFEN(chessController.getBoardManager().getCurrentBoardState()));
+                BoardManager boardManager = chessController.getBoardManager();
+                String bestMoveStr = engine.bestMove(boardManager.getCurrentBoardState(),
+                        boardManager.getRepetitionTable().getReversibleKeys(), Engines.limits());
                 if (bestMoveStr != null) {
                     String startPos = bestMoveStr.substring(0, 2);
                     String endPos = bestMoveStr.substring(2, 4);
@@ -70,7 +73,7 @@ public class StockfishPlayer implements Player {
                     } else if (isCastling(start, end)) {
                         logger.info("Castling move detected: {} to {}", startPos, endPos);
                     } else {
-                        logger.info("Best move from Stockfish: {} to {}", startPos, endPos);
+                        logger.info("Best move from {}: {} to {}", engine.getName(), startPos, endPos);
                     }
 
                     ChessTile startTile = chessController.getBoardUI().getTile(start);
@@ -87,15 +90,15 @@ public class StockfishPlayer implements Player {
                     boolean success = chessController.movePiece(move, promotionPiece);
 
                     if (!success) {
-                        logger.warn("Failed to execute Stockfish move: {} to {}", startPos, endPos);
+                        logger.warn("Failed to execute engine move: {} to {}", startPos, endPos);
                     } else {
                         chessController.getBoardUI().setCurrentLeftClickedTile(null);
                     }
                 } else {
-                    logger.warn("No best move returned by Stockfish");
+                    logger.warn("No best move returned by {}", engine.getName());
                 }
             } catch (Exception e) {
-                logger.error("Error making move with Stockfish", e);
+                logger.error("Error making move with {}", engine.getName(), e);
             }
         }, MOVE_DELAY_TIME, TimeUnit.MILLISECONDS);
     }
@@ -111,11 +114,11 @@ public class StockfishPlayer implements Player {
     }
 
     /**
-     * Cleans up resources by stopping the Stockfish engine and shutting down the executor.
+     * Cleans up resources by stopping the engine and shutting down the executor.
      */
     @Override
     public void shutdown() {
-        stockfishEngine.stopEngine();
+        engine.stop();
         executor.shutdown();
         logger.info("StockfishPlayer shutdown");
     }
@@ -129,13 +132,13 @@ public class StockfishPlayer implements Player {
 
     private ChessPiece getPromotionPiece(char promotion, PieceColor color) {
         return switch (Character.toLowerCase(promotion)) {
-            case 'q' -> new Queen(color);
-            case 'r' -> new Rook(color);
-            case 'b' -> new Bishop(color);
-            case 'n' -> new Knight(color);
+            case 'q' -> Queen.of(color);
+            case 'r' -> Rook.of(color);
+            case 'b' -> Bishop.of(color);
+            case 'n' -> Knight.of(color);
             default -> {
                 logger.warn("Invalid promotion piece: {}, defaulting to Queen", promotion);
-                yield new Queen(color);
+                yield Queen.of(color);
             }
         };
     }
@@ -0,0 +1,77 @@
+package nhom16oop.ui;
+
+import nhom16oop.constants.PieceColor;
+import nhom16oop.constants.PieceType;
+import nhom16oop.core.model.ChessPiece;
+import nhom16oop.utils.ImageLoader;
+
+import java.awt.*;
+import java.util.Locale;
+
+/**
+ * Registry of the images used to draw chess pieces, looked up by piece type
+ * and color. Pieces themselves carry no rendering state, so the core model can
+ * be used without loading any AWT classes.
+ */
+public final class PieceSkin {
+
+    public static final int DEFAULT_SIZE = 95;
+
+    private static final PieceType[] TYPES = PieceType.values();
+    private static final Image[][] IMAGES = new Image[2][TYPES.length];
+
+    private PieceSkin() {
+        throw new AssertionError("Cannot instantiate PieceSkin class");
+    }
+
+    /**
+     * Returns the image for the given piece.
+     *
+     * @param piece the piece to draw
+     * @return the piece's image, or null if it could not be loaded
+     */
+    public static Image getImage(ChessPiece piece) {
+        return getImage(piece.getColor(), piece.getPieceType());
+    }
+
+    /**
+     * Returns the image for a piece of the given color and type, loading it on
+     * first use.
+     *
+     * @param color the piece color
+     * @param type  the piece type
+     * @return the piece's image, or null if it could not be loaded
+     */
+    public static synchronized Image getImage(PieceColor color, PieceType type) {
+        Image[] images = IMAGES[color.isWhite() ? 0 : 1];
+        Image image = images[type.ordinal()];
+        if (image == null) {
+            image = ImageLoader.getImage(getImagePath(color, type), DEFAULT_SIZE, DEFAULT_SIZE);
+            images[type.ordinal()] = image;
+        }
+        return image;
+    }
+
+    /**
+     * Returns the resource path of the image for a piece, e.g.
+     * {@code images/pieces/white_knight.png}.
+     *
+     * @param color the piece color
+     * @param type  the piece type
+     * @return the image resource path
+     */
+    public static String getImagePath(PieceColor color, PieceType type) {
+        return "images/pieces/" + (color.isWhite() ? "white_" : "black_") + type.name().toLowerCase(Locale.ROOT) + ".png";
+    }
+
+    /**
+     * Loads every piece image so the first board paint does not wait on I/O.
+     */
+    public static void preload() {
+        for (PieceColor color : PieceColor.values()) {
+            for (PieceType type : TYPES) {
+                getImage(color, type);
+            }
+        }
+    }
+}
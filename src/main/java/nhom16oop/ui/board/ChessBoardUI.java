@@ -6,7 +6,6 @@ import nhom16oop.core.model.ChessPiece;
 import nhom16oop.core.model.ChessPosition;
 import nhom16oop.game.BoardManager;
 import nhom16oop.game.ChessController;
-import nhom16oop.utils.BoardUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -33,7 +32,7 @@ public class ChessBoardUI {
     private void initializeTiles() {
         for (int row = 0; row < GameConstants.Board.BOARD_SIZE; row++) {
             for (int col = 0; col < GameConstants.Board.BOARD_SIZE; col++) {
-                tiles[row][col] = new ChessTile(new ChessPosition(col, GameConstants.Board.BOARD_SIZE - row - 1), controller);
+                tiles[row][col] = new ChessTile(ChessPosition.of(col, GameConstants.Board.BOARD_SIZE - row - 1), controller);
             }
         }
         logger.debug("ChessBoardUI tiles initialized");
@@ -77,7 +76,7 @@ public class ChessBoardUI {
     public void repaintPieces() {
         for (int row = 0; row < GameConstants.Board.BOARD_SIZE; row++) {
             for (int col = 0; col < GameConstants.Board.BOARD_SIZE; col++) {
-                ChessPosition position = new ChessPosition(col, GameConstants.Board.BOARD_SIZE - row - 1);
+                ChessPosition position = ChessPosition.of(col, GameConstants.Board.BOARD_SIZE - row - 1);
                 ChessPiece piece = boardManager.getPiece(position);
                 tiles[row][col].setPiece(piece);
                 tiles[row][col].repaint();
@@ -131,15 +130,13 @@ public class ChessBoardUI {
 
     private void generateAndHighlightValidMoves(ChessTile tile) {
         if (tile.getPiece() == null) return;
-        currentValidMoves = tile.getPiece().generateValidMoves(tile.getPosition(), boardManager.getChessPieceMap());
+        currentValidMoves = boardManager.getLegalMoveSet().movesFrom(tile.getPosition());
 
         for (ChessMove move : currentValidMoves) {
-            if (BoardUtils.isMoveValidUnderCheck(move, boardManager.getChessPieceMap())) {
-                ChessTile endTile = getTile(move.end());
-                if (endTile != null) {
-                    endTile.setInValidMove(true);
-                    endTile.repaint();
-                }
+            ChessTile endTile = getTile(move.end());
+            if (endTile != null) {
+                endTile.setInValidMove(true);
+                endTile.repaint();
             }
         }
         logger.debug("Generated and highlighted valid moves for tile: {}", tile.getPosition().toChessNotation());
@@ -180,7 +177,7 @@ public class ChessBoardUI {
     public void clearHintHighlights() {
         for (int row = 0; row < 8; row++) {
             for (int col = 0; col < 8; col++) {
-                ChessTile tile = getTile(new ChessPosition(col, row));
+                ChessTile tile = getTile(ChessPosition.of(col, row));
                 if (tile.isHintHighlightedSquare()) {
                     tile.setHintHighlightedSquare(false);
                 }
@@ -6,6 +6,7 @@ import nhom16oop.core.model.ChessMove;
 import nhom16oop.core.model.ChessPiece;
 import nhom16oop.core.model.ChessPosition;
 import nhom16oop.game.ChessController;
+import nhom16oop.ui.PieceSkin;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -128,7 +129,7 @@ public class ChessTile extends JPanel {
             return;
         }
 
-        Image image = piece.getImage();
+        Image image = PieceSkin.getImage(piece);
         if (image != null) {
             int offset = (tileSize - PIECE_SIZE) / 2;
             g.drawImage(image, offset, offset, PIECE_SIZE, PIECE_SIZE, null);
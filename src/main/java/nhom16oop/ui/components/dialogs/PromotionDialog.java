@@ -1,6 +1,8 @@
 package nhom16oop.ui.components.dialogs;
 
 import nhom16oop.constants.PieceColor;
+import nhom16oop.constants.PieceType;
+import nhom16oop.ui.PieceSkin;
 import nhom16oop.utils.ImageLoader;
 
 import javax.swing.*;
@@ -28,19 +30,19 @@ public class PromotionDialog extends JDialog {
         buttonPanel.setOpaque(false);
         buttonPanel.setLayout(new FlowLayout(FlowLayout.CENTER, 10, 10));
 
-        JButton queenButton = createStyledButton("images/pieces/" + (color.isWhite() ? "white_queen.png" : "black_queen.png"));
+        JButton queenButton = createStyledButton(PieceSkin.getImagePath(color, PieceType.QUEEN));
         queenButton.addActionListener(e -> onPieceSelected("Queen"));
         buttonPanel.add(queenButton);
 
-        JButton rookButton = createStyledButton("images/pieces/" + (color.isWhite() ? "white_rook.png" : "black_rook.png"));
+        JButton rookButton = createStyledButton(PieceSkin.getImagePath(color, PieceType.ROOK));
         rookButton.addActionListener(e -> onPieceSelected("Rook"));
         buttonPanel.add(rookButton);
 
-        JButton bishopButton = createStyledButton("images/pieces/" + (color.isWhite() ? "white_bishop.png" : "black_bishop.png"));
+        JButton bishopButton = createStyledButton(PieceSkin.getImagePath(color, PieceType.BISHOP));
         bishopButton.addActionListener(e -> onPieceSelected("Bishop"));
         buttonPanel.add(bishopButton);
 
-        JButton knightButton = createStyledButton("images/pieces/" + (color.isWhite() ? "white_knight.png" : "black_knight.png"));
+        JButton knightButton = createStyledButton(PieceSkin.getImagePath(color, PieceType.KNIGHT));
         knightButton.addActionListener(e -> onPieceSelected("Knight"));
         buttonPanel.add(knightButton);
 
@@ -229,8 +229,8 @@ public class ChessToolbar extends JPanel implements GameStateListener {
             return false;
         }
         return switch (config.tooltip) {
-            case "Move Back" -> !chessController.getHistoryManager().getUndoStack().isEmpty();
-            case "Move Forward" -> !chessController.getHistoryManager().getRedoStack().isEmpty();
+            case "Move Back" -> chessController.getHistoryManager().canUndo();
+            case "Move Forward" -> chessController.getHistoryManager().canRedo();
             case "Show hint" -> chessController.getHumanPlayerColor() == chessController.getBoardManager().getCurrentPlayerColor();
             default -> config.isVisible.getAsBoolean();
         };
@@ -244,8 +244,8 @@ public class ChessToolbar extends JPanel implements GameStateListener {
 
     private void logButtonStates() {
         boolean historyManagerExists = chessController.getHistoryManager() != null;
-        int undoStackSize = historyManagerExists ? chessController.getHistoryManager().getUndoStack().size() : 0;
-        int redoStackSize = historyManagerExists ? chessController.getHistoryManager().getRedoStack().size() : 0;
+        int undoStackSize = historyManagerExists ? chessController.getHistoryManager().getUndoCount() : 0;
+        int redoStackSize = historyManagerExists ? chessController.getHistoryManager().getRedoCount() : 0;
         boolean gameEnded = chessController.isGameEnded();
 
         logger.debug("Toolbar state: historyManager = {}, undoStackSize = {}, redoStackSize = {}, gameEnded = {}", historyManagerExists, undoStackSize, redoStackSize, gameEnded);
@@ -1,7 +1,5 @@
 package nhom16oop.ui.components.panels;
 
-import nhom16oop.core.model.BoardState;
-import nhom16oop.core.model.ChessMove;
 import nhom16oop.game.ChessController;
 import nhom16oop.history.GameHistoryManager;
 import nhom16oop.history.HistoryChangeListener;
@@ -15,7 +13,6 @@ import java.awt.event.MouseAdapter;
 import java.awt.event.MouseEvent;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.Stack;
 
 public class MoveHistoryPanel extends JPanel implements HistoryChangeListener {
     private static final Logger logger = LoggerFactory.getLogger(MoveHistoryPanel.class);
@@ -25,19 +22,25 @@ public class MoveHistoryPanel extends JPanel implements HistoryChangeListener {
     private static final int PANEL_HEIGHT = 75;
     private static final int STRUT_WIDTH = 3;
     private static final int VIEWPORT_WIDTH = 740;
+    private static final int COMPONENTS_PER_PLY = 4;
 
     private final GameHistoryManager gameHistoryManager;
     private final ChessController chessController;
     private final JPanel moveListPanel;
     private final JScrollPane scrollPane;
+    private final JSlider plySlider;
+    private boolean updatingSlider;
+    private final List<String> shownNotations = new ArrayList<>();
+    private final List<Integer> plyWidths = new ArrayList<>();
+    private int totalWidth;
 
     public MoveHistoryPanel(ChessController chessController) {
         this.gameHistoryManager = chessController.getHistoryManager();
         this.chessController = chessController;
         setOpaque(true);
         setBackground(new Color(139, 69, 19));
-        setPreferredSize(new Dimension(800, 95));
-        setLayout(new BoxLayout(this, BoxLayout.X_AXIS));
+        setPreferredSize(new Dimension(800, 125));
+        setLayout(new BoxLayout(this, BoxLayout.Y_AXIS));
 
         moveListPanel = new JPanel();
         moveListPanel.setLayout(new BoxLayout(moveListPanel, BoxLayout.X_AXIS));
@@ -102,53 +105,64 @@ public class MoveHistoryPanel extends JPanel implements HistoryChangeListener {
         leftArrow.addMouseListener(hoverEffect);
         rightArrow.addMouseListener(hoverEffect);
 
-        add(Box.createHorizontalGlue());
-        add(leftArrow);
-        add(Box.createHorizontalStrut(5));
-        add(scrollPane);
-        add(Box.createHorizontalStrut(5));
-        add(rightArrow);
-        add(Box.createHorizontalGlue());
+        JPanel moveRow = new JPanel();
+        moveRow.setLayout(new BoxLayout(moveRow, BoxLayout.X_AXIS));
+        moveRow.setOpaque(false);
+        moveRow.add(Box.createHorizontalGlue());
+        moveRow.add(leftArrow);
+        moveRow.add(Box.createHorizontalStrut(5));
+        moveRow.add(scrollPane);
+        moveRow.add(Box.createHorizontalStrut(5));
+        moveRow.add(rightArrow);
+        moveRow.add(Box.createHorizontalGlue());
+
+        // Scrubs through the game: each step is one ply, including moves that
+        // were undone and can still be redone. The board jumps once the drag
+        // ends rather than at every ply passed on the way.
+        plySlider = new JSlider(0, 0, 0);
+        plySlider.setOpaque(false);
+        plySlider.setFocusable(false);
+        plySlider.setMaximumSize(new Dimension(VIEWPORT_WIDTH + 2 * BUTTON_WIDTH, 25));
+        plySlider.addChangeListener(e -> {
+            if (!updatingSlider && !plySlider.getValueIsAdjusting()) {
+                chessController.getActionManager().jumpToPly(plySlider.getValue());
+            }
+        });
+
+        add(moveRow);
+        add(plySlider);
         setBorder(BorderFactory.createEmptyBorder(10, 0, 10, 0));
 
         updateMoveHistory();
     }
 
     private void updateMoveHistory() {
-        moveListPanel.removeAll();
-        List<String> moves = getMoveNotations();
-        int totalWidth = 0;
-        int moveNumber = 1;
-
-        for (String move : moves) {
-            JLabel moveNumberLabel = new JLabel(moveNumber + ".", SwingConstants.RIGHT);
-            moveNumberLabel.setFont(new Font("Roboto", Font.BOLD, 16));
-            moveNumberLabel.setForeground(new Color(245, 245, 220));
-            Dimension numberSize = moveNumberLabel.getPreferredSize();
-            moveNumberLabel.setPreferredSize(new Dimension(numberSize.width, 30));
-            moveListPanel.add(moveNumberLabel);
-            totalWidth += numberSize.width;
-            moveListPanel.add(Box.createHorizontalStrut(STRUT_WIDTH));
-            totalWidth += STRUT_WIDTH;
-
-            JLabel whiteMoveLabel = new JLabel(move, SwingConstants.CENTER);
-            whiteMoveLabel.setFont(new Font("Roboto", Font.PLAIN, 16));
-            whiteMoveLabel.setForeground(new Color(245, 245, 220));
-            Dimension moveSize = whiteMoveLabel.getPreferredSize();
-            whiteMoveLabel.setPreferredSize(new Dimension(moveSize.width, 30));
-            moveListPanel.add(whiteMoveLabel);
-            totalWidth += moveSize.width;
-            moveListPanel.add(Box.createHorizontalStrut(STRUT_WIDTH));
-            totalWidth += STRUT_WIDTH;
-
-            moveNumber++;
+        updatingSlider = true;
+        plySlider.setMaximum(gameHistoryManager.getMoveCount());
+        plySlider.setValue(gameHistoryManager.getUndoCount());
+        updatingSlider = false;
+
+        // Keep the labels of the plies that did not change and only drop or
+        // add the ones after them, so an update costs the changed plies
+        int plyCount = gameHistoryManager.getUndoCount();
+        int unchanged = 0;
+        while (unchanged < Math.min(plyCount, shownNotations.size())
+                && shownNotations.get(unchanged).equals(gameHistoryManager.getNotation(unchanged))) {
+            unchanged++;
+        }
+        while (shownNotations.size() > unchanged) {
+            removeLastPly();
+        }
+        for (int ply = unchanged; ply < plyCount; ply++) {
+            addPly(ply + 1, gameHistoryManager.getNotation(ply));
         }
+        logger.debug("Move notations: {}", shownNotations);
 
         final int finalTotalWidth = totalWidth;
 
         moveListPanel.setPreferredSize(new Dimension(finalTotalWidth, PANEL_HEIGHT));
 
-        logger.debug("Added {} move labels to moveListPanel, total width: {}", moveListPanel.getComponentCount(), finalTotalWidth);
+        logger.debug("Showing {} move labels in moveListPanel, total width: {}", moveListPanel.getComponentCount(), finalTotalWidth);
         logger.debug("moveListPanel actual size: {}", moveListPanel.getSize());
         logger.debug("scrollPane viewport size: {}", scrollPane.getViewport().getSize());
 
@@ -168,24 +182,40 @@ public class MoveHistoryPanel extends JPanel implements HistoryChangeListener {
         });
     }
 
-    private List<String> getMoveNotations() {
-        List<String> notations = new ArrayList<>();
-        Stack<BoardState> undoStack = gameHistoryManager.getUndoStack();
-        logger.debug("Undo stack size: {}", undoStack.size());
-        for (BoardState state : undoStack) {
-            ChessMove move = state.getLastMove();
-            logger.debug("BoardState move: {}", move);
-            if (move != null) {
-                notations.add(move.moveNotation());
-            }
-        }
-        ChessMove currentMove = chessController.getBoardManager().getLastMove();
-        if (currentMove != null) {
-            notations.add(currentMove.moveNotation());
-            logger.debug("Added current move: {}", currentMove.moveNotation());
+    private void addPly(int moveNumber, String move) {
+        int plyWidth = 0;
+
+        JLabel moveNumberLabel = new JLabel(moveNumber + ".", SwingConstants.RIGHT);
+        moveNumberLabel.setFont(new Font("Roboto", Font.BOLD, 16));
+        moveNumberLabel.setForeground(new Color(245, 245, 220));
+        Dimension numberSize = moveNumberLabel.getPreferredSize();
+        moveNumberLabel.setPreferredSize(new Dimension(numberSize.width, 30));
+        moveListPanel.add(moveNumberLabel);
+        plyWidth += numberSize.width;
+        moveListPanel.add(Box.createHorizontalStrut(STRUT_WIDTH));
+        plyWidth += STRUT_WIDTH;
+
+        JLabel whiteMoveLabel = new JLabel(move, SwingConstants.CENTER);
+        whiteMoveLabel.setFont(new Font("Roboto", Font.PLAIN, 16));
+        whiteMoveLabel.setForeground(new Color(245, 245, 220));
+        Dimension moveSize = whiteMoveLabel.getPreferredSize();
+        whiteMoveLabel.setPreferredSize(new Dimension(moveSize.width, 30));
+        moveListPanel.add(whiteMoveLabel);
+        plyWidth += moveSize.width;
+        moveListPanel.add(Box.createHorizontalStrut(STRUT_WIDTH));
+        plyWidth += STRUT_WIDTH;
+
+        shownNotations.add(move);
+        plyWidths.add(plyWidth);
+        totalWidth += plyWidth;
+    }
+
+    private void removeLastPly() {
+        for (int i = 0; i < COMPONENTS_PER_PLY; i++) {
+            moveListPanel.remove(moveListPanel.getComponentCount() - 1);
         }
-        logger.debug("Move notations: {}", notations);
-        return notations;
+        shownNotations.remove(shownNotations.size() - 1);
+        totalWidth -= plyWidths.remove(plyWidths.size() - 1);
     }
 
     @Override
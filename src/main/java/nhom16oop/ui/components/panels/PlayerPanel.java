@@ -26,6 +26,7 @@ import nhom16oop.constants.PieceColor;
 import nhom16oop.core.model.ChessPiece;
 import nhom16oop.game.ChessController;
 import nhom16oop.game.ChessTimer;
+import nhom16oop.ui.PieceSkin;
 import nhom16oop.ui.PlayerPanelListener;
 import nhom16oop.utils.ImageLoader;
 
@@ -144,7 +145,7 @@ public class PlayerPanel extends JPanel implements PlayerPanelListener {
             ChessPiece piece = entry.getKey();
             int count = entry.getValue();
             for (int i = 0; i < count; i++) {
-                Image pieceImage = piece.getImage();
+                Image pieceImage = PieceSkin.getImage(piece);
                 if (pieceImage != null) {
                     Image scaledImage = pieceImage.getScaledInstance(CAPTURED_PIECE_SIZE, CAPTURED_PIECE_SIZE, Image.SCALE_SMOOTH);
                     JLabel pieceLabel = new JLabel(new ImageIcon(scaledImage));
@@ -1,17 +1,19 @@
 package nhom16oop.utils;
 
 import nhom16oop.constants.PieceColor;
+import nhom16oop.constants.PieceType;
 import nhom16oop.core.model.BoardState;
 import nhom16oop.core.model.ChessMove;
 import nhom16oop.core.model.ChessPiece;
 import nhom16oop.core.model.ChessPosition;
+import nhom16oop.core.movegen.Attacks;
+import nhom16oop.core.movegen.LegalMoveGenerator;
 import nhom16oop.core.pieces.*;
 import nhom16oop.game.BoardManager;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.List;
-import java.util.Map;
 
 import static nhom16oop.constants.GameConstants.Board.BOARD_SIZE;
 
@@ -19,6 +21,13 @@ public class BoardUtils {
 
     private static final Logger logger = LoggerFactory.getLogger(BoardUtils.class);
 
+    private static final long KING_VS_KING = ChessPieceMap.materialSignature("Kk");
+    private static final long KING_KNIGHT_VS_KING = ChessPieceMap.materialSignature("KNk");
+    private static final long KING_VS_KING_KNIGHT = ChessPieceMap.materialSignature("Kkn");
+    private static final long KING_BISHOP_VS_KING = ChessPieceMap.materialSignature("KBk");
+    private static final long KING_VS_KING_BISHOP = ChessPieceMap.materialSignature("Kkb");
+    private static final long KING_BISHOP_VS_KING_BISHOP = ChessPieceMap.materialSignature("KBkb");
+
     public static boolean isWithinBoard(int x, int y) {
         return x >= 0 && x < BOARD_SIZE && y >= 0 && y < BOARD_SIZE;
     }
@@ -28,169 +37,127 @@ public class BoardUtils {
         if (kingPosition == null) {
             return false;
         }
-
-        PieceColor opponentColor = (color == PieceColor.WHITE) ? PieceColor.BLACK : PieceColor.WHITE;
-
-        ChessPosition opponentKingPos = pieceMap.getKingPosition(opponentColor);
-
-        if (opponentKingPos != null && Math.abs(kingPosition.col() - opponentKingPos.col()) <= 1 && Math.abs(kingPosition.row() - opponentKingPos.row()) <= 1) {
-            return true;
-        }
-
-        for (Map.Entry<ChessPosition, ChessPiece> enemyEntry : pieceMap.getPieceMap().entrySet()) {
-            ChessPosition enemyPosition = enemyEntry.getKey();
-            ChessPiece enemyPiece = enemyEntry.getValue();
-
-            if (enemyPiece.getColor() != opponentColor || enemyPiece instanceof King) {
-                continue;
-            }
-
-            List<ChessMove> possibleAttacks = enemyPiece.generateValidMoves(enemyPosition, pieceMap);
-            for (ChessMove move : possibleAttacks) {
-                if (move.end().equals(kingPosition)) {
-                    logger.info("King of {} in check by {} at {}", color, enemyPiece.getClass().getSimpleName(), enemyPosition.toChessNotation());
-                    return true;
-                }
-            }
+        boolean inCheck = isSquareAttacked(kingPosition, color.getOpponent(), pieceMap);
+        if (inCheck) {
+            logger.debug("King of {} in check at {}", color, kingPosition.toChessNotation());
         }
-        return false;
+        return inCheck;
     }
 
-    public static boolean isCheckmate(PieceColor color, ChessPieceMap pieceMap) {
-        if (!isKingInCheck(color, pieceMap)) {
-            return false;
+    /**
+     * Checks whether any piece of the given color attacks a square. Looks
+     * outward from the square instead of generating the attackers' moves: a
+     * knight, pawn or king must stand on one of the few squares it could
+     * attack from, and a rook, bishop or queen must be the first piece met on
+     * the matching ray.
+     *
+     * @param square   the square to test
+     * @param byColor  the color of the attacking pieces
+     * @param pieceMap the current state of the chess board
+     * @return true if the square is attacked, false otherwise
+     */
+    public static boolean isSquareAttacked(ChessPosition square, PieceColor byColor, ChessPieceMap pieceMap) {
+        int index = square.index();
+        if ((Attacks.knightAttacks(index) & pieceMap.getPieces(byColor, PieceType.KNIGHT)) != 0
+                || (Attacks.pawnAttacks(byColor.getOpponent(), index) & pieceMap.getPieces(byColor, PieceType.PAWN)) != 0
+                || (Attacks.kingAttacks(index) & pieceMap.getPieces(byColor, PieceType.KING)) != 0) {
+            return true;
         }
+        long occupancy = pieceMap.getOccupancy();
+        long queens = pieceMap.getPieces(byColor, PieceType.QUEEN);
+        return (Attacks.rookAttacks(index, occupancy) & (pieceMap.getPieces(byColor, PieceType.ROOK) | queens)) != 0
+                || (Attacks.bishopAttacks(index, occupancy) & (pieceMap.getPieces(byColor, PieceType.BISHOP) | queens)) != 0;
+    }
 
-        for (ChessPosition pos : pieceMap.getPieceMap().keySet()) {
-            ChessPiece piece = pieceMap.getPiece(pos);
-            if (piece.getColor() == color) {
-                List<ChessMove> moves = piece.generateValidMoves(pos, pieceMap);
-                for (ChessMove move : moves) {
-                    ChessPieceMap tempMap = simulateMove(move, pieceMap);
-                    if (!isKingInCheck(color, tempMap)) {
-                        return false;
-                    }
-                }
-            }
-        }
-        return true;
+    public static boolean isCheckmate(BoardState boardState) {
+        LegalMoveGenerator generator = new LegalMoveGenerator(boardState);
+        return generator.isInCheck() && !generator.hasLegalMove();
     }
 
-    public static boolean isMoveValidUnderCheck(ChessMove move, ChessPieceMap pieceMap) {
+    /**
+     * Checks whether a move would leave the moving side's king in check. The
+     * move is applied to the piece map in place and taken back before
+     * returning, so the map is never copied. A pawn moving diagonally onto an
+     * empty square is treated as an en passant capture.
+     *
+     * @param move     the move to test
+     * @param pieceMap the board to test it on; unchanged when this returns
+     * @return true if the king of the moving piece's color is in check after the move
+     */
+    public static boolean leavesKingInCheck(ChessMove move, ChessPieceMap pieceMap) {
         ChessPiece piece = pieceMap.getPiece(move.start());
         if (piece == null) {
             return false;
         }
-
-        PieceColor color = piece.getColor();
-
-        if (!isKingInCheck(color, pieceMap)) {
-            return piece.isValidMove(move, pieceMap);
+        if (move.start().equals(move.end())) {
+            return isKingInCheck(piece.getColor(), pieceMap);
         }
 
-        ChessPieceMap tempMap = simulateMove(move, pieceMap);
-        return !isKingInCheck(color, tempMap);
-    }
+        ChessPiece capturedPiece = pieceMap.getPiece(move.end());
+        ChessPosition capturedPosition = move.end();
+        if (piece.getPieceType() == PieceType.PAWN && capturedPiece == null && move.start().col() != move.end().col()) {
+            capturedPosition = ChessPosition.of(move.end().col(), move.start().row());
+            capturedPiece = pieceMap.getPiece(capturedPosition);
+        }
 
-    public static ChessPieceMap simulateMove(ChessMove move, ChessPieceMap pieceMap) {
-        ChessPieceMap tempMap = new ChessPieceMap();
-        for (Map.Entry<ChessPosition, ChessPiece> entry : pieceMap.getPieceMap().entrySet()) {
-            ChessPosition pos = entry.getKey();
-            ChessPiece piece = entry.getValue();
-            tempMap.setPiece(pos, piece);
+        if (capturedPiece != null) {
+            pieceMap.removePiece(capturedPosition);
         }
+        pieceMap.removePiece(move.start());
+        pieceMap.setPiece(move.end(), piece);
 
-        ChessPiece piece = tempMap.getPiece(move.start());
-        tempMap.removePiece(move.end());
-        tempMap.removePiece(move.start());
-        tempMap.setPiece(move.end(), piece);
+        boolean inCheck = isKingInCheck(piece.getColor(), pieceMap);
 
-        if (piece instanceof Pawn && move.start().col() != move.end().col() && !pieceMap.hasPiece(move.end())) {
-            ChessPosition capturedPawnPos = new ChessPosition(move.end().col(), move.start().row());
-            tempMap.removePiece(capturedPawnPos);
+        pieceMap.removePiece(move.end());
+        pieceMap.setPiece(move.start(), piece);
+        if (capturedPiece != null) {
+            pieceMap.setPiece(capturedPosition, capturedPiece);
         }
-
-        return tempMap;
+        return inCheck;
     }
 
     // https://en.wikipedia.org/wiki/Threefold_repetition
     public static boolean isThreefoldRepetition(BoardManager boardManager) {
-        Map<BoardState, Integer> history = boardManager.getBoardStateHistory();
-        String currentFEN = ChessNotationUtils.getFEN(boardManager.getCurrentBoardState());
-        int occurrences = history.getOrDefault(boardManager.getCurrentBoardState(), 0);
-        logger.debug("Checking threefold repetition (FIDE): FEN={}, occurrences={}", currentFEN, occurrences);
+        int occurrences = boardManager.getRepetitionTable().countOccurrences();
+        logger.debug("Checking threefold repetition (FIDE): occurrences={}", occurrences);
         return occurrences >= 3;
     }
 
+    /**
+     * Checks for a position where neither side can checkmate, from the
+     * material signature kept by the piece map: king against king, king and
+     * minor piece against king, and kings with one bishop each on squares of
+     * the same color.
+     *
+     * @param pieceMap the pieces
+     * @return true if the position is dead
+     */
     public static boolean isDeadPosition(ChessPieceMap pieceMap) {
-        Map<ChessPosition, ChessPiece> pieces = pieceMap.getPieceMap();
-        int whiteKnights = 0, whiteBishops = 0, blackKnights = 0, blackBishops = 0;
-        int whiteOther = 0, blackOther = 0;
-        int totalPieces = pieces.size();
-
-        // Đếm số quân của mỗi bên
-        for (ChessPiece piece : pieces.values()) {
-            if (piece.getColor().isWhite()) {
-                if (piece instanceof Knight) {
-                    whiteKnights++;
-                } else if (piece instanceof Bishop) {
-                    whiteBishops++;
-                } else if (!(piece instanceof King)) {
-                    whiteOther++; // Tốt, Xe, Hậu
-
-                }
-            } else { // BLACK
-                if (piece instanceof Knight) {
-                    blackKnights++;
-                } else if (piece instanceof Bishop) {
-                    blackBishops++;
-                } else if (!(piece instanceof King)) {
-                    blackOther++;
-                }
-            }
-        }
-
-        // Tổng số quân khác (ngoài vua, mã, tượng) phải bằng 0
-        if (whiteOther > 0 || blackOther > 0) {
-            return false;
-        }
-
-        int totalMinorPieces = whiteKnights + whiteBishops + blackKnights + blackBishops;
+        long signature = pieceMap.getMaterialSignature();
 
         // Trường hợp 1: Chỉ còn hai vua
-        if (totalPieces == 2 && whiteKnights == 0 && whiteBishops == 0 && blackKnights == 0 && blackBishops == 0) {
+        if (signature == KING_VS_KING) {
             logger.info("Dead Position: King vs. King");
             return true;
         }
 
         // Trường hợp 2: Vua + Mã vs. Vua hoặc Vua vs. Vua + Mã
-        if (totalPieces == 3 && totalMinorPieces == 1 && (whiteKnights + blackKnights == 1)) {
+        if (signature == KING_KNIGHT_VS_KING || signature == KING_VS_KING_KNIGHT) {
             logger.info("Dead Position: King + Knight vs. King");
             return true;
         }
 
         // Trường hợp 3: Vua + Tượng vs. Vua hoặc Vua vs. Vua + Tượng
-        if (totalPieces == 3 && totalMinorPieces == 1 && (whiteBishops + blackBishops == 1)) {
+        if (signature == KING_BISHOP_VS_KING || signature == KING_VS_KING_BISHOP) {
             logger.info("Dead Position: King + Bishop vs. King");
             return true;
         }
 
         // Trường hợp 4: Vua + Tượng vs. Vua + Tượng (cùng màu)
-        if (totalPieces == 4 && whiteBishops == 1 && blackBishops == 1 && whiteKnights == 0 && blackKnights == 0) {
-            ChessPosition whiteBishopPos = null, blackBishopPos = null;
-            for (Map.Entry<ChessPosition, ChessPiece> entry : pieces.entrySet()) {
-                if (entry.getValue() instanceof Bishop) {
-                    if (entry.getValue().getColor().isWhite()) {
-                        whiteBishopPos = entry.getKey();
-                    } else {
-                        blackBishopPos = entry.getKey();
-                    }
-                }
-            }
-            assert whiteBishopPos != null;
-            assert blackBishopPos != null;
-            boolean sameColor = (whiteBishopPos.col() + whiteBishopPos.row()) % 2 == (blackBishopPos.col() + blackBishopPos.row()) % 2;
-            if (sameColor) {
+        if (signature == KING_BISHOP_VS_KING_BISHOP) {
+            int whiteBishop = Long.numberOfTrailingZeros(pieceMap.getPieces(PieceColor.WHITE, PieceType.BISHOP));
+            int blackBishop = Long.numberOfTrailingZeros(pieceMap.getPieces(PieceColor.BLACK, PieceType.BISHOP));
+            if (squareColor(whiteBishop) == squareColor(blackBishop)) {
                 logger.info("Dead Position: King + Bishop vs. King + Bishop (same color)");
                 return true;
             }
@@ -199,26 +166,17 @@ public class BoardUtils {
         return false;
     }
 
-    public static boolean isStalemate(PieceColor currentPlayerColor, ChessPieceMap pieceMap) {
-        if (isKingInCheck(currentPlayerColor, pieceMap)) {
-            return false;
-        }
+    private static int squareColor(int square) {
+        return ((square >>> 3) + (square & 7)) & 1;
+    }
 
-        for (Map.Entry<ChessPosition, ChessPiece> entry : pieceMap.getPieceMap().entrySet()) {
-            ChessPiece piece = entry.getValue();
-            if (piece.getColor() == currentPlayerColor) {
-                ChessPosition start = entry.getKey();
-                List<ChessMove> moves = piece.generateValidMoves(start, pieceMap);
-                for (ChessMove move : moves) {
-                    ChessPieceMap tempMap = simulateMove(move, pieceMap);
-                    if (!isKingInCheck(currentPlayerColor, tempMap)) {
-                        return false;
-                    }
-                }
-            }
+    public static boolean isStalemate(BoardState boardState) {
+        LegalMoveGenerator generator = new LegalMoveGenerator(boardState);
+        if (generator.isInCheck() || generator.hasLegalMove()) {
+            return false;
         }
 
-        logger.info("Stalemate detected: No legal moves for {}", currentPlayerColor);
+        logger.info("Stalemate detected: No legal moves for {}", boardState.getCurrentPlayerColor());
         return true;
     }
 }
@@ -1,162 +1,95 @@
 package nhom16oop.utils;
 
-import nhom16oop.constants.GameConstants;
+import nhom16oop.constants.PieceColor;
+import nhom16oop.constants.PieceType;
 import nhom16oop.core.model.BoardState;
 import nhom16oop.core.model.ChessPiece;
 import nhom16oop.core.model.ChessPosition;
-import nhom16oop.core.pieces.ChessPieceMap;
+import nhom16oop.core.movegen.LegalMoveGenerator;
+import nhom16oop.core.movegen.Move;
+import nhom16oop.core.movegen.MoveList;
 
 /**
- * Utility class for converting chess positions and board states to standard notations.
+ * Utility class for converting moves to standard notations. Positions are
+ * converted to and from FEN by {@link nhom16oop.core.model.FenCodec}.
  */
 public class ChessNotationUtils {
 
     /**
-     * Converts the current board state to a FEN (Forsyth-Edwards Notation)
-     * string. The FEN string represents the position of pieces on the board,
-     * the active player, castling availability, en passant target square,
-     * halfmove clock, and fullmove number.
+     * Formats a legal move in Standard Algebraic Notation, e.g. "Nbd7", "exd6",
+     * "O-O" or "e8=Q+". The move is made and taken back on the given board
+     * state to detect check and mate, so the board state must not be in use
+     * by another thread.
      *
-     * @param boardState The current state of the chessboard.
-     * @return A FEN string representing the current board state.
+     * @param boardState the position before the move
+     * @param move       the packed move (see {@link Move})
+     * @param legalMoves all legal moves in the position, used to disambiguate
+     *                   pieces of the same type that can reach the same square
+     * @return the move in SAN
      */
-    public static String getFEN(BoardState boardState) {
-        ChessPieceMap pieceMap = boardState.getChessPieceMap();
-        StringBuilder fen = new StringBuilder();
-        // Note: FEN uses a descartes coordinate system (col, row). e.g., a1 = (0, 0)
-
-        // 1. Chessboard position
-        for (int row = GameConstants.Board.BOARD_SIZE - 1; row >= 0; row--) {
-            int emptyCount = 0;
-            for (int col = 0; col <= GameConstants.Board.BOARD_SIZE - 1; col++) {
-                ChessPosition position = new ChessPosition(col, row);
-                ChessPiece piece = pieceMap.getPiece(position);
-
-                if (piece == null) {
-                    emptyCount++;
-                } else {
-                    if (emptyCount > 0) {
-                        fen.append(emptyCount);
-                        emptyCount = 0;
-                    }
-                    fen.append(piece.getPieceNotation());
-                }
+    public static String toSan(BoardState boardState, int move, MoveList legalMoves) {
+        StringBuilder san = new StringBuilder();
+        int from = Move.from(move);
+        int to = Move.to(move);
+        ChessPiece piece = boardState.getChessPieceMap().getPiece(ChessPosition.of(from));
+
+        if (Move.isCastling(move)) {
+            san.append(to > from ? "O-O" : "O-O-O");
+        } else if (piece.getPieceType() == PieceType.PAWN) {
+            if (Move.isCapture(move)) {
+                san.append((char) ('a' + (from & 7))).append('x');
             }
-            if (emptyCount > 0) {
-                fen.append(emptyCount);
+            san.append(ChessPosition.of(to).toChessNotation());
+            PieceType promotion = Move.promotion(move);
+            if (promotion != null) {
+                san.append('=').append(ChessPiece.of(PieceColor.WHITE, promotion).getPieceNotation());
             }
-            if (row > 0) {
-                fen.append("/");
+        } else {
+            san.append(piece.getColor().isWhite() ? piece.getPieceNotation() : piece.getPieceNotation().toUpperCase());
+            appendDisambiguation(san, boardState, piece, from, to, legalMoves);
+            if (Move.isCapture(move)) {
+                san.append('x');
             }
+            san.append(ChessPosition.of(to).toChessNotation());
         }
 
-        // 2. Current player
-        fen.append(" ");
-        fen.append(boardState.getCurrentPlayerColor().isWhite() ? "w" : "b");
-
-        // 3. Castling availability
-        fen.append(" ");
-        StringBuilder castling = new StringBuilder();
-        if (boardState.canWhiteCastleKingside()) {
-            castling.append("K");
-        }
-        if (boardState.canWhiteCastleQueenside()) {
-            castling.append("Q");
-        }
-        if (boardState.canBlackCastleKingside()) {
-            castling.append("k");
-        }
-        if (boardState.canBlackCastleQueenside()) {
-            castling.append("q");
-        }
-        fen.append(!castling.isEmpty() ? castling.toString() : "-");
-
-        // 4. En passant target square
-        fen.append(" ");
-        ChessPosition enPassantTargetSquare = boardState.getEnPassantTargetSquare();
-        if (enPassantTargetSquare != null) {
-            fen.append(enPassantTargetSquare.toChessNotation());
-        } else {
-            fen.append("-");
+        long undo = boardState.makeMove(move);
+        LegalMoveGenerator reply = new LegalMoveGenerator(boardState);
+        if (reply.isInCheck()) {
+            san.append(reply.hasLegalMove() ? '+' : '#');
         }
-        // 5. Halfmove clock
-        fen.append(" ");
-        fen.append(boardState.getHalfmoveClock());
-
-        // 6. Fullmove number
-        fen.append(" ");
-        fen.append(boardState.getFullmoveNumber());
-
-        return fen.toString();
+        boardState.unmakeMove(move, undo);
+        return san.toString();
     }
 
     /**
-     * Converts the current board state to a FEN string containing only the first four parts
-     * (piece placement, active color, castling availability, en passant target square).
-     *
-     * @param boardState The current state of the chessboard.
-     * @return A FEN string representing the first four parts of the board state.
+     * Adds the file, rank or both of the start square when another piece of
+     * the same type and color can also move to the destination.
      */
-    public static String getFenFourParts(BoardState boardState) {
-        ChessPieceMap pieceMap = boardState.getChessPieceMap();
-        StringBuilder fen = new StringBuilder();
-        // Note: FEN uses a descartes coordinate system (col, row). e.g., a1 = (0, 0)
-
-        // 1. Chessboard position
-        for (int row = GameConstants.Board.BOARD_SIZE - 1; row >= 0; row--) {
-            int emptyCount = 0;
-            for (int col = 0; col <= GameConstants.Board.BOARD_SIZE - 1; col++) {
-                ChessPosition position = new ChessPosition(col, row);
-                ChessPiece piece = pieceMap.getPiece(position);
-
-                if (piece == null) {
-                    emptyCount++;
-                } else {
-                    if (emptyCount > 0) {
-                        fen.append(emptyCount);
-                        emptyCount = 0;
-                    }
-                    fen.append(piece.getPieceNotation());
-                }
+    private static void appendDisambiguation(StringBuilder san, BoardState boardState, ChessPiece piece, int from, int to, MoveList legalMoves) {
+        boolean ambiguous = false;
+        boolean sameFile = false;
+        boolean sameRank = false;
+        for (int i = 0; i < legalMoves.size(); i++) {
+            int other = legalMoves.get(i);
+            int otherFrom = Move.from(other);
+            if (Move.to(other) != to || otherFrom == from
+                    || boardState.getChessPieceMap().getPiece(ChessPosition.of(otherFrom)) != piece) {
+                continue;
             }
-            if (emptyCount > 0) {
-                fen.append(emptyCount);
-            }
-            if (row > 0) {
-                fen.append("/");
-            }
-        }
-
-        // 2. Current player
-        fen.append(" ");
-        fen.append(boardState.getCurrentPlayerColor().isWhite() ? "w" : "b");
-
-        // 3. Castling availability
-        fen.append(" ");
-        StringBuilder castling = new StringBuilder();
-        if (boardState.canWhiteCastleKingside()) {
-            castling.append("K");
-        }
-        if (boardState.canWhiteCastleQueenside()) {
-            castling.append("Q");
+            ambiguous = true;
+            sameFile |= (otherFrom & 7) == (from & 7);
+            sameRank |= (otherFrom >>> 3) == (from >>> 3);
         }
-        if (boardState.canBlackCastleKingside()) {
-            castling.append("k");
+        if (!ambiguous) {
+            return;
         }
-        if (boardState.canBlackCastleQueenside()) {
-            castling.append("q");
-        }
-        fen.append(!castling.isEmpty() ? castling.toString() : "-");
-
-        // 4. En passant target square
-        fen.append(" ");
-        ChessPosition enPassantTargetSquare = boardState.getEnPassantTargetSquare();
-        if (enPassantTargetSquare != null) {
-            fen.append(enPassantTargetSquare.toChessNotation());
+        if (!sameFile) {
+            san.append((char) ('a' + (from & 7)));
+        } else if (!sameRank) {
+            san.append((char) ('1' + (from >>> 3)));
         } else {
-            fen.append("-");
+            san.append(ChessPosition.of(from).toChessNotation());
         }
-
-        return fen.toString();
     }
 }
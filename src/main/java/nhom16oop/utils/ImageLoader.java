@@ -100,10 +100,6 @@ public class ImageLoader {
     }
 
     public static void preloadImages() {
-        String[] chessPieceName = {"white_pawn.png", "black_pawn.png", "white_rook.png", "black_rook.png", "white_knight.png", "black_knight.png", "white_bishop.png", "black_bishop.png", "white_queen.png", "black_queen.png", "white_king.png", "black_king.png"};
-        for (String name : chessPieceName) {
-            getImage("images/pieces/" + name, 95, 95);
-        }
         getImage("images/chessboard.png", GameConstants.Board.BOARD_WIDTH, GameConstants.Board.BOARD_HEIGHT);
     }
 